@@ -0,0 +1,141 @@
+package com.medivex.medicine.service.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one endpoint group with a short wait queue. The limit adapts to observed
+ * latency (AIMD): a request slower than the target cuts it multiplicatively, at most once per
+ * target interval, and fast requests while the group is busy grow it by about one per limit's
+ * worth of completions. Requests that find the queue full, or wait longer than {@code maxWait},
+ * are rejected instead of piling up.
+ */
+public class Bulkhead {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long maxWaitNanos;
+    private final long targetLatencyNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Counter rejected;
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastDecrease;
+
+    public Bulkhead(String name, BulkheadProperties.Group settings, MeterRegistry registry) {
+        this.name = name;
+        this.minLimit = settings.minLimit();
+        this.maxLimit = settings.maxLimit();
+        this.queueSize = settings.queueSize();
+        this.maxWaitNanos = settings.maxWait().toNanos();
+        this.targetLatencyNanos = settings.targetLatency().toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, settings.initialLimit()));
+        this.lastDecrease = System.nanoTime() - targetLatencyNanos;
+        this.rejected = Counter.builder("medicine.bulkhead.rejected")
+                .tag("group", name)
+                .register(registry);
+        Gauge.builder("medicine.bulkhead.inflight", this, Bulkhead::inFlight).tag("group", name).register(registry);
+        Gauge.builder("medicine.bulkhead.queued", this, Bulkhead::queued).tag("group", name).register(registry);
+        Gauge.builder("medicine.bulkhead.limit", this, Bulkhead::limit).tag("group", name).register(registry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if there is room. Returns false when rejected.
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= queueSize) {
+                rejected.increment();
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        return false;
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot taken by {@link #tryAcquire()} and feeds the request's latency to the limit.
+     */
+    public void release(Duration latency) {
+        lock.lock();
+        try {
+            boolean busy = inFlight >= limit / 2;
+            inFlight--;
+            long nanos = latency.toNanos();
+            long now = System.nanoTime();
+            if (nanos > targetLatencyNanos) {
+                if (now - lastDecrease >= targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastDecrease = now;
+                }
+            } else if (busy) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
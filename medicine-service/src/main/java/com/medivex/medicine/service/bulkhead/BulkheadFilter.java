@@ -0,0 +1,102 @@
+package com.medivex.medicine.service.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs each request inside the bulkhead of its endpoint group, so a pile-up of slow searches
+ * cannot take the threads that point reads need. Rejected requests get 503 with Retry-After
+ * before authentication or any database work. Requests outside every group pass through.
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<Route> routes = new ArrayList<>();
+    private final String retryAfterSeconds;
+    private final ObjectMapper objectMapper;
+
+    public BulkheadFilter(BulkheadProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = Long.toString(Math.max(1, (properties.retryAfter().toMillis() + 999) / 1000));
+        properties.groups().forEach((name, group) -> {
+            Bulkhead bulkhead = new Bulkhead(name, group, meterRegistry);
+            for (String route : group.routes()) {
+                String[] parts = route.trim().split("\\s+", 2);
+                routes.add(parts.length == 2
+                        ? new Route(parts[0].toUpperCase(), parts[1], bulkhead)
+                        : new Route(null, parts[0], bulkhead));
+            }
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Bulkhead bulkhead = resolve(request);
+        if (bulkhead == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            reject(request, response, bulkhead);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    Bulkhead resolve(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if ((route.method() == null || route.method().equals(request.getMethod())) && matcher.match(route.pattern(), path)) {
+                return route.bulkhead();
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Bulkhead bulkhead) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", OffsetDateTime.now().toString());
+        body.put("path", request.getRequestURI());
+        body.put("error", status.getReasonPhrase());
+        body.put("status", status.value());
+        body.put("message", "Too many concurrent " + bulkhead.name() + " requests; retry later");
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private record Route(String method, String pattern, Bulkhead bulkhead) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.medivex.medicine.service.bulkhead;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code medicine.bulkhead.*}. Groups are matched in declaration order, so a specific route such
+ * as {@code GET /api/medicines/search} must come before a wildcard like {@code GET /api/medicines/*}.
+ */
+@ConfigurationProperties("medicine.bulkhead")
+public record BulkheadProperties(boolean enabled, Duration retryAfter, Map<String, Group> groups) {
+
+    public BulkheadProperties {
+        retryAfter = retryAfter != null ? retryAfter : Duration.ofSeconds(1);
+        groups = groups != null ? groups : new LinkedHashMap<>();
+    }
+
+    /**
+     * @param routes "METHOD /ant/path" entries; a route without a method matches any method
+     */
+    public record Group(List<String> routes, int initialLimit, int minLimit, int maxLimit, int queueSize,
+                        Duration maxWait, Duration targetLatency) {
+
+        public Group {
+            routes = routes != null ? routes : List.of();
+            minLimit = Math.max(1, minLimit);
+            maxLimit = Math.max(minLimit, maxLimit);
+            maxWait = maxWait != null ? maxWait : Duration.ofMillis(50);
+            targetLatency = targetLatency != null ? targetLatency : Duration.ofMillis(200);
+        }
+    }
+}
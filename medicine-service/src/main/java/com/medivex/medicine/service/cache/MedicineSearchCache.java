@@ -0,0 +1,121 @@
+package com.medivex.medicine.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medivex.medicine.service.event.CatalogBulkChangedEvent;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Search-result cache holding only matching ids and the total count per {@link MedicineSearchKey}.
+ * Caffeine's W-TinyLFU policy admits a new key only when it is requested more often than the
+ * entry it would evict, so the long tail of one-off queries does not flush the popular ones.
+ * <p>
+ * Writes invalidate after commit, and only the keys whose predicate matched the medicine before
+ * or after the change. A result computed concurrently with an invalidation is not stored.
+ * The TTL bounds staleness for writes made by other nodes.
+ */
+@Component
+@Slf4j
+public class MedicineSearchCache {
+
+    private final boolean enabled;
+    private final Cache<MedicineSearchKey, Ids> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public MedicineSearchCache(MeterRegistry meterRegistry,
+                               @Value("${medicine.search.cache.enabled:true}") boolean enabled,
+                               @Value("${medicine.search.cache.maximum-size:10000}") long maximumSize,
+                               @Value("${medicine.search.cache.expire-after-write:2m}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "medicine.search");
+        Gauge.builder("medicine.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Fraction of search requests answered from the id cache")
+                .register(meterRegistry);
+    }
+
+    public Ids get(MedicineSearchKey key) {
+        if (!enabled || !key.isPaged()) {
+            return null;
+        }
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Token to pass back to {@link #put}; taken before the query runs.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(MedicineSearchKey key, Ids ids, long generationAtLoad) {
+        if (!enabled || !key.isPaged()) {
+            return;
+        }
+        cache.put(key, ids);
+        // An invalidation ran while we were querying; our rows may predate it.
+        if (generation.get() != generationAtLoad) {
+            cache.asMap().remove(key, ids);
+        }
+    }
+
+    public void invalidate(MedicineSearchKey key) {
+        cache.invalidate(key);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(e ->
+                e.getValue().ids().contains(event.medicineId())
+                        || (event.before() != null && e.getKey().matches(event.before()))
+                        || (event.after() != null && e.getKey().matches(event.after())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == CategoryChangedEvent.Type.CREATED) {
+            return;
+        }
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(k -> event.categoryId().equals(k.categoryId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryRetired(CategoryRetiredEvent event) {
+        generation.incrementAndGet();
+        if (!event.merged()) {
+            // deactivated medicines may appear in any cached page
+            cache.invalidateAll();
+            return;
+        }
+        cache.asMap().keySet().removeIf(k -> event.categoryId().equals(k.categoryId())
+                || event.replacementCategoryId().equals(k.categoryId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogBulkChanged(CatalogBulkChangedEvent event) {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public record Ids(List<Long> ids, long total) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.medivex.medicine.service.cache;
+
+import com.medivex.medicine.service.event.MedicineSnapshot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+
+/**
+ * Normalized form of a {@code /api/medicines/search} request. Two requests with equal keys are
+ * guaranteed to return the same rows: the query lower-cases both sides and treats an empty
+ * {@code q} like an absent one.
+ */
+public record MedicineSearchKey(
+        String q,
+        Long categoryId,
+        Boolean prescriptionRequired,
+        Boolean active,
+        int page,
+        int size,
+        Sort sort
+) {
+
+    public static MedicineSearchKey of(String q, Long categoryId, Boolean prescriptionRequired, Boolean active, Pageable pageable) {
+        String normalized = (q == null || q.isEmpty()) ? null : q.toLowerCase(Locale.ROOT);
+        if (pageable.isUnpaged()) {
+            return new MedicineSearchKey(normalized, categoryId, prescriptionRequired, active, -1, -1, pageable.getSort());
+        }
+        return new MedicineSearchKey(normalized, categoryId, prescriptionRequired, active,
+                pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort());
+    }
+
+    public boolean isPaged() {
+        return size > 0;
+    }
+
+    /**
+     * Evaluates the search predicate in memory; used to decide whether a write can change this key's result.
+     */
+    public boolean matches(MedicineSnapshot m) {
+        if (categoryId != null && !categoryId.equals(m.categoryId())) return false;
+        if (prescriptionRequired != null && !prescriptionRequired.equals(m.prescriptionRequired())) return false;
+        if (active != null && !active.equals(m.active())) return false;
+        if (q == null) return true;
+        return contains(m.name()) || contains(m.genericName()) || contains(m.brandName());
+    }
+
+    private boolean contains(String value) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(q);
+    }
+}
@@ -0,0 +1,93 @@
+package com.medivex.medicine.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into a single call. The first caller for a key
+ * runs the loader on its own thread; callers arriving while it is in flight wait (bounded by
+ * {@code maxWait}) and receive the same value or the same exception. Nothing is retained once
+ * the load completes, so a failed load is retried by the next caller.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+    private final Counter leaders;
+    private final Counter collapsed;
+    private final Counter timeouts;
+    private final Counter failures;
+
+    public SingleFlight(String name, Duration maxWait, MeterRegistry registry) {
+        this.maxWait = maxWait;
+        this.leaders = counter(registry, name, "leader");
+        this.collapsed = counter(registry, name, "collapsed");
+        this.timeouts = counter(registry, name, "timeout");
+        this.failures = counter(registry, name, "failed");
+        Gauge.builder("medicine.coalescing.inflight", inFlight, ConcurrentHashMap::size)
+                .tag("operation", name)
+                .register(registry);
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing == null) {
+            return lead(key, mine, loader);
+        }
+        collapsed.increment();
+        try {
+            return existing.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The leader is slow; fall back to what this caller would have done without coalescing.
+            timeouts.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight load", e);
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> loader) {
+        leaders.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException re) {
+            return re;
+        }
+        if (cause instanceof Error err) {
+            throw err;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String result) {
+        return Counter.builder("medicine.coalescing.calls")
+                .tag("operation", name)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Reads catalog records for the read-side stores. Full loads walk the table in id order, one
+ * short transaction per batch so the persistence context never holds more than a batch. Loads
+ * use read-write transactions so they hit the primary and never miss a write a replica has not
+ * applied yet.
+ */
+@Component
+public class CatalogLoader {
+
+    private final MedicineRepository medicineRepository;
+    private final MedicineCategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public CatalogLoader(MedicineRepository medicineRepository,
+                         MedicineCategoryRepository categoryRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${medicine.catalog.load-batch-size:5000}") int batchSize) {
+        this.medicineRepository = medicineRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public void forEach(Consumer<CatalogRecord> sink) {
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<CatalogRecord> batch = transactionTemplate.execute(status ->
+                    medicineRepository.findBatchAfter(from, Limit.of(batchSize)).stream().map(CatalogRecord::of).toList());
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            batch.forEach(sink);
+            afterId = batch.get(batch.size() - 1).id();
+        }
+    }
+
+    public List<CatalogRecord> load(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<CatalogRecord> records = new ArrayList<>(all.size());
+        for (int from = 0; from < all.size(); from += batchSize) {
+            List<Long> batch = all.subList(from, Math.min(from + batchSize, all.size()));
+            records.addAll(transactionTemplate.execute(status ->
+                    medicineRepository.findAllWithCategoryByIdIn(batch).stream().map(CatalogRecord::of).toList()));
+        }
+        return records;
+    }
+
+    /**
+     * Ids of medicines created or updated after {@code since}, including set-based updates that
+     * publish no per-row event.
+     */
+    public List<Long> idsChangedSince(LocalDateTime since) {
+        return transactionTemplate.execute(status -> medicineRepository.findIdsChangedSince(since));
+    }
+
+    /**
+     * Whether a category that existed at {@code since} has been modified since, e.g. renamed.
+     */
+    public boolean categoriesModifiedSince(LocalDateTime since) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> categoryRepository.existsModifiedSince(since)));
+    }
+
+    public Map<Long, String> categoryNames() {
+        return transactionTemplate.execute(status -> categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(MedicineCategory::getId, MedicineCategory::getName)));
+    }
+}
@@ -0,0 +1,75 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.entity.Medicine;
+
+import java.math.BigDecimal;
+
+/**
+ * The columns of a medicine that read-side catalog stores keep, exactly those of
+ * {@link MedicineResponse}. Booleans are already normalized the way responses present them.
+ */
+public record CatalogRecord(
+        long id,
+        String name,
+        String genericName,
+        String brandName,
+        String manufacturer,
+        Long categoryId,
+        String categoryName,
+        String medicineCode,
+        String barcode,
+        String dosageForm,
+        String strength,
+        String unitOfMeasure,
+        BigDecimal price,
+        boolean prescriptionRequired,
+        Integer minimumStockLevel,
+        Integer maximumStockLevel,
+        boolean active
+) {
+
+    public static CatalogRecord of(Medicine m) {
+        return new CatalogRecord(
+                m.getId(),
+                m.getName(),
+                m.getGenericName(),
+                m.getBrandName(),
+                m.getManufacturer(),
+                m.getCategory() != null ? m.getCategory().getId() : null,
+                m.getCategory() != null ? m.getCategory().getName() : null,
+                m.getMedicineCode(),
+                m.getBarcode(),
+                m.getDosageForm(),
+                m.getStrength(),
+                m.getUnitOfMeasure(),
+                m.getPrice(),
+                Boolean.TRUE.equals(m.getPrescriptionRequired()),
+                m.getMinimumStockLevel(),
+                m.getMaximumStockLevel(),
+                Boolean.TRUE.equals(m.getActive())
+        );
+    }
+
+    public MedicineResponse toResponse() {
+        return MedicineResponse.builder()
+                .id(id)
+                .name(name)
+                .genericName(genericName)
+                .brandName(brandName)
+                .manufacturer(manufacturer)
+                .categoryId(categoryId)
+                .categoryName(categoryName)
+                .medicineCode(medicineCode)
+                .barcode(barcode)
+                .dosageForm(dosageForm)
+                .strength(strength)
+                .unitOfMeasure(unitOfMeasure)
+                .price(price)
+                .prescriptionRequired(prescriptionRequired)
+                .minimumStockLevel(minimumStockLevel)
+                .maximumStockLevel(maximumStockLevel)
+                .active(active)
+                .build();
+    }
+}
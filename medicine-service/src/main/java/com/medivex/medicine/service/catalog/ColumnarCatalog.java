@@ -0,0 +1,596 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable columnar snapshot of the catalog: one primitive array per column, rows ordered by id.
+ * All string columns share one dictionary, so a manufacturer or dosage form repeated across
+ * thousands of rows is held once and every response built from the snapshot references the same
+ * String instance. Changes go through {@link Builder}, which copies the columns; readers keep the
+ * snapshot they started with.
+ * <p>
+ * Sorting works on row numbers in primitive arrays. The first query sorting on a column ranks all
+ * rows by it once per snapshot, so later comparisons are int comparisons; a paged query keeps only
+ * the rows up to the end of the requested page in a bounded heap. String columns are ordered by
+ * the snapshot's collation, which has to agree with the database's for pages to match; without
+ * one, queries sorting on a string column are left to the database.
+ */
+final class ColumnarCatalog {
+
+    private static final int NO_STRING = -1;
+    private static final int NO_INT = Integer.MIN_VALUE;
+    private static final long NO_LONG = Long.MIN_VALUE;
+    private static final byte PRESCRIPTION = 1;
+    private static final byte ACTIVE = 2;
+    private static final int PRICE_SCALE = 2;
+
+    private final String[] dictionary;
+    private final String[] lowerDictionary;
+    private final int size;
+    private final long[] ids;
+    private final int[] name;
+    private final int[] genericName;
+    private final int[] brandName;
+    private final int[] manufacturer;
+    private final int[] medicineCode;
+    private final int[] barcode;
+    private final int[] dosageForm;
+    private final int[] strength;
+    private final int[] unitOfMeasure;
+    private final long[] categoryId;
+    private final long[] price;
+    private final int[] minimumStock;
+    private final int[] maximumStock;
+    private final byte[] flags;
+    private final Map<Long, String> categoryNames;
+    private final int[] rowsByCode;
+    // null: string sorts are declined
+    private final Comparator<String> collation;
+    private final Map<String, int[]> ranks = new ConcurrentHashMap<>();
+
+    private ColumnarCatalog(Builder b, String[] dictionary, String[] lowerDictionary, int[] rowsByCode) {
+        this.dictionary = dictionary;
+        this.lowerDictionary = lowerDictionary;
+        this.size = b.size;
+        this.ids = Arrays.copyOf(b.ids, b.size);
+        this.name = Arrays.copyOf(b.name, b.size);
+        this.genericName = Arrays.copyOf(b.genericName, b.size);
+        this.brandName = Arrays.copyOf(b.brandName, b.size);
+        this.manufacturer = Arrays.copyOf(b.manufacturer, b.size);
+        this.medicineCode = Arrays.copyOf(b.medicineCode, b.size);
+        this.barcode = Arrays.copyOf(b.barcode, b.size);
+        this.dosageForm = Arrays.copyOf(b.dosageForm, b.size);
+        this.strength = Arrays.copyOf(b.strength, b.size);
+        this.unitOfMeasure = Arrays.copyOf(b.unitOfMeasure, b.size);
+        this.categoryId = Arrays.copyOf(b.categoryId, b.size);
+        this.price = Arrays.copyOf(b.price, b.size);
+        this.minimumStock = Arrays.copyOf(b.minimumStock, b.size);
+        this.maximumStock = Arrays.copyOf(b.maximumStock, b.size);
+        this.flags = Arrays.copyOf(b.flags, b.size);
+        this.categoryNames = Map.copyOf(b.categoryNames);
+        this.rowsByCode = rowsByCode;
+        this.collation = b.collation;
+    }
+
+    static ColumnarCatalog empty() {
+        return new Builder(Map.of()).build();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dictionarySize() {
+        return dictionary.length;
+    }
+
+    Map<Long, String> categoryNames() {
+        return categoryNames;
+    }
+
+    boolean hasCategory(long id) {
+        return categoryNames.containsKey(id);
+    }
+
+    Optional<MedicineResponse> findById(long id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 ? Optional.of(response(row)) : Optional.empty();
+    }
+
+    Optional<MedicineResponse> findByCode(String code) {
+        int lo = 0;
+        int hi = rowsByCode.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = dictionary[medicineCode[rowsByCode[mid]]].compareTo(code);
+            if (cmp == 0) {
+                return Optional.of(response(rowsByCode[mid]));
+            }
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Filters, sorts and pages like the repository queries. Returns empty for a sort property the
+     * snapshot has no column for, or a string column when it has no collation.
+     */
+    Optional<Page<MedicineResponse>> query(MedicineFilter filter, Pageable pageable) {
+        int[] rows = select(filter);
+        int total = rows.length;
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), total) : 0;
+        int to = pageable.isPaged() ? (int) Math.min((long) from + pageable.getPageSize(), total) : total;
+        Sort sort = pageable.getSort();
+        if (sort.isSorted()) {
+            RowOrder order = order(sort);
+            if (order == null) {
+                return Optional.empty();
+            }
+            rows = to < total ? smallest(rows, to, order) : sorted(rows, order);
+        }
+        List<MedicineResponse> content = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            content.add(response(rows[i]));
+        }
+        return Optional.of(new PageImpl<>(content, pageable, total));
+    }
+
+    private int[] select(MedicineFilter f) {
+        String q = f.q() != null && !f.q().isEmpty() ? f.q().toLowerCase(Locale.ROOT) : null;
+        int[] out = new int[size];
+        int n = 0;
+        for (int r = 0; r < size; r++) {
+            if (f.categoryId() != null && categoryId[r] != f.categoryId()) {
+                continue;
+            }
+            if (f.prescriptionRequired() != null && has(r, PRESCRIPTION) != f.prescriptionRequired()) {
+                continue;
+            }
+            if (f.active() != null && has(r, ACTIVE) != f.active()) {
+                continue;
+            }
+            if (q != null && !(contains(name[r], q) || contains(genericName[r], q) || contains(brandName[r], q))) {
+                continue;
+            }
+            out[n++] = r;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private RowOrder order(Sort sort) {
+        RowOrder result = null;
+        for (Sort.Order order : sort) {
+            RowOrder c = column(order.getProperty());
+            if (c == null) {
+                return null;
+            }
+            c = order.isAscending() ? c : c.reversed();
+            result = result == null ? c : result.then(c);
+        }
+        // rows are in id order, so this keeps pages stable across equal sort keys
+        return result.then(Integer::compare);
+    }
+
+    // nulls compare greater than any value, as on PostgreSQL
+    private RowOrder column(String property) {
+        return switch (property) {
+            case "id" -> Integer::compare;
+            case "name" -> collated(property, name);
+            case "genericName" -> collated(property, genericName);
+            case "brandName" -> collated(property, brandName);
+            case "manufacturer" -> collated(property, manufacturer);
+            case "medicineCode" -> collated(property, medicineCode);
+            case "barcode" -> collated(property, barcode);
+            case "dosageForm" -> collated(property, dosageForm);
+            case "strength" -> collated(property, strength);
+            case "unitOfMeasure" -> collated(property, unitOfMeasure);
+            case "category.id" -> longs(categoryId);
+            case "price" -> longs(price);
+            case "minimumStockLevel" -> ints(minimumStock);
+            case "maximumStockLevel" -> ints(maximumStock);
+            case "prescriptionRequired" -> (a, b) -> Boolean.compare(has(a, PRESCRIPTION), has(b, PRESCRIPTION));
+            case "active" -> (a, b) -> Boolean.compare(has(a, ACTIVE), has(b, ACTIVE));
+            default -> null;
+        };
+    }
+
+    private RowOrder collated(String property, int[] column) {
+        return collation != null ? ranked(property, strings(column)) : null;
+    }
+
+    /**
+     * Replaces a string comparison with a comparison of each row's position in the column's
+     * order, computed on first use; equal values share a rank.
+     */
+    private RowOrder ranked(String property, RowOrder byValue) {
+        int[] rank = ranks.computeIfAbsent(property, p -> {
+            int[] order = sorted(IntStream.range(0, size).toArray(), byValue);
+            int[] r = new int[size];
+            for (int i = 1; i < size; i++) {
+                r[order[i]] = r[order[i - 1]] + (byValue.compare(order[i - 1], order[i]) != 0 ? 1 : 0);
+            }
+            return r;
+        });
+        return (a, b) -> Integer.compare(rank[a], rank[b]);
+    }
+
+    private RowOrder strings(int[] column) {
+        return (a, b) -> {
+            int x = column[a];
+            int y = column[b];
+            if (x == y) {
+                return 0;
+            }
+            return x == NO_STRING ? 1 : y == NO_STRING ? -1 : collation.compare(dictionary[x], dictionary[y]);
+        };
+    }
+
+    // the missing-value markers are the minimum; subtracting one wraps them round to the maximum
+    private static RowOrder longs(long[] column) {
+        return (a, b) -> Long.compare(column[a] - 1, column[b] - 1);
+    }
+
+    private static RowOrder ints(int[] column) {
+        return (a, b) -> Integer.compare(column[a] - 1, column[b] - 1);
+    }
+
+    @FunctionalInterface
+    private interface RowOrder {
+
+        int compare(int a, int b);
+
+        default RowOrder reversed() {
+            return (a, b) -> compare(b, a);
+        }
+
+        default RowOrder then(RowOrder next) {
+            return (a, b) -> {
+                int c = compare(a, b);
+                return c != 0 ? c : next.compare(a, b);
+            };
+        }
+    }
+
+    /**
+     * Merge sort of row numbers, in place.
+     */
+    private static int[] sorted(int[] rows, RowOrder order) {
+        int[] buffer = rows.clone();
+        mergeSort(buffer, rows, 0, rows.length, order);
+        return rows;
+    }
+
+    // sorts src[from, to) into dst; both hold the same rows on entry
+    private static void mergeSort(int[] src, int[] dst, int from, int to, RowOrder order) {
+        if (to - from < 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = dst[i];
+                int j = i;
+                for (; j > from && order.compare(dst[j - 1], row) > 0; j--) {
+                    dst[j] = dst[j - 1];
+                }
+                dst[j] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(dst, src, from, mid, order);
+        mergeSort(dst, src, mid, to, order);
+        for (int i = from, p = from, q = mid; i < to; i++) {
+            dst[i] = q >= to || p < mid && order.compare(src[p], src[q]) <= 0 ? src[p++] : src[q++];
+        }
+    }
+
+    /**
+     * The first {@code k} rows in order, keeping a max-heap of the best {@code k} seen so far
+     * instead of sorting every match.
+     */
+    private static int[] smallest(int[] rows, int k, RowOrder order) {
+        int[] heap = Arrays.copyOf(rows, k);
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, order);
+        }
+        for (int i = k; i < rows.length; i++) {
+            if (k > 0 && order.compare(rows[i], heap[0]) < 0) {
+                heap[0] = rows[i];
+                siftDown(heap, 0, order);
+            }
+        }
+        return sorted(heap, order);
+    }
+
+    private static void siftDown(int[] heap, int i, RowOrder order) {
+        int row = heap[i];
+        int half = heap.length >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heap.length && order.compare(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (order.compare(row, heap[child]) >= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = row;
+    }
+
+    private boolean contains(int code, String lowerNeedle) {
+        return code != NO_STRING && lowerDictionary[code].contains(lowerNeedle);
+    }
+
+    private boolean has(int row, byte flag) {
+        return (flags[row] & flag) != 0;
+    }
+
+    private String string(int code) {
+        return code == NO_STRING ? null : dictionary[code];
+    }
+
+    private MedicineResponse response(int r) {
+        Long category = categoryId[r] == NO_LONG ? null : categoryId[r];
+        return MedicineResponse.builder()
+                .id(ids[r])
+                .name(string(name[r]))
+                .genericName(string(genericName[r]))
+                .brandName(string(brandName[r]))
+                .manufacturer(string(manufacturer[r]))
+                .categoryId(category)
+                .categoryName(category != null ? categoryNames.get(category) : null)
+                .medicineCode(string(medicineCode[r]))
+                .barcode(string(barcode[r]))
+                .dosageForm(string(dosageForm[r]))
+                .strength(string(strength[r]))
+                .unitOfMeasure(string(unitOfMeasure[r]))
+                .price(price[r] == NO_LONG ? null : BigDecimal.valueOf(price[r], PRICE_SCALE))
+                .prescriptionRequired(has(r, PRESCRIPTION))
+                .minimumStockLevel(minimumStock[r] == NO_INT ? null : minimumStock[r])
+                .maximumStockLevel(maximumStock[r] == NO_INT ? null : maximumStock[r])
+                .active(has(r, ACTIVE))
+                .build();
+    }
+
+    /**
+     * Approximate retained heap of this snapshot: the column arrays and sort ranks built so far,
+     * plus each distinct dictionary string (compressed oops, compact strings).
+     */
+    long heapBytes() {
+        long bytes = (long) size * (3 * Long.BYTES + 11 * Integer.BYTES + 1) + (long) rowsByCode.length * Integer.BYTES;
+        bytes += 2L * dictionary.length * Integer.BYTES;
+        for (int[] rank : ranks.values()) {
+            bytes += (long) rank.length * Integer.BYTES;
+        }
+        for (int i = 0; i < dictionary.length; i++) {
+            bytes += stringBytes(dictionary[i]);
+            if (lowerDictionary[i] != dictionary[i]) {
+                bytes += stringBytes(lowerDictionary[i]);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Approximate heap the same rows take as managed {@code Medicine} entities: the entity object,
+     * boxed id, version, stock levels and price, two timestamps, one String per non-null text
+     * column, and Hibernate's loaded-state array kept for dirty checking.
+     */
+    long entityHeapBytes() {
+        final long entity = 96;
+        final long loadedState = 88;
+        final long boxedLong = 16;
+        final long boxedInt = 16;
+        final long bigDecimal = 40;
+        final long timestamp = 72;
+        int[][] text = {name, genericName, brandName, manufacturer, medicineCode, barcode, dosageForm, strength, unitOfMeasure};
+        long bytes = 0;
+        for (int r = 0; r < size; r++) {
+            bytes += entity + loadedState + 2 * boxedLong + 2 * timestamp;
+            bytes += price[r] != NO_LONG ? bigDecimal : 0;
+            bytes += minimumStock[r] != NO_INT ? boxedInt : 0;
+            bytes += maximumStock[r] != NO_INT ? boxedInt : 0;
+            for (int[] column : text) {
+                bytes += column[r] != NO_STRING ? stringBytes(dictionary[column[r]]) : 0;
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String s) {
+        boolean latin1 = s.chars().allMatch(c -> c < 256);
+        long payload = 16 + (long) s.length() * (latin1 ? 1 : 2);
+        return 24 + ((payload + 7) & ~7L);
+    }
+
+    /**
+     * Accumulates rows in id order. Starting from a snapshot copies its columns, so the snapshot
+     * is never modified. Strings orphaned by updates stay in the dictionary until the next full
+     * rebuild.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private final String[] baseLowerDictionary;
+        private Map<Long, String> categoryNames;
+        private Comparator<String> collation = Comparator.naturalOrder();
+        private int size;
+        private long[] ids = new long[16];
+        private int[] name = new int[16];
+        private int[] genericName = new int[16];
+        private int[] brandName = new int[16];
+        private int[] manufacturer = new int[16];
+        private int[] medicineCode = new int[16];
+        private int[] barcode = new int[16];
+        private int[] dosageForm = new int[16];
+        private int[] strength = new int[16];
+        private int[] unitOfMeasure = new int[16];
+        private long[] categoryId = new long[16];
+        private long[] price = new long[16];
+        private int[] minimumStock = new int[16];
+        private int[] maximumStock = new int[16];
+        private byte[] flags = new byte[16];
+
+        Builder(Map<Long, String> categoryNames) {
+            this.categoryNames = categoryNames;
+            this.baseLowerDictionary = new String[0];
+        }
+
+        Builder(ColumnarCatalog base) {
+            this.categoryNames = base.categoryNames;
+            this.collation = base.collation;
+            this.baseLowerDictionary = base.lowerDictionary;
+            for (String s : base.dictionary) {
+                codes.put(s, dictionary.size());
+                dictionary.add(s);
+            }
+            size = base.size;
+            int capacity = base.size + 16;
+            ids = Arrays.copyOf(base.ids, capacity);
+            name = Arrays.copyOf(base.name, capacity);
+            genericName = Arrays.copyOf(base.genericName, capacity);
+            brandName = Arrays.copyOf(base.brandName, capacity);
+            manufacturer = Arrays.copyOf(base.manufacturer, capacity);
+            medicineCode = Arrays.copyOf(base.medicineCode, capacity);
+            barcode = Arrays.copyOf(base.barcode, capacity);
+            dosageForm = Arrays.copyOf(base.dosageForm, capacity);
+            strength = Arrays.copyOf(base.strength, capacity);
+            unitOfMeasure = Arrays.copyOf(base.unitOfMeasure, capacity);
+            categoryId = Arrays.copyOf(base.categoryId, capacity);
+            price = Arrays.copyOf(base.price, capacity);
+            minimumStock = Arrays.copyOf(base.minimumStock, capacity);
+            maximumStock = Arrays.copyOf(base.maximumStock, capacity);
+            flags = Arrays.copyOf(base.flags, capacity);
+        }
+
+        Builder categoryNames(Map<Long, String> categoryNames) {
+            this.categoryNames = categoryNames;
+            return this;
+        }
+
+        /**
+         * Order of string values in sorts; null leaves string sorts to the database. Defaults to
+         * {@link String#compareTo}, the order of the C collation.
+         */
+        Builder collation(Comparator<String> collation) {
+            this.collation = collation;
+            return this;
+        }
+
+        /**
+         * Appends in O(1) when ids arrive in ascending order (full loads); otherwise replaces the
+         * row with the same id or inserts it in place.
+         */
+        Builder upsert(CatalogRecord rec) {
+            int row;
+            if (size == 0 || rec.id() > ids[size - 1]) {
+                row = insertAt(size);
+            } else {
+                int found = Arrays.binarySearch(ids, 0, size, rec.id());
+                row = found >= 0 ? found : insertAt(-found - 1);
+            }
+            ids[row] = rec.id();
+            name[row] = encode(rec.name());
+            genericName[row] = encode(rec.genericName());
+            brandName[row] = encode(rec.brandName());
+            manufacturer[row] = encode(rec.manufacturer());
+            medicineCode[row] = encode(rec.medicineCode());
+            barcode[row] = encode(rec.barcode());
+            dosageForm[row] = encode(rec.dosageForm());
+            strength[row] = encode(rec.strength());
+            unitOfMeasure[row] = encode(rec.unitOfMeasure());
+            categoryId[row] = rec.categoryId() != null ? rec.categoryId() : NO_LONG;
+            price[row] = rec.price() != null
+                    ? rec.price().setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact()
+                    : NO_LONG;
+            minimumStock[row] = rec.minimumStockLevel() != null ? rec.minimumStockLevel() : NO_INT;
+            maximumStock[row] = rec.maximumStockLevel() != null ? rec.maximumStockLevel() : NO_INT;
+            flags[row] = (byte) ((rec.prescriptionRequired() ? PRESCRIPTION : 0) | (rec.active() ? ACTIVE : 0));
+            return this;
+        }
+
+        ColumnarCatalog build() {
+            String[] dict = dictionary.toArray(String[]::new);
+            String[] lower = new String[dict.length];
+            for (int i = 0; i < dict.length; i++) {
+                lower[i] = i < baseLowerDictionary.length ? baseLowerDictionary[i] : dict[i].toLowerCase(Locale.ROOT);
+            }
+            int[] byCode = sorted(IntStream.range(0, size).filter(r -> medicineCode[r] != NO_STRING).toArray(),
+                    (a, b) -> dict[medicineCode[a]].compareTo(dict[medicineCode[b]]));
+            return new ColumnarCatalog(this, dict, lower, byCode);
+        }
+
+        private int encode(String s) {
+            if (s == null) {
+                return NO_STRING;
+            }
+            return codes.computeIfAbsent(s, k -> {
+                dictionary.add(k);
+                return dictionary.size() - 1;
+            });
+        }
+
+        private int insertAt(int row) {
+            if (size == ids.length) {
+                grow(Math.max(16, size + (size >> 1)));
+            }
+            if (row < size) {
+                int tail = size - row;
+                System.arraycopy(ids, row, ids, row + 1, tail);
+                for (int[] column : intColumns()) {
+                    System.arraycopy(column, row, column, row + 1, tail);
+                }
+                System.arraycopy(categoryId, row, categoryId, row + 1, tail);
+                System.arraycopy(price, row, price, row + 1, tail);
+                System.arraycopy(flags, row, flags, row + 1, tail);
+            }
+            size++;
+            return row;
+        }
+
+        private int[][] intColumns() {
+            return new int[][]{name, genericName, brandName, manufacturer, medicineCode, barcode,
+                    dosageForm, strength, unitOfMeasure, minimumStock, maximumStock};
+        }
+
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            name = Arrays.copyOf(name, capacity);
+            genericName = Arrays.copyOf(genericName, capacity);
+            brandName = Arrays.copyOf(brandName, capacity);
+            manufacturer = Arrays.copyOf(manufacturer, capacity);
+            medicineCode = Arrays.copyOf(medicineCode, capacity);
+            barcode = Arrays.copyOf(barcode, capacity);
+            dosageForm = Arrays.copyOf(dosageForm, capacity);
+            strength = Arrays.copyOf(strength, capacity);
+            unitOfMeasure = Arrays.copyOf(unitOfMeasure, capacity);
+            categoryId = Arrays.copyOf(categoryId, capacity);
+            price = Arrays.copyOf(price, capacity);
+            minimumStock = Arrays.copyOf(minimumStock, capacity);
+            maximumStock = Arrays.copyOf(maximumStock, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+    }
+}
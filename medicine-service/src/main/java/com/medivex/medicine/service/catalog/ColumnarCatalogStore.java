@@ -0,0 +1,237 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.event.CatalogBulkChangedEvent;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Collator;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves medicine reads from a {@link ColumnarCatalog} held in memory. Committed writes queue the
+ * changed ids; the refresh job reloads them and publishes a new snapshot copied from the current
+ * one, so each batch of writes costs one copy however many rows it touched. Bulk changes and
+ * category renames trigger a full rebuild instead, which also drops dictionary entries no row
+ * uses any more.
+ *
+ * <p>Writes made through other instances publish no event here. Every {@code catch-up-interval}
+ * the refresh job also queues the medicines changed since the last catch-up, by timestamp, and
+ * rebuilds when the categories differ from the snapshot's; a full rebuild every
+ * {@code rebuild-interval} bounds anything a timestamp misses. String sorts use the configured
+ * {@code collation}: {@code database} (the default) leaves them to the database, {@code C} is
+ * code point order, and a language tag such as {@code en-US} uses that locale's
+ * {@link Collator}, which approximates but need not equal the database's ordering of punctuation.
+ */
+@Component
+@ConditionalOnProperty(name = "medicine.catalog.store", havingValue = "columnar")
+@Slf4j
+public class ColumnarCatalogStore implements MedicineCatalog {
+
+    private final CatalogLoader loader;
+    private final Duration catchUpInterval;
+    private final Duration rebuildInterval;
+    private final Duration clockSkew;
+    private final Comparator<String> collation;
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean(true);
+    private final AtomicLong heapBytes = new AtomicLong();
+    private final AtomicLong columnarPer100k = new AtomicLong();
+    private final AtomicLong entityPer100k = new AtomicLong();
+    private volatile ColumnarCatalog snapshot = ColumnarCatalog.empty();
+    private volatile boolean ready;
+    private LocalDateTime syncedUpTo;
+    private long nextCatchUp;
+    private long nextRebuild;
+
+    public ColumnarCatalogStore(CatalogLoader loader,
+                                MeterRegistry meterRegistry,
+                                @Value("${medicine.catalog.catch-up-interval:10s}") Duration catchUpInterval,
+                                @Value("${medicine.catalog.columnar.rebuild-interval:1h}") Duration rebuildInterval,
+                                @Value("${medicine.catalog.clock-skew:1m}") Duration clockSkew,
+                                @Value("${medicine.catalog.columnar.collation:database}") String collation) {
+        this.loader = loader;
+        this.catchUpInterval = catchUpInterval;
+        this.rebuildInterval = rebuildInterval;
+        this.clockSkew = clockSkew;
+        this.collation = collation(collation);
+        Gauge.builder("medicine.catalog.rows", this, s -> s.snapshot.size())
+                .tag("store", "columnar")
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalog.dictionary.size", this, s -> s.snapshot.dictionarySize())
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalog.heap", heapBytes, AtomicLong::get)
+                .tag("store", "columnar")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalog.heap.per100k", columnarPer100k, AtomicLong::get)
+                .tag("representation", "columnar")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalog.heap.per100k", entityPer100k, AtomicLong::get)
+                .tag("representation", "entity")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Optional<MedicineResponse> findById(long id) {
+        return snapshot.findById(id);
+    }
+
+    @Override
+    public Optional<MedicineResponse> findByCode(String medicineCode) {
+        return snapshot.findByCode(medicineCode);
+    }
+
+    @Override
+    public boolean hasCategory(long categoryId) {
+        return snapshot.hasCategory(categoryId);
+    }
+
+    @Override
+    public Optional<Page<MedicineResponse>> query(MedicineFilter filter, Pageable pageable) {
+        return snapshot.query(filter, pageable);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        changed.add(event.medicineId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuildRequested.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryRetired(CategoryRetiredEvent event) {
+        rebuildRequested.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogBulkChanged(CatalogBulkChangedEvent event) {
+        rebuildRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.catalog.refresh-interval-ms:500}")
+    public void refresh() {
+        try {
+            long now = System.currentTimeMillis();
+            if (rebuildRequested.getAndSet(false) || now >= nextRebuild) {
+                rebuild();
+                return;
+            }
+            if (now >= nextCatchUp && catchUp()) {
+                return;
+            }
+            if (!changed.isEmpty()) {
+                applyChanges();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Columnar catalog refresh failed; retrying with a full rebuild: {}", e.getMessage());
+            rebuildRequested.set(true);
+        }
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        // ids queued before this point are covered by the full load, rows committed during it by the next catch-up
+        changed.clear();
+        LocalDateTime syncStart = now();
+        ColumnarCatalog.Builder builder = new ColumnarCatalog.Builder(loader.categoryNames()).collation(collation);
+        loader.forEach(builder::upsert);
+        ColumnarCatalog built = builder.build();
+        snapshot = built;
+        syncedUpTo = syncStart;
+        long now = System.currentTimeMillis();
+        nextCatchUp = now + catchUpInterval.toMillis();
+        nextRebuild = now + rebuildInterval.toMillis();
+        ready = true;
+        reportFootprint(built, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Queues the medicines changed since the last sync, wherever they were written. Rebuilds
+     * instead, and returns true, when the categories no longer match the snapshot.
+     */
+    boolean catchUp() {
+        LocalDateTime syncStart = now();
+        if (!loader.categoryNames().equals(snapshot.categoryNames())) {
+            rebuild();
+            return true;
+        }
+        changed.addAll(loader.idsChangedSince(syncedUpTo));
+        syncedUpTo = syncStart;
+        nextCatchUp = System.currentTimeMillis() + catchUpInterval.toMillis();
+        return false;
+    }
+
+    void applyChanges() {
+        List<Long> ids = new ArrayList<>(changed);
+        changed.removeAll(ids);
+        ColumnarCatalog.Builder builder = new ColumnarCatalog.Builder(snapshot);
+        loader.load(ids).forEach(builder::upsert);
+        snapshot = builder.build();
+    }
+
+    /**
+     * Sync point for timestamp queries, in the same local time the entities are stamped with and
+     * moved back by the allowed skew between this instance and the writers.
+     */
+    private LocalDateTime now() {
+        return LocalDateTime.now().minus(clockSkew);
+    }
+
+    private static Comparator<String> collation(String name) {
+        if ("database".equalsIgnoreCase(name)) {
+            return null;
+        }
+        if ("C".equals(name)) {
+            return Comparator.naturalOrder();
+        }
+        Collator collator = Collator.getInstance(Locale.forLanguageTag(name));
+        return collator::compare;
+    }
+
+    private void reportFootprint(ColumnarCatalog built, long millis) {
+        long columnar = built.heapBytes();
+        long entity = built.entityHeapBytes();
+        heapBytes.set(columnar);
+        if (built.size() > 0) {
+            columnarPer100k.set(columnar * 100_000 / built.size());
+            entityPer100k.set(entity * 100_000 / built.size());
+        }
+        log.info("Columnar catalog built in {} ms: {} medicines, {} dictionary strings, ~{} KB heap "
+                        + "(~{} KB per 100k medicines; ~{} KB per 100k as managed entities)",
+                millis, built.size(), built.dictionarySize(), columnar / 1024,
+                columnarPer100k.get() / 1024, entityPer100k.get() / 1024);
+    }
+}
@@ -0,0 +1,28 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+/**
+ * A read-side copy of the medicine catalog that can answer read endpoints without the database.
+ * Stores may lag writes committed through this instance by their refresh interval, and writes
+ * committed through other instances by their catch-up interval. Methods are only called while
+ * {@link #isReady()}; {@link #query} may decline by returning empty, in which case the caller
+ * reads from the database.
+ */
+public interface MedicineCatalog {
+
+    boolean isReady();
+
+    Optional<MedicineResponse> findById(long id);
+
+    Optional<MedicineResponse> findByCode(String medicineCode);
+
+    boolean hasCategory(long categoryId);
+
+    Optional<Page<MedicineResponse>> query(MedicineFilter filter, Pageable pageable);
+}
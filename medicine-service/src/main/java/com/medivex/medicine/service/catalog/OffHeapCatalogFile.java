@@ -0,0 +1,286 @@
+package com.medivex.medicine.service.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Catalog records serialized into a memory-mapped file, outside the Java heap. The file is split
+ * into fixed-size segments, each mapped separately so the store is not bound by the 2 GB limit of
+ * a single buffer; a record never spans two segments. Records are only ever appended: an update
+ * writes a new copy and the index is pointed at it, so readers can decode a record while the
+ * refresh thread appends.
+ *
+ * <p>An offset packs the segment number in the high 32 bits and the position in the low 32 bits.
+ * Each record is {@code int length} followed by the payload, which starts with the id and the
+ * hash of the medicine code, and stores each string as an int byte length (-1 for null) and its
+ * UTF-8 bytes; a zero length marks the end of the data in a segment. Segment 0 starts with a small
+ * header holding the snapshot time.
+ */
+final class OffHeapCatalogFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x4D564358;
+    // 2: string lengths widened from short to int
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int PRICE_SCALE = 2;
+    private static final long NO_LONG = Long.MIN_VALUE;
+    private static final int NO_INT = Integer.MIN_VALUE;
+
+    private Path path;
+    private final FileChannel channel;
+    private final int segmentSize;
+    // readers index into this while the refresh thread maps new segments
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private int tailSegment;
+    private int tailPosition;
+
+    private OffHeapCatalogFile(Path path, FileChannel channel, int segmentSize) {
+        this.path = path;
+        this.channel = channel;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Creates an empty file at {@code path}, replacing any existing one.
+     */
+    static OffHeapCatalogFile create(Path path, int segmentSize, long snapshotEpochSecond) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            OffHeapCatalogFile file = new OffHeapCatalogFile(path, channel, segmentSize);
+            MappedByteBuffer first = file.segment(0);
+            first.putInt(0, MAGIC);
+            first.putInt(4, FORMAT);
+            first.putInt(8, segmentSize);
+            first.putLong(12, snapshotEpochSecond);
+            file.tailPosition = HEADER_BYTES;
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Maps an existing file. Returns null when the file is missing or was written with another
+     * format or segment size. Callers {@link #scan} it before appending.
+     */
+    static OffHeapCatalogFile open(Path path, int segmentSize) {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            OffHeapCatalogFile file = new OffHeapCatalogFile(path, channel, segmentSize);
+            MappedByteBuffer first = file.segment(0);
+            if (first.getInt(0) != MAGIC || first.getInt(4) != FORMAT || first.getInt(8) != segmentSize) {
+                file.close();
+                return null;
+            }
+            long segmentsOnDisk = Math.max(1, (channel.size() + segmentSize - 1) / segmentSize);
+            for (int i = 1; i < segmentsOnDisk; i++) {
+                file.segment(i);
+            }
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long snapshotEpochSecond() {
+        return segments.get(0).getLong(12);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Bytes written so far, including superseded copies of updated records.
+     */
+    long usedBytes() {
+        return (long) tailSegment * segmentSize + tailPosition;
+    }
+
+    /**
+     * Visits every record in write order; for an updated medicine the last visit wins. Leaves the
+     * append position after the last record.
+     */
+    void scan(RecordVisitor visitor) {
+        int segment = 0;
+        int position = HEADER_BYTES;
+        while (segment < segments.size()) {
+            MappedByteBuffer buffer = segments.get(segment);
+            int length = position + Integer.BYTES <= segmentSize ? buffer.getInt(position) : 0;
+            if (length <= 0) {
+                if (segment + 1 < segments.size() && segments.get(segment + 1).getInt(0) > 0) {
+                    segment++;
+                    position = 0;
+                    continue;
+                }
+                break;
+            }
+            visitor.visit(buffer.getLong(position + Integer.BYTES), buffer.getInt(position + Integer.BYTES + Long.BYTES),
+                    pack(segment, position));
+            position += Integer.BYTES + length;
+        }
+        tailSegment = segment;
+        tailPosition = position;
+    }
+
+    /**
+     * Appends a record and returns its offset. Only one thread may append at a time.
+     */
+    long append(CatalogRecord rec) {
+        byte[] payload = encode(rec);
+        int needed = Integer.BYTES + payload.length;
+        if (needed + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Catalog record " + rec.id() + " does not fit in a segment");
+        }
+        if (tailPosition + needed + Integer.BYTES > segmentSize) {
+            tailSegment++;
+            tailPosition = 0;
+        }
+        MappedByteBuffer buffer = segment(tailSegment);
+        int position = tailPosition;
+        buffer.put(position + Integer.BYTES, payload);
+        // the length goes last so a torn append reads as the end of the data
+        buffer.putInt(position, payload.length);
+        tailPosition += needed;
+        return pack(tailSegment, position);
+    }
+
+    CatalogRecord read(long offset) {
+        MappedByteBuffer buffer = segments.get((int) (offset >>> 32));
+        int position = (int) offset;
+        int length = buffer.getInt(position);
+        return decode(buffer.slice(position + Integer.BYTES, length));
+    }
+
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Atomically moves this file over {@code target}; existing mappings stay valid.
+     */
+    void moveTo(Path target) {
+        try {
+            force();
+            Files.move(path, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            path = target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer segment(int index) {
+        while (segments.size() <= index) {
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) segments.size() * segmentSize, segmentSize));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return segments.get(index);
+    }
+
+    private static long pack(int segment, int position) {
+        return ((long) segment << 32) | position;
+    }
+
+    static byte[] encode(CatalogRecord rec) {
+        byte[][] strings = {
+                utf8(rec.name()), utf8(rec.genericName()), utf8(rec.brandName()), utf8(rec.manufacturer()),
+                utf8(rec.categoryName()), utf8(rec.medicineCode()), utf8(rec.barcode()), utf8(rec.dosageForm()),
+                utf8(rec.strength()), utf8(rec.unitOfMeasure())
+        };
+        int size = Long.BYTES * 3 + Integer.BYTES * 3 + 1;
+        for (byte[] s : strings) {
+            size += Integer.BYTES + (s != null ? s.length : 0);
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putLong(rec.id());
+        out.putInt(codeHash(rec.medicineCode()));
+        out.putLong(rec.categoryId() != null ? rec.categoryId() : NO_LONG);
+        out.putLong(rec.price() != null
+                ? rec.price().setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact()
+                : NO_LONG);
+        out.putInt(rec.minimumStockLevel() != null ? rec.minimumStockLevel() : NO_INT);
+        out.putInt(rec.maximumStockLevel() != null ? rec.maximumStockLevel() : NO_INT);
+        out.put((byte) ((rec.prescriptionRequired() ? 1 : 0) | (rec.active() ? 2 : 0)));
+        for (byte[] s : strings) {
+            out.putInt(s != null ? s.length : -1);
+            if (s != null) {
+                out.put(s);
+            }
+        }
+        return out.array();
+    }
+
+    static CatalogRecord decode(ByteBuffer in) {
+        long id = in.getLong();
+        in.getInt();
+        long categoryId = in.getLong();
+        long price = in.getLong();
+        int minimumStock = in.getInt();
+        int maximumStock = in.getInt();
+        byte flags = in.get();
+        String[] s = new String[10];
+        for (int i = 0; i < s.length; i++) {
+            int length = in.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                s[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return new CatalogRecord(id, s[0], s[1], s[2], s[3],
+                categoryId != NO_LONG ? categoryId : null, s[4], s[5], s[6], s[7], s[8], s[9],
+                price != NO_LONG ? BigDecimal.valueOf(price, PRICE_SCALE) : null,
+                (flags & 1) != 0,
+                minimumStock != NO_INT ? minimumStock : null,
+                maximumStock != NO_INT ? maximumStock : null,
+                (flags & 2) != 0);
+    }
+
+    /**
+     * Stored with each record so the code index can be rebuilt without decoding records.
+     * {@link String#hashCode()} is specified, so persisted values stay valid across JVMs.
+     */
+    static int codeHash(String medicineCode) {
+        return medicineCode != null ? medicineCode.hashCode() : 0;
+    }
+
+    private static byte[] utf8(String s) {
+        return s != null ? s.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(long id, int codeHash, long offset);
+    }
+}
@@ -0,0 +1,296 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.event.CatalogBulkChangedEvent;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves medicine lookups by id and code from an {@link OffHeapCatalogFile}, so a catalog of
+ * millions of medicines costs the heap only its sorted index arrays. Committed writes queue the
+ * changed ids and the refresh job appends new copies of those records; set-based updates and
+ * seeding are caught up by timestamp instead of rebuilding. The same timestamp catch-up also runs
+ * every {@code catch-up-interval}, which picks up writes made through other instances. A category
+ * rename, local or seen by a catch-up, rewrites the file, as does compaction once superseded
+ * copies outnumber live records.
+ *
+ * <p>With warm start enabled the file written by the previous run is mapped and scanned on
+ * startup, and only medicines changed since its snapshot time are reloaded. Lists and searches
+ * stay on the database.
+ */
+@Component
+@ConditionalOnProperty(name = "medicine.catalog.store", havingValue = "off-heap")
+@Slf4j
+public class OffHeapCatalogStore implements MedicineCatalog, DisposableBean {
+
+    private final CatalogLoader loader;
+    private final Path path;
+    private final int segmentSize;
+    private final boolean warmStart;
+    private final Duration clockSkew;
+    private final Duration catchUpInterval;
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private final AtomicBoolean catchUpRequested = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    private volatile boolean ready;
+    private LocalDateTime syncedUpTo;
+    private Map<Long, String> categoryNames = Map.of();
+    private long nextCatchUp;
+    private long appendedSinceBuild;
+
+    public OffHeapCatalogStore(CatalogLoader loader,
+                               MeterRegistry meterRegistry,
+                               @Value("${medicine.catalog.off-heap.path:data/medicine-catalog.bin}") Path path,
+                               @Value("${medicine.catalog.off-heap.segment-size-mb:64}") int segmentSizeMb,
+                               @Value("${medicine.catalog.off-heap.warm-start:true}") boolean warmStart,
+                               @Value("${medicine.catalog.clock-skew:1m}") Duration clockSkew,
+                               @Value("${medicine.catalog.catch-up-interval:10s}") Duration catchUpInterval) {
+        this.loader = loader;
+        this.path = path;
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.warmStart = warmStart;
+        this.clockSkew = clockSkew;
+        this.catchUpInterval = catchUpInterval;
+        Gauge.builder("medicine.catalog.rows", this, s -> s.snapshot != null ? s.snapshot.index().size() : 0)
+                .tag("store", "off-heap")
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalog.heap", this, s -> s.snapshot != null ? s.snapshot.index().heapBytes() : 0)
+                .tag("store", "off-heap")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalog.off-heap.used", this, s -> s.snapshot != null ? s.snapshot.file().usedBytes() : 0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Optional<MedicineResponse> findById(long id) {
+        Snapshot current = snapshot;
+        long offset = current.index().offsetOf(id);
+        return offset < 0 ? Optional.empty() : Optional.of(current.file().read(offset).toResponse());
+    }
+
+    @Override
+    public Optional<MedicineResponse> findByCode(String medicineCode) {
+        Snapshot current = snapshot;
+        for (long offset : current.index().offsetsForCodeHash(OffHeapCatalogFile.codeHash(medicineCode))) {
+            CatalogRecord rec = current.file().read(offset);
+            if (Objects.equals(rec.medicineCode(), medicineCode)) {
+                return Optional.of(rec.toResponse());
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean hasCategory(long categoryId) {
+        return snapshot.categories().contains(categoryId);
+    }
+
+    @Override
+    public Optional<Page<MedicineResponse>> query(MedicineFilter filter, Pageable pageable) {
+        return Optional.empty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        changed.add(event.medicineId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // category names are copied into every record, so only a rename needs a rewrite
+        if (event.type() == CategoryChangedEvent.Type.UPDATED) {
+            rebuildRequested.set(true);
+        } else {
+            catchUpRequested.set(true);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryRetired(CategoryRetiredEvent event) {
+        catchUpRequested.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogBulkChanged(CatalogBulkChangedEvent event) {
+        catchUpRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.catalog.refresh-interval-ms:500}")
+    public void refresh() {
+        try {
+            if (snapshot == null) {
+                if (!(warmStart && warmStart())) {
+                    rebuild();
+                }
+            } else if (rebuildRequested.getAndSet(false) || appendedSinceBuild > snapshot.index().size()) {
+                rebuild();
+            } else if (catchUpRequested.getAndSet(false) || System.currentTimeMillis() >= nextCatchUp) {
+                catchUp();
+            } else if (!changed.isEmpty()) {
+                List<Long> ids = new ArrayList<>(changed);
+                changed.removeAll(ids);
+                append(ids, snapshot.categories());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Off-heap catalog refresh failed; retrying with a full rebuild: {}", e.getMessage());
+            rebuildRequested.set(true);
+        }
+    }
+
+    /**
+     * Maps the file left by the previous run and reloads what changed since it was written.
+     * Returns false when there is no usable file or a category was modified since.
+     */
+    boolean warmStart() {
+        long start = System.nanoTime();
+        OffHeapCatalogFile file = OffHeapCatalogFile.open(path, segmentSize);
+        if (file == null) {
+            return false;
+        }
+        LocalDateTime since = LocalDateTime.ofEpochSecond(file.snapshotEpochSecond(), 0, ZoneOffset.UTC);
+        if (loader.categoriesModifiedSince(since)) {
+            log.info("Off-heap catalog file {} predates a category change; rebuilding", path);
+            file.close();
+            return false;
+        }
+        OffHeapIndex.Builder builder = new OffHeapIndex.Builder(1024);
+        file.scan(builder::put);
+        LocalDateTime syncStart = now();
+        List<Long> stale = loader.idsChangedSince(since);
+        categoryNames = loader.categoryNames();
+        snapshot = new Snapshot(file, builder.build(), categoryNames.keySet());
+        syncedUpTo = since;
+        append(stale, snapshot.categories());
+        syncedUpTo = syncStart;
+        nextCatchUp = System.currentTimeMillis() + catchUpInterval.toMillis();
+        ready = true;
+        log.info("Off-heap catalog warm-started from {} in {} ms: {} medicines, {} reloaded as changed since {}",
+                path, (System.nanoTime() - start) / 1_000_000, snapshot.index().size(), stale.size(), since);
+        return true;
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        changed.clear();
+        catchUpRequested.set(false);
+        // rows committed while the load runs are picked up by the next catch-up
+        LocalDateTime syncStart = now();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        OffHeapCatalogFile file = OffHeapCatalogFile.create(tmp, segmentSize, syncStart.toEpochSecond(ZoneOffset.UTC));
+        Map<Long, String> names = loader.categoryNames();
+        OffHeapIndex.Builder builder = new OffHeapIndex.Builder(1024);
+        try {
+            loader.forEach(rec -> builder.put(rec.id(), OffHeapCatalogFile.codeHash(rec.medicineCode()), file.append(rec)));
+            file.moveTo(path);
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(file, builder.build(), names.keySet());
+        categoryNames = names;
+        syncedUpTo = syncStart;
+        nextCatchUp = System.currentTimeMillis() + catchUpInterval.toMillis();
+        appendedSinceBuild = 0;
+        ready = true;
+        if (previous != null) {
+            // in-flight reads keep working: closing the channel does not unmap the segments
+            previous.file().close();
+        }
+        log.info("Off-heap catalog written to {} in {} ms: {} medicines, {} MB mapped, ~{} KB heap index",
+                path, (System.nanoTime() - start) / 1_000_000, snapshot.index().size(),
+                snapshot.file().usedBytes() / (1024 * 1024), snapshot.index().heapBytes() / 1024);
+    }
+
+    void catchUp() {
+        LocalDateTime syncStart = now();
+        Map<Long, String> names = loader.categoryNames();
+        if (renamed(categoryNames, names)) {
+            // renamed through another instance; every record of the category carries the old name
+            rebuild();
+            return;
+        }
+        append(loader.idsChangedSince(syncedUpTo), names.keySet());
+        categoryNames = names;
+        syncedUpTo = syncStart;
+        nextCatchUp = System.currentTimeMillis() + catchUpInterval.toMillis();
+    }
+
+    private static boolean renamed(Map<Long, String> before, Map<Long, String> after) {
+        for (Map.Entry<Long, String> e : after.entrySet()) {
+            String previous = before.get(e.getKey());
+            if (previous != null && !previous.equals(e.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(Collection<Long> ids, Set<Long> categories) {
+        if (ids.isEmpty() && categories.equals(snapshot.categories())) {
+            return;
+        }
+        Snapshot current = snapshot;
+        OffHeapIndex.Builder builder = new OffHeapIndex.Builder(current.index());
+        for (CatalogRecord rec : loader.load(ids)) {
+            builder.put(rec.id(), OffHeapCatalogFile.codeHash(rec.medicineCode()), current.file().append(rec));
+            appendedSinceBuild++;
+        }
+        snapshot = new Snapshot(current.file(), builder.build(), categories);
+    }
+
+    /**
+     * Sync point for timestamp queries, in the same local time the entities are stamped with and
+     * moved back by the allowed skew between this instance and the writers.
+     */
+    private LocalDateTime now() {
+        return LocalDateTime.now().minus(clockSkew);
+    }
+
+    @Override
+    public void destroy() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.file().force();
+            current.file().close();
+        }
+    }
+
+    private record Snapshot(OffHeapCatalogFile file, OffHeapIndex index, Set<Long> categories) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.medivex.medicine.service.catalog;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable on-heap index over an {@link OffHeapCatalogFile}: parallel primitive arrays sorted by
+ * id, plus the medicine-code hashes packed with their row so one {@code long[]} sort orders them.
+ * About 28 bytes per medicine and no per-medicine objects, so a multi-million-row catalog adds
+ * almost nothing for the collector to trace.
+ */
+final class OffHeapIndex {
+
+    private final int size;
+    private final long[] ids;
+    private final long[] offsets;
+    private final int[] codeHashes;
+    // (code hash << 32) | row, sorted
+    private final long[] codeKeys;
+
+    private OffHeapIndex(int size, long[] ids, long[] offsets, int[] codeHashes) {
+        this.size = size;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.codeHashes = codeHashes;
+        this.codeKeys = new long[size];
+        for (int row = 0; row < size; row++) {
+            codeKeys[row] = ((long) codeHashes[row] << 32) | row;
+        }
+        Arrays.sort(codeKeys);
+    }
+
+    static OffHeapIndex empty() {
+        return new Builder(0).build();
+    }
+
+    int size() {
+        return size;
+    }
+
+    long heapBytes() {
+        return (long) size * (Long.BYTES * 3 + Integer.BYTES);
+    }
+
+    /**
+     * Offset of the record with this id, or -1.
+     */
+    long offsetOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row >= 0 ? offsets[row] : -1;
+    }
+
+    /**
+     * Offsets of all records whose code has this hash; callers compare the decoded code.
+     */
+    long[] offsetsForCodeHash(int hash) {
+        long first = (long) hash << 32;
+        int from = Arrays.binarySearch(codeKeys, first);
+        from = from >= 0 ? from : -from - 1;
+        int to = from;
+        while (to < size && (codeKeys[to] >> 32) == hash) {
+            to++;
+        }
+        long[] result = new long[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = offsets[(int) codeKeys[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Collects entries in write order; a later entry for the same id replaces an earlier one.
+     * Ascending ids (a full load) are appended directly, anything else is merged at build time.
+     */
+    static final class Builder {
+
+        private int size;
+        private long[] ids;
+        private long[] offsets;
+        private int[] codeHashes;
+        private final TreeMap<Long, long[]> late = new TreeMap<>();
+
+        Builder(int capacity) {
+            ids = new long[Math.max(capacity, 16)];
+            offsets = new long[ids.length];
+            codeHashes = new int[ids.length];
+        }
+
+        Builder(OffHeapIndex base) {
+            size = base.size;
+            ids = Arrays.copyOf(base.ids, base.size + 16);
+            offsets = Arrays.copyOf(base.offsets, ids.length);
+            codeHashes = Arrays.copyOf(base.codeHashes, ids.length);
+        }
+
+        Builder put(long id, int codeHash, long offset) {
+            if (late.isEmpty() && (size == 0 || id > ids[size - 1])) {
+                append(id, codeHash, offset);
+            } else {
+                late.put(id, new long[]{codeHash, offset});
+            }
+            return this;
+        }
+
+        OffHeapIndex build() {
+            if (!late.isEmpty()) {
+                mergeLate();
+            }
+            return new OffHeapIndex(size, Arrays.copyOf(ids, size), Arrays.copyOf(offsets, size), Arrays.copyOf(codeHashes, size));
+        }
+
+        private void mergeLate() {
+            long[] mergedIds = new long[size + late.size()];
+            long[] mergedOffsets = new long[mergedIds.length];
+            int[] mergedHashes = new int[mergedIds.length];
+            int n = 0;
+            int row = 0;
+            for (Map.Entry<Long, long[]> e : late.entrySet()) {
+                long id = e.getKey();
+                while (row < size && ids[row] < id) {
+                    mergedIds[n] = ids[row];
+                    mergedOffsets[n] = offsets[row];
+                    mergedHashes[n++] = codeHashes[row++];
+                }
+                if (row < size && ids[row] == id) {
+                    row++;
+                }
+                mergedIds[n] = id;
+                mergedHashes[n] = (int) e.getValue()[0];
+                mergedOffsets[n++] = e.getValue()[1];
+            }
+            while (row < size) {
+                mergedIds[n] = ids[row];
+                mergedOffsets[n] = offsets[row];
+                mergedHashes[n++] = codeHashes[row++];
+            }
+            ids = mergedIds;
+            offsets = mergedOffsets;
+            codeHashes = mergedHashes;
+            size = n;
+            late.clear();
+        }
+
+        private void append(long id, int codeHash, long offset) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                codeHashes = Arrays.copyOf(codeHashes, capacity);
+            }
+            ids[size] = id;
+            offsets[size] = offset;
+            codeHashes[size++] = codeHash;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.medivex.medicine.service.config;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AmqpConfig {
+
+    @Value("${medicine.outbox.exchange:medivex.catalog}")
+    private String catalogExchange;
+
+    @Bean
+    public TopicExchange catalogExchange() {
+        return new TopicExchange(catalogExchange, true, false);
+    }
+}
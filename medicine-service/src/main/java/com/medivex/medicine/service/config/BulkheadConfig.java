@@ -0,0 +1,29 @@
+package com.medivex.medicine.service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medivex.medicine.service.bulkhead.BulkheadFilter;
+import com.medivex.medicine.service.bulkhead.BulkheadProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "medicine.bulkhead.enabled", havingValue = "true")
+    public FilterRegistrationBean<BulkheadFilter> bulkheadFilter(BulkheadProperties properties,
+                                                                 MeterRegistry meterRegistry,
+                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<BulkheadFilter> registration =
+                new FilterRegistrationBean<>(new BulkheadFilter(properties, meterRegistry, objectMapper));
+        // ahead of the security chain: shed load before token parsing
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 10);
+        return registration;
+    }
+}
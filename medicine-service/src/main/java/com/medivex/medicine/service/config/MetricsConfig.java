@@ -0,0 +1,54 @@
+package com.medivex.medicine.service.config;
+
+import com.medivex.medicine.service.metrics.EndpointMetricsInterceptor;
+import com.medivex.medicine.service.metrics.InstrumentedDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Per-endpoint latency and SQL metrics. The DataSource is wrapped after creation so the same
+ * instrumentation applies to the plain pool and to the replica router.
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    public MetricsConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new EndpointMetricsInterceptor(meterRegistry)).addPathPatterns("/api/**");
+    }
+
+    // static, so registering the post-processor does not initialize this configuration early
+    @Bean
+    public static BeanPostProcessor sqlInstrumentationPostProcessor(Environment environment,
+                                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)
+                        && "dataSource".equals(beanName)
+                        && environment.getProperty("medicine.sql.instrumentation.enabled", Boolean.class, true)) {
+                    return new InstrumentedDataSource(dataSource,
+                            environment.getProperty("medicine.sql.slow-query.threshold", Duration.class, Duration.ofMillis(200)),
+                            environment.getProperty("medicine.sql.slow-query.sample-rate", Double.class, 1.0),
+                            meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
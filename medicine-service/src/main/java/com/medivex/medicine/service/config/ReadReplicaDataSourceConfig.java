@@ -0,0 +1,126 @@
+package com.medivex.medicine.service.config;
+
+import com.medivex.medicine.service.datasource.ReadReplicaRoutingDataSource;
+import com.medivex.medicine.service.datasource.ReadYourWritesTracker;
+import com.medivex.medicine.service.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured DataSource with a primary/replica router when
+ * {@code medicine.datasource.replica.enabled=true}. Replicas share the primary's credentials
+ * unless overridden, and every pool is tuned by {@code spring.datasource.hikari.*} as the
+ * auto-configured one would be. The pools are closed when the context shuts down.
+ *
+ * <p>Read-your-writes stickiness is tracked per instance: a user whose write went through one
+ * instance and whose next read is served by another can still see replica data older than the
+ * write. Deployments that need it across instances should route each user to one instance.
+ */
+@Configuration
+@ConditionalOnProperty(name = "medicine.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig implements DisposableBean {
+
+    static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private static final String POSTGRES_LAG_QUERY =
+            "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    @Value("${medicine.datasource.replica.urls}")
+    private List<String> replicaUrls;
+
+    @Value("${medicine.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${medicine.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${medicine.datasource.replica.max-lag:5s}")
+    private Duration maxLag;
+
+    @Value("${medicine.datasource.replica.lag-query:" + POSTGRES_LAG_QUERY + "}")
+    private String lagQuery;
+
+    @Value("${medicine.datasource.replica.sticky-window:10s}")
+    private Duration stickyWindow;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(stickyWindow);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties primaryProperties, Environment environment,
+                                               MeterRegistry meterRegistry) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = pool(primaryProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build(), environment);
+            replica.setPoolName("medicine-replica-" + i);
+            replica.setReadOnly(true);
+            replicas.put("replica-" + i, replica);
+        }
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas, lagQuery, maxLag, meterRegistry);
+        monitor.check();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties,
+                                 Environment environment,
+                                 ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWritesTracker readYourWritesTracker,
+                                 MeterRegistry meterRegistry) {
+        HikariDataSource primary = pool(primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build(),
+                environment);
+        primary.setPoolName("medicine-primary");
+
+        Map<Object, Object> targets = new HashMap<>(replicaLagMonitor.replicas());
+        targets.put(ReadReplicaRoutingDataSource.PRIMARY, primary);
+
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(
+                new ArrayList<>(replicaLagMonitor.replicas().keySet()), replicaLagMonitor, readYourWritesTracker, meterRegistry);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    // the pools are not beans, so neither the pool settings nor closing at shutdown come for free
+    private HikariDataSource pool(HikariDataSource dataSource, Environment environment) {
+        Binder.get(environment).bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+        pools.add(dataSource);
+        return dataSource;
+    }
+}
@@ -37,15 +37,21 @@ public class SecurityConfig {
                         "/api/medicines/active", 
                         "/api/medicines/search", 
                         "/api/medicines/categories", 
+                        "/api/medicines/categories/stats", 
+                        "/api/medicines/categories/*/stats", 
                         "/api/medicines/categories/*/medicines", 
                         "/api/medicines/*").authenticated()
+                // Bulk read is a POST but only needs authentication
+                .requestMatchers(HttpMethod.POST, "/api/medicines/bulk-get").authenticated()
                 // Write endpoints require roles
                 .requestMatchers(HttpMethod.POST, 
                         "/api/medicines", 
-                        "/api/medicines/categories").hasAnyRole("ADMIN", "PHARMACIST")
+                        "/api/medicines/categories",
+                        "/api/medicines/stock/updates").hasAnyRole("ADMIN", "PHARMACIST")
                 .requestMatchers(HttpMethod.PUT, 
                         "/api/medicines/*", 
-                        "/api/medicines/categories/*").hasAnyRole("ADMIN", "PHARMACIST")
+                        "/api/medicines/categories/*",
+                        "/api/medicines/stock/*").hasAnyRole("ADMIN", "PHARMACIST")
                 .requestMatchers(HttpMethod.DELETE, 
                         "/api/medicines/*", 
                         "/api/medicines/categories/*").hasAnyRole("ADMIN", "PHARMACIST")
@@ -1,37 +1,74 @@
 package com.medivex.medicine.service.config;
 
+import com.medivex.medicine.service.entity.CatalogSeedRun;
 import com.medivex.medicine.service.entity.Medicine;
 import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.event.CatalogBulkChangedEvent;
+import com.medivex.medicine.service.repository.CatalogSeedRunRepository;
 import com.medivex.medicine.service.repository.MedicineCategoryRepository;
 import com.medivex.medicine.service.repository.MedicineRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-@Configuration
-@RequiredArgsConstructor
+/**
+ * Seeds the catalog from the public CSV once the application is ready, so a cold start reports
+ * healthy and serves reads immediately. The CSV is read on one thread and committed in chunks by
+ * a small worker pool; when the pool is saturated the reader commits the chunk itself, which keeps
+ * memory bounded. Shutdown cancels the job between rows and chunks.
+ * <p>
+ * A run that reads the whole CSV records a {@link CatalogSeedRun} for it. Until then every start
+ * runs the seed again; chunks skip codes that are already stored, so a cancelled or failed run is
+ * completed rather than left half loaded. A catalog that has rows but none from the seed is managed
+ * by hand and left alone.
+ */
+@Component
 @Slf4j
-public class SeedDataLoader {
+public class SeedDataLoader implements DisposableBean {
+
+    public enum State { PENDING, DISABLED, SKIPPED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    static final String SEED_USER = "seed";
+
+    public record Progress(State state, int created, int skipped, int chunksCommitted, Instant startedAt, Instant finishedAt) {
+    }
 
     private final MedicineRepository medicineRepository;
     private final MedicineCategoryRepository categoryRepository;
+    private final CatalogSeedRunRepository seedRunRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${medicine.seed.enabled:true}")
     private boolean seedEnabled;
@@ -39,98 +76,240 @@ public class SeedDataLoader {
     @Value("${medicine.seed.csvUrl:https://raw.githubusercontent.com/junioralive/Indian-Medicine-Dataset/refs/heads/main/DATA/indian_medicine_data.csv}")
     private String csvUrl;
 
-    @Bean
-    @Transactional
-    CommandLineRunner seedMedicinesRunner() {
-        return args -> {
-            if (!seedEnabled) {
-                log.info("Medicine seeding disabled by property.");
-                return;
+    @Value("${medicine.seed.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${medicine.seed.parallelism:4}")
+    private int parallelism;
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger chunksCommitted = new AtomicInteger();
+    private final AtomicInteger chunksFailed = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile boolean cancelled;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private ExecutorService runner;
+    private ThreadPoolExecutor chunkWorkers;
+
+    public SeedDataLoader(MedicineRepository medicineRepository,
+                          MedicineCategoryRepository categoryRepository,
+                          CatalogSeedRunRepository seedRunRepository,
+                          PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher eventPublisher) {
+        this.medicineRepository = medicineRepository;
+        this.categoryRepository = categoryRepository;
+        this.seedRunRepository = seedRunRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startSeeding() {
+        if (!seedEnabled) {
+            log.info("Medicine seeding disabled by property.");
+            state = State.DISABLED;
+            return;
+        }
+        runner = Executors.newSingleThreadExecutor(r -> new Thread(r, "medicine-seed"));
+        runner.submit(this::seed);
+    }
+
+    public Progress progress() {
+        return new Progress(state, created.get(), skipped.get(), chunksCommitted.get(), startedAt, finishedAt);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        cancelled = true;
+        for (ExecutorService executor : new ExecutorService[]{runner, chunkWorkers}) {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor.awaitTermination(10, TimeUnit.SECONDS);
             }
+        }
+    }
+
+    void seed() {
+        if (seedRunRepository.existsById(csvUrl)) {
+            log.info("Medicine seed already completed; skipping.");
+            state = State.SKIPPED;
+            return;
+        }
+        if (!medicineRepository.existsByCreatedBy(SEED_USER)) {
             if (medicineRepository.count() > 0) {
-                log.info("Medicines already present; skipping seed.");
+                log.info("Medicines present but none were seeded; skipping seed.");
+                state = State.SKIPPED;
                 return;
             }
-            try {
-                log.info("Downloading CSV from {}", csvUrl);
-                var url = URI.create(csvUrl).toURL();
-                try (var stream = url.openStream();
-                     var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
-                     CSVParser parser = CSVFormat.DEFAULT
-                             .builder()
-                             .setHeader()
-                             .setSkipHeaderRecord(true)
-                             .build()
-                             .parse(reader)) {
-
-                    Map<String, MedicineCategory> categoryCache = new HashMap<>();
-                    AtomicInteger created = new AtomicInteger();
-                    AtomicInteger skipped = new AtomicInteger();
-
-                    for (CSVRecord rec : parser) {
-                        try {
-                            String id = rec.get("id");
-                            String name = rec.get("name");
-                            String priceStr = rec.get("price(₹)");
-                            String isDiscontinued = rec.get("Is_discontinued");
-                            String manufacturer = rec.get("manufacturer_name");
-                            String type = rec.get("type");
-                            String packSize = rec.get("pack_size_label");
-                            String comp1 = rec.get("short_composition1");
-                            String comp2 = rec.get("short_composition2");
-
-                            if (name == null || name.isBlank()) {
-                                skipped.incrementAndGet();
-                                continue;
-                            }
-
-                            // Category from type; fallback "Uncategorized"
-                            String categoryName = (type == null || type.isBlank()) ? "Uncategorized" : capitalize(type.trim());
-                            MedicineCategory category = categoryCache.computeIfAbsent(categoryName, n ->
-                                    categoryRepository.findByNameIgnoreCase(n).orElseGet(() -> {
-                                        MedicineCategory c = new MedicineCategory();
-                                        c.setName(n);
-                                        c.setDescription("Auto-created from CSV type field");
-                                        return categoryRepository.save(c);
-                                    })
-                            );
-
-                            Medicine m = new Medicine();
-                            m.setName(name);
-                            m.setBrandName(name); // treat csv name as brand name
-                            m.setGenericName(extractGenericFromCompositions(comp1, comp2));
-                            m.setManufacturer(manufacturer);
-                            m.setCategory(category);
-                            m.setMedicineCode("CSV-" + (id != null ? id.trim() : name.hashCode()));
-                            m.setBarcode(null);
-                            m.setDosageForm(extractDosageForm(packSize));
-                            m.setStrength(extractStrength(name, comp1));
-                            m.setUnitOfMeasure(extractUnitFromStrength(m.getStrength()));
-                            m.setPrice(parsePrice(priceStr));
-                            m.setPrescriptionRequired(Boolean.FALSE);
-                            m.setMinimumStockLevel(0);
-                            m.setMaximumStockLevel(0);
-                            m.setActive(!Boolean.parseBoolean(Optional.ofNullable(isDiscontinued).orElse("false")));
-                            m.setCreatedBy("seed");
-
-                            // avoid duplicates by medicineCode
-                            if (medicineRepository.findByMedicineCode(m.getMedicineCode()).isPresent()) {
-                                skipped.incrementAndGet();
-                                continue;
-                            }
-                            medicineRepository.save(m);
-                            created.incrementAndGet();
-                        } catch (Exception rowEx) {
-                            log.warn("Skipping row due to parse error: {}", rowEx.getMessage());
+        } else {
+            log.info("Resuming an unfinished medicine seed.");
+        }
+        state = State.RUNNING;
+        startedAt = Instant.now();
+        AtomicInteger workerCount = new AtomicInteger();
+        chunkWorkers = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism * 2),
+                r -> new Thread(r, "medicine-seed-chunk-" + workerCount.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        boolean failed = false;
+        try {
+            log.info("Downloading CSV from {}", csvUrl);
+            var url = URI.create(csvUrl).toURL();
+            try (var stream = url.openStream();
+                 var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+                 CSVParser parser = CSVFormat.DEFAULT
+                         .builder()
+                         .setHeader()
+                         .setSkipHeaderRecord(true)
+                         .build()
+                         .parse(reader)) {
+
+                Map<String, MedicineCategory> categoryCache = new HashMap<>();
+                List<Medicine> chunk = new ArrayList<>(chunkSize);
+
+                for (CSVRecord rec : parser) {
+                    if (cancelled) {
+                        break;
+                    }
+                    try {
+                        Medicine m = toMedicine(rec, categoryCache);
+                        if (m == null) {
                             skipped.incrementAndGet();
+                            continue;
+                        }
+                        chunk.add(m);
+                        if (chunk.size() >= chunkSize) {
+                            submit(chunk);
+                            chunk = new ArrayList<>(chunkSize);
                         }
+                    } catch (Exception rowEx) {
+                        log.warn("Skipping row due to parse error: {}", rowEx.getMessage());
+                        skipped.incrementAndGet();
                     }
-                    log.info("Medicine CSV seeding done. Created: {}, Skipped: {}", created.get(), skipped.get());
                 }
-            } catch (Exception e) {
-                log.error("Failed to seed medicines from CSV", e);
+                if (!chunk.isEmpty() && !cancelled) {
+                    submit(chunk);
+                }
             }
-        };
+        } catch (Exception e) {
+            failed = true;
+            log.error("Failed to seed medicines from CSV", e);
+        } finally {
+            chunkWorkers.shutdown();
+            try {
+                chunkWorkers.awaitTermination(10, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelled = true;
+            }
+        }
+        finishedAt = Instant.now();
+        State outcome = cancelled ? State.CANCELLED : failed || chunksFailed.get() > 0 ? State.FAILED : State.COMPLETED;
+        if (outcome == State.COMPLETED) {
+            recordCompletion();
+        }
+        state = outcome;
+        log.info("Medicine CSV seeding {}. Created: {}, Skipped: {}", state.name().toLowerCase(), created.get(), skipped.get());
+    }
+
+    private void recordCompletion() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> seedRunRepository.save(CatalogSeedRun.builder()
+                    .source(csvUrl)
+                    .created(created.get())
+                    .skipped(skipped.get())
+                    .completedAt(LocalDateTime.now())
+                    .build()));
+        } catch (RuntimeException e) {
+            // harmless: the next start reruns the seed and finds every code present
+            log.warn("Could not record seed completion: {}", e.getMessage());
+        }
+    }
+
+    private void submit(List<Medicine> chunk) {
+        chunkWorkers.execute(() -> commitChunk(chunk));
+    }
+
+    private void commitChunk(List<Medicine> chunk) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveNew(chunk));
+        } catch (DataIntegrityViolationException e) {
+            // Another chunk committed one of our codes first; settle row by row.
+            for (Medicine m : chunk) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> saveNew(List.of(m)));
+                } catch (DataIntegrityViolationException rowEx) {
+                    skipped.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to commit seed chunk of {} rows: {}", chunk.size(), e.getMessage());
+            chunksFailed.incrementAndGet();
+            skipped.addAndGet(chunk.size());
+            return;
+        }
+        chunksCommitted.incrementAndGet();
+        eventPublisher.publishEvent(new CatalogBulkChangedEvent("seed"));
+    }
+
+    private void saveNew(List<Medicine> rows) {
+        Set<String> seen = new HashSet<>(medicineRepository.findExistingMedicineCodes(
+                rows.stream().map(Medicine::getMedicineCode).toList()));
+        List<Medicine> fresh = rows.stream().filter(m -> seen.add(m.getMedicineCode())).toList();
+        medicineRepository.saveAll(fresh);
+        created.addAndGet(fresh.size());
+        skipped.addAndGet(rows.size() - fresh.size());
+    }
+
+    private Medicine toMedicine(CSVRecord rec, Map<String, MedicineCategory> categoryCache) {
+        String id = rec.get("id");
+        String name = rec.get("name");
+        String priceStr = rec.get("price(₹)");
+        String isDiscontinued = rec.get("Is_discontinued");
+        String manufacturer = rec.get("manufacturer_name");
+        String type = rec.get("type");
+        String packSize = rec.get("pack_size_label");
+        String comp1 = rec.get("short_composition1");
+        String comp2 = rec.get("short_composition2");
+
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+
+        // Category from type; fallback "Uncategorized"
+        String categoryName = (type == null || type.isBlank()) ? "Uncategorized" : capitalize(type.trim());
+        MedicineCategory category = categoryCache.computeIfAbsent(categoryName, n ->
+                transactionTemplate.execute(status -> categoryRepository.findByNameIgnoreCase(n).orElseGet(() -> {
+                    MedicineCategory c = new MedicineCategory();
+                    c.setName(n);
+                    c.setDescription("Auto-created from CSV type field");
+                    return categoryRepository.save(c);
+                }))
+        );
+
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setBrandName(name); // treat csv name as brand name
+        m.setGenericName(extractGenericFromCompositions(comp1, comp2));
+        m.setManufacturer(manufacturer);
+        m.setCategory(category);
+        m.setMedicineCode("CSV-" + (id != null ? id.trim() : name.hashCode()));
+        m.setBarcode(null);
+        m.setDosageForm(extractDosageForm(packSize));
+        m.setStrength(extractStrength(name, comp1));
+        m.setUnitOfMeasure(extractUnitFromStrength(m.getStrength()));
+        m.setPrice(parsePrice(priceStr));
+        m.setPrescriptionRequired(Boolean.FALSE);
+        m.setMinimumStockLevel(0);
+        m.setMaximumStockLevel(0);
+        m.setActive(!Boolean.parseBoolean(Optional.ofNullable(isDiscontinued).orElse("false")));
+        m.setCreatedBy(SEED_USER);
+        return m;
     }
 
     private static String capitalize(String s) {
@@ -0,0 +1,34 @@
+package com.medivex.medicine.service.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports seeding progress under {@code /actuator/health}. Always UP: reads are served while the
+ * catalog fills, so seeding must never take the instance out of rotation.
+ */
+@Component
+@RequiredArgsConstructor
+public class SeedingHealthIndicator implements HealthIndicator {
+
+    private final SeedDataLoader seedDataLoader;
+
+    @Override
+    public Health health() {
+        SeedDataLoader.Progress progress = seedDataLoader.progress();
+        Health.Builder builder = Health.up()
+                .withDetail("state", progress.state())
+                .withDetail("created", progress.created())
+                .withDetail("skipped", progress.skipped())
+                .withDetail("chunksCommitted", progress.chunksCommitted());
+        if (progress.startedAt() != null) {
+            builder.withDetail("startedAt", progress.startedAt().toString());
+        }
+        if (progress.finishedAt() != null) {
+            builder.withDetail("finishedAt", progress.finishedAt().toString());
+        }
+        return builder.build();
+    }
+}
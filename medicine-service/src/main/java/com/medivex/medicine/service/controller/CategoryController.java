@@ -3,6 +3,7 @@ package com.medivex.medicine.service.controller;
 import com.medivex.medicine.service.dto.CategoryDtos.*;
 import com.medivex.medicine.service.entity.MedicineCategory;
 import com.medivex.medicine.service.service.MedicineCategoryService;
+import com.medivex.medicine.service.stats.CategoryStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,9 +11,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "Medicine Categories")
 @RestController
 @RequestMapping("/api/medicines/categories")
@@ -20,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class CategoryController {
 
     private final MedicineCategoryService categoryService;
+    private final CategoryStatsService statsService;
 
     @Operation(summary = "List medicine categories (paginated)")
     @GetMapping
@@ -27,6 +32,18 @@ public class CategoryController {
         return ResponseEntity.ok(categoryService.list(pageable).map(this::toResponse));
     }
 
+    @Operation(summary = "Medicine counts and price ranges for every category")
+    @GetMapping("/stats")
+    public ResponseEntity<List<CategoryStatsResponse>> stats() {
+        return ResponseEntity.ok(statsService.list());
+    }
+
+    @Operation(summary = "Medicine counts and price range for one category")
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CategoryStatsResponse> stats(@PathVariable Long id) {
+        return ResponseEntity.ok(statsService.get(id));
+    }
+
     @Operation(summary = "Create a new medicine category")
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','PHARMACIST')")
@@ -47,14 +64,28 @@ public class CategoryController {
         return ResponseEntity.ok(toResponse(categoryService.update(id, update)));
     }
 
-    @Operation(summary = "Delete a medicine category")
+    @Operation(summary = "Delete a medicine category, deactivating its medicines")
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        categoryService.delete(id);
+    public ResponseEntity<Void> delete(@PathVariable Long id, Authentication auth) {
+        String username = auth != null ? auth.getName() : "system";
+        categoryService.delete(id, username);
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Merge a category into another, moving all of its medicines")
+    @PostMapping("/{id}/merge")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CategoryRetireResponse> merge(@PathVariable Long id, @RequestParam Long into, Authentication auth) {
+        String username = auth != null ? auth.getName() : "system";
+        int affected = categoryService.retire(id, into, username);
+        return ResponseEntity.ok(CategoryRetireResponse.builder()
+                .categoryId(id)
+                .replacementCategoryId(into)
+                .affectedMedicines(affected)
+                .build());
+    }
+
     private CategoryResponse toResponse(MedicineCategory c) {
         return CategoryResponse.builder()
                 .id(c.getId())
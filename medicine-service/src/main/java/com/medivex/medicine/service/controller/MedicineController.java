@@ -1,6 +1,9 @@
 package com.medivex.medicine.service.controller;
 
 import com.medivex.medicine.service.dto.MedicineDtos.*;
+import com.medivex.medicine.service.dto.MedicineField;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import com.medivex.medicine.service.service.MedicineReadRouter;
 import com.medivex.medicine.service.service.MedicineService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,6 +16,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @Tag(name = "Medicines")
 @RestController
 @RequestMapping("/api/medicines")
@@ -20,23 +25,40 @@ import org.springframework.web.bind.annotation.*;
 public class MedicineController {
 
     private final MedicineService medicineService;
+    private final MedicineReadRouter readRouter;
 
-    @Operation(summary = "List medicines (paginated)")
+    @Operation(summary = "List medicines (paginated); supports fields= and format=compact")
     @GetMapping
-    public ResponseEntity<Page<MedicineResponse>> list(Pageable pageable) {
-        return ResponseEntity.ok(medicineService.list(pageable));
+    public ResponseEntity<?> list(@RequestParam(required = false) String fields,
+                                  @RequestParam(required = false) String format,
+                                  Pageable pageable) {
+        if (fields == null && format == null) {
+            return ResponseEntity.ok(readRouter.list(pageable));
+        }
+        return ResponseEntity.ok(projected(MedicineFilter.all(), fields, format, pageable));
     }
 
-    @Operation(summary = "List active medicines (paginated)")
+    @Operation(summary = "List active medicines (paginated); supports fields= and format=compact")
     @GetMapping("/active")
-    public ResponseEntity<Page<MedicineResponse>> listActive(Pageable pageable) {
-        return ResponseEntity.ok(medicineService.listActive(pageable));
+    public ResponseEntity<?> listActive(@RequestParam(required = false) String fields,
+                                        @RequestParam(required = false) String format,
+                                        Pageable pageable) {
+        if (fields == null && format == null) {
+            return ResponseEntity.ok(readRouter.listActive(pageable));
+        }
+        return ResponseEntity.ok(projected(MedicineFilter.activeOnly(), fields, format, pageable));
     }
 
     @Operation(summary = "Get medicine by id")
     @GetMapping("/{id}")
     public ResponseEntity<MedicineResponse> get(@PathVariable Long id) {
-        return ResponseEntity.ok(medicineService.get(id));
+        return ResponseEntity.ok(readRouter.get(id));
+    }
+
+    @Operation(summary = "Fetch many medicines by id or medicine code in one call")
+    @PostMapping("/bulk-get")
+    public ResponseEntity<MedicineBulkGetResponse> bulkGet(@Valid @RequestBody MedicineBulkGetRequest request) {
+        return ResponseEntity.ok(readRouter.bulkGet(request));
     }
 
     @Operation(summary = "Create a new medicine")
@@ -64,21 +86,44 @@ public class MedicineController {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Search medicines with filters")
+    @Operation(summary = "Search medicines with filters; supports fields= and format=compact")
     @GetMapping("/search")
-    public ResponseEntity<Page<MedicineResponse>> search(
+    public ResponseEntity<?> search(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Boolean prescriptionRequired,
             @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String format,
             Pageable pageable
     ) {
-        return ResponseEntity.ok(medicineService.search(q, categoryId, prescriptionRequired, active, pageable));
+        if (fields == null && format == null) {
+            return ResponseEntity.ok(readRouter.search(q, categoryId, prescriptionRequired, active, pageable));
+        }
+        return ResponseEntity.ok(projected(new MedicineFilter(q, categoryId, prescriptionRequired, active), fields, format, pageable));
     }
 
-    @Operation(summary = "Get medicines by category")
+    @Operation(summary = "Get medicines by category; supports fields= and format=compact")
     @GetMapping("/categories/{id}/medicines")
-    public ResponseEntity<Page<MedicineResponse>> byCategory(@PathVariable("id") Long categoryId, Pageable pageable) {
-        return ResponseEntity.ok(medicineService.medicinesByCategory(categoryId, pageable));
+    public ResponseEntity<?> byCategory(@PathVariable("id") Long categoryId,
+                                        @RequestParam(required = false) String fields,
+                                        @RequestParam(required = false) String format,
+                                        Pageable pageable) {
+        if (fields == null && format == null) {
+            return ResponseEntity.ok(readRouter.byCategory(categoryId, pageable));
+        }
+        medicineService.requireCategory(categoryId);
+        return ResponseEntity.ok(projected(MedicineFilter.category(categoryId), fields, format, pageable));
+    }
+
+    private Object projected(MedicineFilter filter, String fields, String format, Pageable pageable) {
+        List<MedicineField> selected = MedicineField.parse(fields);
+        if (format == null || "page".equalsIgnoreCase(format)) {
+            return medicineService.listFields(filter, selected, pageable);
+        }
+        if ("compact".equalsIgnoreCase(format)) {
+            return medicineService.listCompact(filter, selected, pageable);
+        }
+        throw new IllegalArgumentException("Unsupported format '" + format + "'. Use 'page' or 'compact'");
     }
 }
@@ -0,0 +1,59 @@
+package com.medivex.medicine.service.controller;
+
+import com.medivex.medicine.service.dto.StockDtos.*;
+import com.medivex.medicine.service.stock.StockLevelEngine;
+import com.medivex.medicine.service.stock.StockState;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "Medicine Stock Levels")
+@RestController
+@RequestMapping("/api/medicines/stock")
+@RequiredArgsConstructor
+public class StockController {
+
+    private final StockLevelEngine stockLevelEngine;
+
+    @Operation(summary = "Current stock quantity and level of a medicine")
+    @GetMapping("/{medicineId}")
+    public ResponseEntity<StockLevelResponse> get(@PathVariable Long medicineId) {
+        return ResponseEntity.ok(stockLevelEngine.get(medicineId));
+    }
+
+    @Operation(summary = "Set or adjust the stock quantity of a medicine")
+    @PutMapping("/{medicineId}")
+    @PreAuthorize("hasAnyRole('ADMIN','PHARMACIST')")
+    public ResponseEntity<StockLevelResponse> update(@PathVariable Long medicineId, @Valid @RequestBody StockChangeRequest request) {
+        return ResponseEntity.ok(stockLevelEngine.apply(StockUpdate.builder()
+                .medicineId(medicineId)
+                .quantity(request.getQuantity())
+                .delta(request.getDelta())
+                .build()));
+    }
+
+    @Operation(summary = "Apply a batch of stock quantity updates in order")
+    @PostMapping("/updates")
+    @PreAuthorize("hasAnyRole('ADMIN','PHARMACIST')")
+    public ResponseEntity<StockUpdateBatchResponse> updates(@Valid @RequestBody StockUpdateBatchRequest request) {
+        return ResponseEntity.ok(stockLevelEngine.applyAll(request.getUpdates()));
+    }
+
+    @Operation(summary = "Medicines at or below their minimum stock level")
+    @GetMapping("/low")
+    public ResponseEntity<List<StockLevelResponse>> low() {
+        return ResponseEntity.ok(stockLevelEngine.inState(StockState.LOW));
+    }
+
+    @Operation(summary = "Medicines above their maximum stock level")
+    @GetMapping("/over")
+    public ResponseEntity<List<StockLevelResponse>> over() {
+        return ResponseEntity.ok(stockLevelEngine.inState(StockState.OVER));
+    }
+}
@@ -0,0 +1,61 @@
+package com.medivex.medicine.service.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a healthy replica (round robin) and everything else to the
+ * primary. A read-only transaction still goes to the primary when every replica is lagging or
+ * when the current user wrote within the read-your-writes window.
+ * <p>
+ * Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the read-only flag is only visible
+ * once the transaction has begun, after the transaction manager has asked for a connection.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker writesTracker;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaRoutingDataSource(List<String> replicaKeys, ReplicaLagMonitor lagMonitor,
+                                        ReadYourWritesTracker writesTracker, MeterRegistry meterRegistry) {
+        this.replicaKeys = List.copyOf(replicaKeys);
+        this.lagMonitor = lagMonitor;
+        this.writesTracker = writesTracker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return route(PRIMARY, "write");
+        }
+        if (writesTracker.recentlyWrote(ReadYourWritesTracker.currentUser())) {
+            return route(PRIMARY, "sticky");
+        }
+        int n = replicaKeys.size();
+        int start = Math.floorMod(next.getAndIncrement(), n);
+        for (int i = 0; i < n; i++) {
+            String key = replicaKeys.get((start + i) % n);
+            if (lagMonitor.isHealthy(key)) {
+                return route(key, "read");
+            }
+        }
+        return route(PRIMARY, "lagging");
+    }
+
+    private String route(String target, String reason) {
+        meterRegistry.counter("medicine.datasource.routed",
+                "target", PRIMARY.equals(target) ? PRIMARY : "replica",
+                "reason", reason).increment();
+        return target;
+    }
+}
@@ -0,0 +1,59 @@
+package com.medivex.medicine.service.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers which users committed a write in the last {@code window}, so their reads stay on the
+ * primary until the replicas have had time to catch up. Held in memory, so it only covers reads
+ * served by the instance that took the write.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        markWrite(currentUser());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        markWrite(currentUser());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryRetired(CategoryRetiredEvent event) {
+        markWrite(currentUser());
+    }
+
+    public void markWrite(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    public boolean recentlyWrote(String username) {
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+
+    static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null ? auth.getName() : null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.medivex.medicine.service.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Periodically asks each replica how far behind the primary it is. A replica is routable only while
+ * its last measured lag is within {@code maxLag}; one that cannot be reached counts as lagging.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final Map<String, DataSource> replicas;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final Map<String, Double> lagSeconds = new ConcurrentHashMap<>();
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        replicas.keySet().forEach(key -> Gauge.builder("medicine.datasource.replica.lag", lagSeconds,
+                        m -> m.getOrDefault(key, Double.NaN))
+                .tag("replica", key)
+                .baseUnit("seconds")
+                .register(meterRegistry));
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        replicas.forEach((key, dataSource) -> {
+            try {
+                lagSeconds.put(key, measure(dataSource));
+            } catch (SQLException e) {
+                log.warn("Replica {} lag check failed: {}", key, e.getMessage());
+                lagSeconds.remove(key);
+            }
+        });
+    }
+
+    public Map<String, DataSource> replicas() {
+        return replicas;
+    }
+
+    public boolean isHealthy(String key) {
+        Double lag = lagSeconds.get(key);
+        return lag != null && lag <= maxLagSeconds;
+    }
+
+    private double measure(DataSource dataSource) throws SQLException {
+        try (Connection c = dataSource.getConnection();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery(lagQuery)) {
+            if (!rs.next()) {
+                return 0;
+            }
+            double lag = rs.getDouble(1);
+            return rs.wasNull() ? 0 : lag;
+        }
+    }
+}
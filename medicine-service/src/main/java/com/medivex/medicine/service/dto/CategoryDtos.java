@@ -4,6 +4,8 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
 
+import java.math.BigDecimal;
+
 public class CategoryDtos {
 
     @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
@@ -28,4 +30,24 @@ public class CategoryDtos {
         @Size(max = 500)
         private String description;
     }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class CategoryStatsResponse {
+        private Long categoryId;
+        private long medicineCount;
+        private long activeCount;
+        private long inactiveCount;
+        private long prescriptionCount;
+        private long otcCount;
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private BigDecimal avgPrice;
+    }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class CategoryRetireResponse {
+        private Long categoryId;
+        private Long replacementCategoryId;
+        private int affectedMedicines;
+    }
 }
@@ -3,7 +3,8 @@ package com.medivex.medicine.service.dto;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
-import java.util.Set;
+import java.math.BigDecimal;
+import java.util.List;
 
 public class MedicineDtos {
 
@@ -21,12 +22,50 @@ public class MedicineDtos {
         private String dosageForm;
         private String strength;
         private String unitOfMeasure;
+        private BigDecimal price;
         private Boolean prescriptionRequired;
         private Integer minimumStockLevel;
         private Integer maximumStockLevel;
         private Boolean active;
     }
 
+    /**
+     * List representation for {@code format=compact}: one array per medicine, values in the order of {@code fields}.
+     */
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class MedicineCompactPage {
+        private List<String> fields;
+        private List<Object[]> rows;
+        private int page;
+        private int size;
+        private long totalElements;
+        private int totalPages;
+    }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class MedicineBulkGetRequest {
+        private List<@NotNull Long> ids;
+        private List<@NotBlank String> medicineCodes;
+    }
+
+    /**
+     * One entry per requested id or code, in request order. {@code medicine} is null when not found.
+     */
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class MedicineBulkGetItem {
+        private Long id;
+        private String medicineCode;
+        private boolean found;
+        private MedicineResponse medicine;
+    }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class MedicineBulkGetResponse {
+        private List<MedicineBulkGetItem> items;
+        private int found;
+        private int missing;
+    }
+
     @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
     public static class MedicineCreateRequest {
         @NotBlank @Size(min = 3, max = 150)
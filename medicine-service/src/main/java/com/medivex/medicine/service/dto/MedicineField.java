@@ -0,0 +1,93 @@
+package com.medivex.medicine.service.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields of {@link MedicineDtos.MedicineResponse} that can be requested with {@code fields=}.
+ * {@code attribute} is the entity path the field is selected from.
+ */
+public enum MedicineField {
+    ID("id", "id"),
+    NAME("name", "name"),
+    GENERIC_NAME("genericName", "genericName"),
+    BRAND_NAME("brandName", "brandName"),
+    MANUFACTURER("manufacturer", "manufacturer"),
+    CATEGORY_ID("categoryId", "category.id"),
+    CATEGORY_NAME("categoryName", "category.name"),
+    MEDICINE_CODE("medicineCode", "medicineCode"),
+    BARCODE("barcode", "barcode"),
+    DOSAGE_FORM("dosageForm", "dosageForm"),
+    STRENGTH("strength", "strength"),
+    UNIT_OF_MEASURE("unitOfMeasure", "unitOfMeasure"),
+    PRICE("price", "price"),
+    PRESCRIPTION_REQUIRED("prescriptionRequired", "prescriptionRequired"),
+    MINIMUM_STOCK_LEVEL("minimumStockLevel", "minimumStockLevel"),
+    MAXIMUM_STOCK_LEVEL("maximumStockLevel", "maximumStockLevel"),
+    ACTIVE("active", "active");
+
+    private final String jsonName;
+    private final String attribute;
+
+    MedicineField(String jsonName, String attribute) {
+        this.jsonName = jsonName;
+        this.attribute = attribute;
+    }
+
+    public String jsonName() {
+        return jsonName;
+    }
+
+    public String attribute() {
+        return attribute;
+    }
+
+    public boolean needsCategoryJoin() {
+        return this == CATEGORY_NAME;
+    }
+
+    /**
+     * Mirrors the null handling of the full response so both representations agree.
+     */
+    public Object present(Object raw) {
+        if (this == PRESCRIPTION_REQUIRED || this == ACTIVE) {
+            return Boolean.TRUE.equals(raw);
+        }
+        return raw;
+    }
+
+    public static MedicineField fromJsonName(String name) {
+        for (MedicineField f : values()) {
+            if (f.jsonName.equals(name)) {
+                return f;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a comma-separated {@code fields=} value. {@code id} is always included first;
+     * a blank value selects every field.
+     */
+    public static List<MedicineField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return List.of(values());
+        }
+        Set<MedicineField> selected = new LinkedHashSet<>();
+        selected.add(ID);
+        for (String raw : fields.split(",")) {
+            String name = raw.trim();
+            if (name.isEmpty()) continue;
+            MedicineField f = fromJsonName(name);
+            if (f == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'. Allowed: "
+                        + Arrays.stream(values()).map(MedicineField::jsonName).toList());
+            }
+            selected.add(f);
+        }
+        return new ArrayList<>(selected);
+    }
+}
@@ -0,0 +1,56 @@
+package com.medivex.medicine.service.dto;
+
+import com.medivex.medicine.service.stock.StockState;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.List;
+
+public class StockDtos {
+
+    /**
+     * Sets {@code quantity} when present, otherwise adds {@code delta} to the current quantity.
+     */
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class StockUpdate {
+        @NotNull
+        private Long medicineId;
+        @Min(0)
+        private Integer quantity;
+        private Integer delta;
+    }
+
+    /**
+     * Body of a single-medicine update; the medicine comes from the path.
+     */
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class StockChangeRequest {
+        @Min(0)
+        private Integer quantity;
+        private Integer delta;
+    }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class StockUpdateBatchRequest {
+        @NotEmpty
+        private List<@Valid @NotNull StockUpdate> updates;
+    }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class StockUpdateBatchResponse {
+        private int applied;
+        private int crossings;
+    }
+
+    @Getter @Setter @Builder @NoArgsConstructor @AllArgsConstructor
+    public static class StockLevelResponse {
+        private Long medicineId;
+        private int quantity;
+        private StockState state;
+        private int minimumStockLevel;
+        private Integer maximumStockLevel;
+    }
+}
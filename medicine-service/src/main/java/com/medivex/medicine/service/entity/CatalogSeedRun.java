@@ -0,0 +1,33 @@
+package com.medivex.medicine.service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Written once a seed source has been loaded completely. Its absence means the seed never ran or
+ * stopped part way, and the next start resumes it.
+ */
+@Entity
+@Table(name = "catalog_seed_runs")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSeedRun {
+
+    @Id
+    @Column(length = 500)
+    private String source;
+
+    @Column(nullable = false)
+    private Integer created;
+
+    @Column(nullable = false)
+    private Integer skipped;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
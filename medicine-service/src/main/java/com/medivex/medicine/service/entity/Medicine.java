@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_medicine_brand", columnList = "brand_name"),
         @Index(name = "idx_medicine_code", columnList = "medicine_code", unique = true),
         @Index(name = "idx_medicine_barcode", columnList = "barcode", unique = true),
-        @Index(name = "idx_medicine_price", columnList = "price")
+        @Index(name = "idx_medicine_price", columnList = "price"),
+        @Index(name = "idx_medicine_category", columnList = "category_id")
 })
 @Getter
 @Setter
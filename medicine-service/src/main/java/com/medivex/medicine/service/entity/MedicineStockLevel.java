@@ -0,0 +1,31 @@
+package com.medivex.medicine.service.entity;
+
+import com.medivex.medicine.service.stock.StockState;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "medicine_stock_levels")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineStockLevel {
+
+    @Id
+    @Column(name = "medicine_id")
+    private Long medicineId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockState state;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.medivex.medicine.service.event;
+
+/**
+ * Published after set-based or bulk writes (seeding, category merges) that do not emit one
+ * {@link MedicineChangedEvent} per row. Listeners should treat all derived state as stale.
+ */
+public record CatalogBulkChangedEvent(String reason) {
+}
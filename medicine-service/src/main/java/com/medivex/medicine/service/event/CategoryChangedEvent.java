@@ -0,0 +1,11 @@
+package com.medivex.medicine.service.event;
+
+/**
+ * Published by {@code MedicineCategoryService} for every category write.
+ */
+public record CategoryChangedEvent(Long categoryId, Type type) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,13 @@
+package com.medivex.medicine.service.event;
+
+/**
+ * Published once when a category is merged into {@code replacementCategoryId} or, when that is
+ * null, retired with its medicines deactivated. Covers every affected medicine: no per-row
+ * {@link MedicineChangedEvent} is emitted for the set-based update.
+ */
+public record CategoryRetiredEvent(Long categoryId, Long replacementCategoryId, int affectedMedicines) {
+
+    public boolean merged() {
+        return replacementCategoryId != null;
+    }
+}
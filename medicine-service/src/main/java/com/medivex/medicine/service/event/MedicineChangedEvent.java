@@ -0,0 +1,7 @@
+package com.medivex.medicine.service.event;
+
+/**
+ * Published by {@code MedicineService} for every medicine write. {@code before} is null on create.
+ */
+public record MedicineChangedEvent(Long medicineId, MedicineSnapshot before, MedicineSnapshot after) {
+}
@@ -0,0 +1,34 @@
+package com.medivex.medicine.service.event;
+
+import com.medivex.medicine.service.entity.Medicine;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable copy of the medicine columns that listeners filter and aggregate on, taken inside the
+ * writing transaction so listeners never touch a detached entity.
+ */
+public record MedicineSnapshot(
+        Long id,
+        String name,
+        String genericName,
+        String brandName,
+        Long categoryId,
+        Boolean prescriptionRequired,
+        Boolean active,
+        BigDecimal price
+) {
+
+    public static MedicineSnapshot of(Medicine m) {
+        return new MedicineSnapshot(
+                m.getId(),
+                m.getName(),
+                m.getGenericName(),
+                m.getBrandName(),
+                m.getCategory() != null ? m.getCategory().getId() : null,
+                m.getPrescriptionRequired(),
+                m.getActive(),
+                m.getPrice()
+        );
+    }
+}
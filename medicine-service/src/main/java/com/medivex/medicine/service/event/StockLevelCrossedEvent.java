@@ -0,0 +1,11 @@
+package com.medivex.medicine.service.event;
+
+import com.medivex.medicine.service.stock.StockState;
+
+/**
+ * Published when a medicine's quantity moves across its minimum or maximum stock level. Raised
+ * once per crossing, not for every update that stays on the same side.
+ */
+public record StockLevelCrossedEvent(Long medicineId, StockState previous, StockState current, int quantity,
+                                     int minimumStockLevel, Integer maximumStockLevel) {
+}
@@ -0,0 +1,78 @@
+package com.medivex.medicine.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records, per controller method, request latency as a percentile histogram together with the
+ * number of SQL statements, rows read and JDBC time the request spent. The endpoint tag is
+ * {@code Controller.method}, so its cardinality is bounded by the code.
+ */
+public class EndpointMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START = EndpointMetricsInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+    private final Map<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    public EndpointMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod method) {
+            request.setAttribute(START, System.nanoTime());
+            SqlRequestStats.begin(method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START);
+        SqlRequestStats stats = SqlRequestStats.current();
+        SqlRequestStats.end();
+        if (start == null || stats == null) {
+            return;
+        }
+        EndpointMeters m = meters.computeIfAbsent(stats.endpoint(), this::register);
+        m.latency().record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+        m.statements().record(stats.statements());
+        m.rows().record(stats.rows());
+        m.jdbcTime().record(stats.jdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private EndpointMeters register(String endpoint) {
+        return new EndpointMeters(
+                Timer.builder("medicine.endpoint.latency")
+                        .tag("endpoint", endpoint)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder("medicine.endpoint.sql.statements")
+                        .tag("endpoint", endpoint)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry),
+                DistributionSummary.builder("medicine.endpoint.sql.rows")
+                        .tag("endpoint", endpoint)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry),
+                Timer.builder("medicine.endpoint.sql.time")
+                        .tag("endpoint", endpoint)
+                        .publishPercentiles(0.5, 0.99)
+                        .register(registry));
+    }
+
+    private record EndpointMeters(Timer latency, DistributionSummary statements, DistributionSummary rows, Timer jdbcTime) {
+    }
+}
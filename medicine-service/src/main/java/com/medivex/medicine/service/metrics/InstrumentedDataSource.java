@@ -0,0 +1,175 @@
+package com.medivex.medicine.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wraps connections so every statement execution is timed and every row read is counted against
+ * the current request's {@link SqlRequestStats}. Statements slower than the threshold are logged
+ * with the endpoint that issued them, sampled at {@code sampleRate}; this replaces logging every
+ * statement with show-sql.
+ */
+@Slf4j
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final int MAX_LOGGED_SQL = 1000;
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final Counter slowStatements;
+
+    public InstrumentedDataSource(DataSource target, Duration slowThreshold, double sampleRate, MeterRegistry registry) {
+        super(target);
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.slowStatements = Counter.builder("medicine.sql.slow")
+                .description("Statements slower than the slow-query threshold, logged or not")
+                .register(registry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    private static <T> T wrap(Class<T> type, Forwarding handler) {
+        return type.cast(Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private void executed(String sql, long nanos) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats != null) {
+            stats.statementExecuted(nanos);
+        }
+        if (nanos >= slowThresholdNanos) {
+            slowStatements.increment();
+            if (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                String text = sql != null && sql.length() > MAX_LOGGED_SQL ? sql.substring(0, MAX_LOGGED_SQL) + "..." : sql;
+                log.warn("Slow SQL ({} ms, endpoint {}): {}", nanos / 1_000_000,
+                        stats != null ? stats.endpoint() : "none", text);
+            }
+        }
+    }
+
+    /**
+     * Forwards to the wrapped JDBC object. Identity methods answer for the proxy itself, since
+     * Hibernate keeps statements and result sets in hash-based registries.
+     */
+    private abstract static class Forwarding implements InvocationHandler {
+
+        final Object target;
+
+        Forwarding(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> target.toString();
+                default -> handle(method, args);
+            };
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private final class ConnectionHandler extends Forwarding {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            String name = method.getName();
+            if (result instanceof CallableStatement statement && name.equals("prepareCall")) {
+                return wrap(CallableStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof PreparedStatement statement && name.equals("prepareStatement")) {
+                return wrap(PreparedStatement.class, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof Statement statement && name.equals("createStatement")) {
+                return wrap(Statement.class, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler extends Forwarding {
+
+        private final String sql;
+
+        StatementHandler(Statement target, String sql) {
+            super(target);
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    Object result = forward(method, args);
+                    return result instanceof ResultSet rs ? countRows(rs) : result;
+                } finally {
+                    executed(args != null && args.length > 0 && args[0] instanceof String s ? s : sql, System.nanoTime() - start);
+                }
+            }
+            Object result = forward(method, args);
+            return name.equals("getResultSet") && result instanceof ResultSet rs ? countRows(rs) : result;
+        }
+    }
+
+    private static ResultSet countRows(ResultSet target) {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats == null) {
+            return target;
+        }
+        return wrap(ResultSet.class, new Forwarding(target) {
+            @Override
+            Object handle(Method method, Object[] args) throws Throwable {
+                Object result = forward(method, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    stats.rowRead();
+                }
+                return result;
+            }
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.medivex.medicine.service.metrics;
+
+/**
+ * JDBC work done on the current thread while a controller method handles a request. Filled in by
+ * {@link InstrumentedDataSource} and read by {@link EndpointMetricsInterceptor}; absent outside
+ * requests, e.g. in scheduled jobs.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private long statements;
+    private long rows;
+    private long jdbcNanos;
+
+    private SqlRequestStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    static SqlRequestStats begin(String endpoint) {
+        SqlRequestStats stats = new SqlRequestStats(endpoint);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static SqlRequestStats current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    long statements() {
+        return statements;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    void statementExecuted(long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+    }
+
+    void rowRead() {
+        rows++;
+    }
+}
@@ -0,0 +1,239 @@
+package com.medivex.medicine.service.outbox;
+
+import com.medivex.medicine.service.entity.CatalogOutboxEvent;
+import com.medivex.medicine.service.repository.CatalogOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes outbox rows to the catalog exchange in id order. Rows are claimed for a short lease in
+ * one transaction, published and confirmed with no locks held, and marked published in a second
+ * transaction. A relay that finds the oldest rows claimed by another node waits for them, so order
+ * is kept across nodes. Delivery is at-least-once: a crash between broker confirm and marking, or
+ * a lease that runs out mid-publish, republishes the batch, so consumers should de-duplicate on the
+ * message id (the outbox id).
+ * <p>
+ * Backpressure: a batch whose confirms take longer than {@code slow-confirm}, or fail, halves the
+ * next batch size; a slow batch also pauses the relay for as long as the broker took, and fast
+ * batches grow it back. Failures back off exponentially up to {@code max-backoff}.
+ */
+@Component
+@Slf4j
+public class CatalogOutboxRelay {
+
+    private static final int MIN_BATCH_SIZE = 10;
+
+    private final CatalogOutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final String exchange;
+    private final int maxBatchSize;
+    private final Duration confirmTimeout;
+    private final Duration slowConfirm;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final Duration claimLease;
+
+    private final AtomicInteger batchSize;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Timer publishTimer;
+    private final Counter published;
+    private final Counter failures;
+    private int consecutiveFailures;
+    private long pausedUntil;
+
+    public CatalogOutboxRelay(CatalogOutboxRepository outboxRepository,
+                              RabbitTemplate rabbitTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${medicine.outbox.relay.enabled:true}") boolean enabled,
+                              @Value("${medicine.outbox.exchange:medivex.catalog}") String exchange,
+                              @Value("${medicine.outbox.relay.batch-size:200}") int maxBatchSize,
+                              @Value("${medicine.outbox.relay.confirm-timeout:10s}") Duration confirmTimeout,
+                              @Value("${medicine.outbox.relay.slow-confirm:1s}") Duration slowConfirm,
+                              @Value("${medicine.outbox.relay.max-backoff:60s}") Duration maxBackoff,
+                              @Value("${medicine.outbox.retention:24h}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.exchange = exchange;
+        this.maxBatchSize = Math.max(MIN_BATCH_SIZE, maxBatchSize);
+        this.confirmTimeout = confirmTimeout;
+        this.slowConfirm = slowConfirm;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        // long enough for a send plus a full confirm wait, so a live relay never loses its claim
+        this.claimLease = confirmTimeout.multipliedBy(3);
+        this.batchSize = new AtomicInteger(this.maxBatchSize);
+
+        this.publishTimer = Timer.builder("catalog.outbox.publish.batch").register(meterRegistry);
+        this.published = Counter.builder("catalog.outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("catalog.outbox.failures").register(meterRegistry);
+        Gauge.builder("catalog.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("catalog.outbox.lag", lagMillis, a -> a.get() / 1000.0).baseUnit("seconds").register(meterRegistry);
+        Gauge.builder("catalog.outbox.batch.size", batchSize, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.outbox.relay.interval-ms:500}")
+    public void relay() {
+        if (!enabled || System.currentTimeMillis() < pausedUntil) {
+            return;
+        }
+        try {
+            int size;
+            int sent;
+            do {
+                size = batchSize.get();
+                sent = publishBatch(size);
+            } while (sent == size && System.currentTimeMillis() >= pausedUntil);
+            consecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            consecutiveFailures++;
+            long backoff = backoffMillis(consecutiveFailures, maxBackoff);
+            pausedUntil = System.currentTimeMillis() + backoff;
+            log.warn("Catalog outbox relay failed ({} in a row), retrying in {} ms: {}", consecutiveFailures, backoff, e.getMessage());
+        } finally {
+            refreshLag();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.outbox.cleanup-interval-ms:3600000}")
+    public void purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Integer removed = transactionTemplate.execute(status -> outboxRepository.deletePublishedBefore(cutoff));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} published catalog outbox events", removed);
+        }
+    }
+
+    private int publishBatch(int size) {
+        List<CatalogOutboxEvent> batch = claim(size);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(CatalogOutboxEvent::getId).toList();
+        long start = System.nanoTime();
+        try {
+            rabbitTemplate.invoke(ops -> {
+                for (CatalogOutboxEvent e : batch) {
+                    ops.send(exchange, routingKey(e), toMessage(e));
+                }
+                ops.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            batchSize.updateAndGet(CatalogOutboxRelay::halve);
+            release(ids);
+            throw e;
+        }
+        long tookNanos = System.nanoTime() - start;
+        publishTimer.record(Duration.ofNanos(tookNanos));
+        adapt(Duration.ofNanos(tookNanos));
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.markPublished(ids, LocalDateTime.now()));
+        published.increment(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Claims up to {@code size} of the oldest unpublished rows, stopping at the first row another
+     * relay still holds a claim on.
+     */
+    private List<CatalogOutboxEvent> claim(int size) {
+        List<CatalogOutboxEvent> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<CatalogOutboxEvent> batch = new ArrayList<>(size);
+            for (CatalogOutboxEvent e : outboxRepository.lockUnpublished(PageRequest.of(0, size))) {
+                if (e.getClaimedUntil() != null && e.getClaimedUntil().isAfter(now)) {
+                    break;
+                }
+                batch.add(e);
+            }
+            if (!batch.isEmpty()) {
+                outboxRepository.claim(batch.stream().map(CatalogOutboxEvent::getId).toList(), now.plus(claimLease));
+            }
+            return batch;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private void release(List<Long> ids) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.release(ids));
+        } catch (RuntimeException e) {
+            // the lease runs out on its own
+            log.debug("Could not release outbox claim: {}", e.getMessage());
+        }
+    }
+
+    private void adapt(Duration took) {
+        if (took.compareTo(slowConfirm) > 0) {
+            batchSize.updateAndGet(CatalogOutboxRelay::halve);
+            pausedUntil = System.currentTimeMillis() + took.toMillis();
+        } else {
+            batchSize.updateAndGet(n -> Math.min(maxBatchSize, n + MIN_BATCH_SIZE));
+        }
+    }
+
+    private static int halve(int n) {
+        return Math.max(MIN_BATCH_SIZE, n / 2);
+    }
+
+    static long backoffMillis(int consecutiveFailures, Duration maxBackoff) {
+        return Math.min(maxBackoff.toMillis(), 500L << Math.min(consecutiveFailures, 16));
+    }
+
+    private void refreshLag() {
+        try {
+            pending.set(outboxRepository.countByPublishedAtIsNull());
+            LocalDateTime oldest = outboxRepository.findOldestUnpublishedCreatedAt();
+            lagMillis.set(oldest == null ? 0 : Math.max(0, oldest.until(LocalDateTime.now(), ChronoUnit.MILLIS)));
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh outbox lag: {}", e.getMessage());
+        }
+    }
+
+    private static String routingKey(CatalogOutboxEvent e) {
+        return "catalog." + e.getAggregateType() + "." + e.getEventType().toLowerCase(Locale.ROOT);
+    }
+
+    private static Message toMessage(CatalogOutboxEvent e) {
+        return MessageBuilder.withBody(e.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId(String.valueOf(e.getId()))
+                .setHeader("aggregateType", e.getAggregateType())
+                .setHeader("aggregateId", e.getAggregateId())
+                .setHeader("eventType", e.getEventType())
+                .build();
+    }
+}
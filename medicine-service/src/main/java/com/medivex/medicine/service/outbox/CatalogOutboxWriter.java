@@ -0,0 +1,108 @@
+package com.medivex.medicine.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medivex.medicine.service.entity.CatalogOutboxEvent;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.MedicineSnapshot;
+import com.medivex.medicine.service.event.StockLevelCrossedEvent;
+import com.medivex.medicine.service.repository.CatalogOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records catalog changes in the outbox table as part of the writing transaction, so an event
+ * exists if and only if the change committed. Publishing is left to {@link CatalogOutboxRelay}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogOutboxWriter {
+
+    public static final String MEDICINE = "medicine";
+    public static final String CATEGORY = "category";
+
+    private final CatalogOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        String type = medicineEventType(event.before(), event.after());
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", type);
+        payload.put("occurredAt", OffsetDateTime.now().toString());
+        payload.put("medicine", event.after());
+        append(MEDICINE, event.medicineId(), type, payload);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        String type = "CATEGORY_" + event.type().name();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", type);
+        payload.put("occurredAt", OffsetDateTime.now().toString());
+        payload.put("categoryId", event.categoryId());
+        append(CATEGORY, event.categoryId(), type, payload);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCategoryRetired(CategoryRetiredEvent event) {
+        String type = event.merged() ? "CATEGORY_MERGED" : "CATEGORY_RETIRED";
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", type);
+        payload.put("occurredAt", OffsetDateTime.now().toString());
+        payload.put("categoryId", event.categoryId());
+        payload.put("replacementCategoryId", event.replacementCategoryId());
+        payload.put("affectedMedicines", event.affectedMedicines());
+        append(CATEGORY, event.categoryId(), type, payload);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStockLevelCrossed(StockLevelCrossedEvent event) {
+        String type = "STOCK_" + event.current().name();
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", type);
+        payload.put("occurredAt", OffsetDateTime.now().toString());
+        payload.put("medicineId", event.medicineId());
+        payload.put("previous", event.previous());
+        payload.put("quantity", event.quantity());
+        payload.put("minimumStockLevel", event.minimumStockLevel());
+        payload.put("maximumStockLevel", event.maximumStockLevel());
+        append(MEDICINE, event.medicineId(), type, payload);
+    }
+
+    private void append(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        try {
+            outboxRepository.save(CatalogOutboxEvent.builder()
+                    .aggregateType(aggregateType)
+                    .aggregateId(aggregateId)
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog event", e);
+        }
+    }
+
+    private static String medicineEventType(MedicineSnapshot before, MedicineSnapshot after) {
+        if (before == null) {
+            return "MEDICINE_CREATED";
+        }
+        if (Boolean.TRUE.equals(before.active()) && !Boolean.TRUE.equals(after.active())) {
+            return "MEDICINE_DEACTIVATED";
+        }
+        return "MEDICINE_UPDATED";
+    }
+}
@@ -0,0 +1,45 @@
+package com.medivex.medicine.service.repository;
+
+import com.medivex.medicine.service.entity.CatalogOutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface CatalogOutboxRepository extends JpaRepository<CatalogOutboxEvent, Long> {
+
+    /**
+     * Oldest unpublished events, row-locked so that relays on other nodes wait instead of
+     * claiming the same rows. The lock is held only until the claim commits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from CatalogOutboxEvent e where e.publishedAt is null order by e.id")
+    List<CatalogOutboxEvent> lockUnpublished(Pageable pageable);
+
+    @Modifying
+    @Query("update CatalogOutboxEvent e set e.claimedUntil = :until where e.id in :ids")
+    int claim(Collection<Long> ids, LocalDateTime until);
+
+    @Modifying
+    @Query("update CatalogOutboxEvent e set e.claimedUntil = null where e.id in :ids")
+    int release(Collection<Long> ids);
+
+    long countByPublishedAtIsNull();
+
+    @Query("select min(e.createdAt) from CatalogOutboxEvent e where e.publishedAt is null")
+    LocalDateTime findOldestUnpublishedCreatedAt();
+
+    @Modifying
+    @Query("update CatalogOutboxEvent e set e.publishedAt = :publishedAt, e.claimedUntil = null where e.id in :ids")
+    int markPublished(Collection<Long> ids, LocalDateTime publishedAt);
+
+    @Modifying
+    @Query("delete from CatalogOutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(LocalDateTime before);
+}
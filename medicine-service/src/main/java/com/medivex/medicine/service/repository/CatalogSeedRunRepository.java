@@ -0,0 +1,7 @@
+package com.medivex.medicine.service.repository;
+
+import com.medivex.medicine.service.entity.CatalogSeedRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CatalogSeedRunRepository extends JpaRepository<CatalogSeedRun, String> {
+}
@@ -2,10 +2,19 @@ package com.medivex.medicine.service.repository;
 
 import com.medivex.medicine.service.entity.MedicineCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface MedicineCategoryRepository extends JpaRepository<MedicineCategory, Long> {
     Optional<MedicineCategory> findByNameIgnoreCase(String name);
     boolean existsByNameIgnoreCase(String name);
+
+    @Query("select count(c) > 0 from MedicineCategory c where c.createdAt <= :since and c.updatedAt > :since")
+    boolean existsModifiedSince(LocalDateTime since);
+
+    @Query("select c.id from MedicineCategory c")
+    List<Long> findAllIds();
 }
@@ -0,0 +1,19 @@
+package com.medivex.medicine.service.repository;
+
+/**
+ * The filters shared by the medicine list endpoints; a null component means "no restriction".
+ */
+public record MedicineFilter(String q, Long categoryId, Boolean prescriptionRequired, Boolean active) {
+
+    public static MedicineFilter all() {
+        return new MedicineFilter(null, null, null, null);
+    }
+
+    public static MedicineFilter activeOnly() {
+        return new MedicineFilter(null, null, null, true);
+    }
+
+    public static MedicineFilter category(Long categoryId) {
+        return new MedicineFilter(null, categoryId, null, null);
+    }
+}
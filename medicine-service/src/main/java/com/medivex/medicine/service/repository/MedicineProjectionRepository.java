@@ -0,0 +1,15 @@
+package com.medivex.medicine.service.repository;
+
+import com.medivex.medicine.service.dto.MedicineField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface MedicineProjectionRepository {
+
+    /**
+     * Selects only the given columns. Each row holds the values in the order of {@code fields}.
+     */
+    Page<Object[]> findProjected(List<MedicineField> fields, MedicineFilter filter, Pageable pageable);
+}
@@ -0,0 +1,126 @@
+package com.medivex.medicine.service.repository;
+
+import com.medivex.medicine.service.dto.MedicineField;
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.entity.MedicineCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+class MedicineProjectionRepositoryImpl implements MedicineProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Object[]> findProjected(List<MedicineField> fields, MedicineFilter filter, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Medicine> root = query.from(Medicine.class);
+        Paths paths = new Paths(root);
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (MedicineField f : fields) {
+            selections.add(paths.get(f.attribute(), f.needsCategoryJoin()));
+        }
+        query.multiselect(selections).where(predicates(cb, root, filter));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(orders(cb, paths, pageable.getSort()));
+        }
+
+        TypedQuery<Object[]> typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        // A single selection may come back as a bare value rather than a one-element array.
+        List<Object[]> rows = ((List<?>) typed.getResultList()).stream()
+                .map(r -> r instanceof Object[] a ? a : new Object[]{r})
+                .toList();
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(cb, filter));
+    }
+
+    private long count(CriteriaBuilder cb, MedicineFilter filter) {
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Medicine> root = query.from(Medicine.class);
+        query.select(cb.count(root)).where(predicates(cb, root, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<Medicine> root, MedicineFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.q() != null) {
+            String pattern = "%" + filter.q().toLowerCase(Locale.ROOT) + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(root.get("name")), pattern),
+                    cb.like(cb.lower(root.get("genericName")), pattern),
+                    cb.like(cb.lower(root.get("brandName")), pattern)));
+        }
+        if (filter.categoryId() != null) {
+            predicates.add(cb.equal(root.get("category").get("id"), filter.categoryId()));
+        }
+        if (filter.prescriptionRequired() != null) {
+            predicates.add(cb.equal(root.get("prescriptionRequired"), filter.prescriptionRequired()));
+        }
+        if (filter.active() != null) {
+            predicates.add(cb.equal(root.get("active"), filter.active()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private static List<Order> orders(CriteriaBuilder cb, Paths paths, Sort sort) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order o : sort) {
+            MedicineField f = MedicineField.fromJsonName(o.getProperty());
+            Expression<?> path = f != null
+                    ? paths.get(f.attribute(), f.needsCategoryJoin())
+                    : paths.get(o.getProperty(), false);
+            orders.add(o.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        return orders;
+    }
+
+    /**
+     * Resolves dotted attributes; the category is left-joined only when one of its non-key columns is needed.
+     */
+    private static final class Paths {
+        private final Root<Medicine> root;
+        private Join<Medicine, MedicineCategory> category;
+
+        Paths(Root<Medicine> root) {
+            this.root = root;
+        }
+
+        Path<?> get(String attribute, boolean join) {
+            String[] parts = attribute.split("\\.");
+            if (parts.length == 1) {
+                return root.get(parts[0]);
+            }
+            if (join) {
+                if (category == null) {
+                    category = root.join("category", JoinType.LEFT);
+                }
+                return category.get(parts[1]);
+            }
+            return root.get(parts[0]).get(parts[1]);
+        }
+    }
+}
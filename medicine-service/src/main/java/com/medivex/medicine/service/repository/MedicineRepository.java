@@ -2,23 +2,62 @@ package com.medivex.medicine.service.repository;
 
 import com.medivex.medicine.service.entity.Medicine;
 import com.medivex.medicine.service.entity.MedicineCategory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface MedicineRepository extends JpaRepository<Medicine, Long> {
+public interface MedicineRepository extends JpaRepository<Medicine, Long>, MedicineProjectionRepository {
 
     Optional<Medicine> findByMedicineCode(String medicineCode);
 
     Optional<Medicine> findByBarcode(String barcode);
 
+    boolean existsByCreatedBy(String createdBy);
+
     Page<Medicine> findByActiveTrue(Pageable pageable);
 
     Page<Medicine> findByCategory(MedicineCategory category, Pageable pageable);
 
+    @Query("select m from Medicine m left join fetch m.category where m.id in :ids")
+    List<Medicine> findAllWithCategoryByIdIn(Collection<Long> ids);
+
+    @Query("select m from Medicine m left join fetch m.category where m.id > :afterId order by m.id")
+    List<Medicine> findBatchAfter(long afterId, Limit limit);
+
+    @Query("select m.id from Medicine m where m.createdAt > :since or m.updatedAt > :since")
+    List<Long> findIdsChangedSince(LocalDateTime since);
+
+    @Query("select m.medicineCode from Medicine m where m.medicineCode in :codes")
+    List<String> findExistingMedicineCodes(Collection<String> codes);
+
+    @Query("select m from Medicine m left join fetch m.category where m.medicineCode in :codes")
+    List<Medicine> findAllWithCategoryByMedicineCodeIn(Collection<String> codes);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Medicine m set m.category = :target, m.version = m.version + 1, " +
+            "m.updatedAt = :now, m.updatedBy = :username where m.category = :source")
+    int reassignCategory(MedicineCategory source, MedicineCategory target, LocalDateTime now, String username);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Medicine m set m.active = false, m.category = null, m.version = m.version + 1, " +
+            "m.updatedAt = :now, m.updatedBy = :username where m.category = :source")
+    int deactivateByCategory(MedicineCategory source, LocalDateTime now, String username);
+
+    @Query("select m.id, m.minimumStockLevel, m.maximumStockLevel from Medicine m where m.id in :ids")
+    List<Object[]> stockThresholds(Collection<Long> ids);
+
+    @Query("select m.category.id, m.active, m.prescriptionRequired, m.price, count(m) from Medicine m " +
+            "where m.category is not null group by m.category.id, m.active, m.prescriptionRequired, m.price")
+    List<Object[]> categoryStatsRows();
+
     @Query("select m from Medicine m where " +
             "(:q is null or lower(m.name) like lower(concat('%',:q,'%')) " +
             "or lower(m.genericName) like lower(concat('%',:q,'%')) " +
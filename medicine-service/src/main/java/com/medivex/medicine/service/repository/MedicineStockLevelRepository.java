@@ -0,0 +1,30 @@
+package com.medivex.medicine.service.repository;
+
+import com.medivex.medicine.service.entity.MedicineStockLevel;
+import com.medivex.medicine.service.stock.StockState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface MedicineStockLevelRepository extends JpaRepository<MedicineStockLevel, Long> {
+
+    /**
+     * Adds to the stored quantity in the database, so concurrent writers on other instances are
+     * not overwritten. Returns 0 when the medicine has no row yet.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update MedicineStockLevel s set s.quantity = s.quantity + :delta, s.updatedAt = :now where s.medicineId = :medicineId")
+    int addQuantity(Long medicineId, int delta, LocalDateTime now);
+
+    /**
+     * Medicine id, stored quantity, minimum and maximum stock level of every medicine stored in
+     * {@code state}; with {@code includeUnstocked}, also of medicines that have no row (quantity 0).
+     */
+    @Query("select m.id, s.quantity, m.minimumStockLevel, m.maximumStockLevel from Medicine m " +
+            "left join MedicineStockLevel s on s.medicineId = m.id " +
+            "where s.state = :state or (s.medicineId is null and :includeUnstocked = true) order by m.id")
+    List<Object[]> findInState(StockState state, boolean includeUnstocked);
+}
@@ -0,0 +1,140 @@
+package com.medivex.medicine.service.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves token signing keys from user-service's JWKS, cached in memory so verification never
+ * leaves the process. A token naming a key not in the cache is rejected and the set is refreshed
+ * in the background; user-service publishes keys ahead of signing with them, so this only happens
+ * when a refresh was missed. Refreshes for unknown keys are rate limited, since anyone can send a
+ * token with a made-up kid.
+ */
+@Component
+@Slf4j
+public class JwksKeyResolver extends SigningKeyResolverAdapter {
+
+    private final RestClient restClient;
+    private final String jwksUri;
+    private final long refreshIntervalNanos;
+    private final long minRefreshIntervalNanos;
+    private final Key hmacKey;
+    private final Instant hmacSunset;
+    private final AtomicBoolean refreshRequested = new AtomicBoolean();
+    private final Counter refreshed;
+    private final Counter failed;
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile long lastRefresh;
+
+    public JwksKeyResolver(MeterRegistry meterRegistry,
+                           @Value("${jwt.jwks.uri}") String jwksUri,
+                           @Value("${jwt.jwks.refresh-interval:10m}") Duration refreshInterval,
+                           @Value("${jwt.jwks.min-refresh-interval:30s}") Duration minRefreshInterval,
+                           @Value("${jwt.secret:}") String legacySecret,
+                           @Value("${jwt.signing.hmac-accepted-until:}") String hmacAcceptedUntil) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofSeconds(2));
+        requestFactory.setReadTimeout(Duration.ofSeconds(5));
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.jwksUri = jwksUri;
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.minRefreshIntervalNanos = minRefreshInterval.toNanos();
+        // legacy HS256 tokens are accepted only with both the secret and a sunset configured
+        this.hmacSunset = hmacAcceptedUntil.isBlank() ? null : Instant.parse(hmacAcceptedUntil.trim());
+        this.hmacKey = legacySecret.isEmpty() || hmacSunset == null
+                ? null : Keys.hmacShaKeyFor(legacySecret.getBytes(StandardCharsets.UTF_8));
+        // due on the first poll
+        this.lastRefresh = System.nanoTime() - refreshIntervalNanos;
+        this.refreshed = Counter.builder("medicine.jwks.refresh").tag("result", "success").register(meterRegistry);
+        this.failed = Counter.builder("medicine.jwks.refresh").tag("result", "failure").register(meterRegistry);
+        Gauge.builder("medicine.jwks.keys", this, r -> r.keys.size()).register(meterRegistry);
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        if (header.getAlgorithm() != null && header.getAlgorithm().startsWith("HS")) {
+            if (hmacKey == null || !Instant.now().isBefore(hmacSunset)) {
+                throw new UnsupportedJwtException("HMAC-signed tokens are not accepted");
+            }
+            return hmacKey;
+        }
+        PublicKey key = header.getKeyId() != null ? keys.get(header.getKeyId()) : null;
+        if (key == null) {
+            refreshRequested.set(true);
+            throw new UnsupportedJwtException("Unknown signing key " + header.getKeyId());
+        }
+        return key;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.jwks.poll-interval-ms:1000}")
+    public void poll() {
+        long sinceLast = System.nanoTime() - lastRefresh;
+        if (sinceLast >= refreshIntervalNanos
+                || (sinceLast >= minRefreshIntervalNanos && refreshRequested.getAndSet(false))) {
+            refresh();
+        }
+    }
+
+    void refresh() {
+        lastRefresh = System.nanoTime();
+        refreshRequested.set(false);
+        try {
+            JsonNode jwks = restClient.get().uri(jwksUri).retrieve().body(JsonNode.class);
+            Map<String, PublicKey> loaded = parse(jwks);
+            if (!loaded.keySet().equals(keys.keySet())) {
+                log.info("Loaded {} signing keys from {}", loaded.size(), jwksUri);
+            }
+            keys = loaded;
+            refreshed.increment();
+        } catch (RuntimeException e) {
+            // keep verifying with the keys we have
+            failed.increment();
+            refreshRequested.set(true);
+            log.warn("Cannot refresh signing keys from {}: {}", jwksUri, e.getMessage());
+        }
+    }
+
+    static Map<String, PublicKey> parse(JsonNode jwks) {
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (JsonNode jwk : jwks.path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText()) || jwk.path("kid").isMissingNode()) {
+                continue;
+            }
+            try {
+                BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("n").asText()));
+                BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("e").asText()));
+                parsed.put(jwk.path("kid").asText(), KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping unusable signing key {}: {}", jwk.path("kid").asText(), e.getMessage());
+            }
+        }
+        return Map.copyOf(parsed);
+    }
+}
@@ -50,6 +50,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         .map(r -> r.startsWith("ROLE_") ? r : "ROLE_" + r)
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
+                // prefixed so a permission such as ROLE_READ cannot pass for a role
+                jwtTokenProvider.extractPermissions(claims).stream()
+                        .map(p -> new SimpleGrantedAuthority("PERM_" + p))
+                        .forEach(authorities::add);
                 var auth = new UsernamePasswordAuthenticationToken(username, null, authorities);
                 auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
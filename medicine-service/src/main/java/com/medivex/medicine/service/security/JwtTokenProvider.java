@@ -2,31 +2,27 @@ package com.medivex.medicine.service.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 @Component
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final JwtParser parser;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    public JwtTokenProvider(JwksKeyResolver keyResolver) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyResolver)
+                .build();
     }
 
     public Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 
     @SuppressWarnings("unchecked")
@@ -41,4 +37,34 @@ public class JwtTokenProvider {
         }
         return Collections.emptyList();
     }
+
+    /**
+     * Expands the compact {@code perms} claim issued by user-service: {@code MEDICINE:CR} stands
+     * for MEDICINE_CREATE and MEDICINE_READ, entries without a colon are permission names.
+     */
+    public List<String> extractPermissions(Claims claims) {
+        if (!(claims.get("perms") instanceof List<?> entries)) {
+            return Collections.emptyList();
+        }
+        List<String> permissions = new ArrayList<>();
+        for (Object entry : entries) {
+            String value = String.valueOf(entry);
+            int colon = value.indexOf(':');
+            if (colon < 0) {
+                permissions.add(value);
+                continue;
+            }
+            String resource = value.substring(0, colon);
+            for (char action : value.substring(colon + 1).toCharArray()) {
+                switch (action) {
+                    case 'C' -> permissions.add(resource + "_CREATE");
+                    case 'R' -> permissions.add(resource + "_READ");
+                    case 'U' -> permissions.add(resource + "_UPDATE");
+                    case 'D' -> permissions.add(resource + "_DELETE");
+                    default -> { }
+                }
+            }
+        }
+        return permissions;
+    }
 }
@@ -1,13 +1,18 @@
 package com.medivex.medicine.service.service;
 
 import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
 import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.NoSuchElementException;
 
 @Service
@@ -16,7 +21,10 @@ import java.util.NoSuchElementException;
 public class MedicineCategoryService {
 
     private final MedicineCategoryRepository categoryRepository;
+    private final MedicineRepository medicineRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public Page<MedicineCategory> list(Pageable pageable) {
         return categoryRepository.findAll(pageable);
     }
@@ -25,7 +33,9 @@ public class MedicineCategoryService {
         if (categoryRepository.existsByNameIgnoreCase(category.getName())) {
             throw new IllegalArgumentException("Category name already exists");
         }
-        return categoryRepository.save(category);
+        MedicineCategory saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId(), CategoryChangedEvent.Type.CREATED));
+        return saved;
     }
 
     public MedicineCategory update(Long id, MedicineCategory update) {
@@ -40,16 +50,45 @@ public class MedicineCategoryService {
         if (update.getDescription() != null) {
             existing.setDescription(update.getDescription());
         }
-        return categoryRepository.save(existing);
+        MedicineCategory saved = categoryRepository.save(existing);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, CategoryChangedEvent.Type.UPDATED));
+        return saved;
     }
 
-    public void delete(Long id) {
-        if (!categoryRepository.existsById(id)) {
-            throw new NoSuchElementException("Category not found");
+    /**
+     * Deletes a category, deactivating its medicines and detaching them from it.
+     */
+    public int delete(Long id, String username) {
+        return retire(id, null, username);
+    }
+
+    /**
+     * Moves every medicine of a category into {@code replacementId} (or deactivates them when it is
+     * null) with one UPDATE statement, then deletes the category. Versions are bumped so
+     * concurrent edits of an affected medicine fail their optimistic lock instead of undoing the
+     * move. Returns the number of medicines affected.
+     */
+    public int retire(Long id, Long replacementId, String username) {
+        MedicineCategory source = categoryRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Category not found"));
+        LocalDateTime now = LocalDateTime.now();
+        int affected;
+        if (replacementId != null) {
+            if (replacementId.equals(id)) {
+                throw new IllegalArgumentException("Cannot merge a category into itself");
+            }
+            MedicineCategory target = categoryRepository.findById(replacementId)
+                    .orElseThrow(() -> new NoSuchElementException("Replacement category not found"));
+            affected = medicineRepository.reassignCategory(source, target, now, username);
+        } else {
+            affected = medicineRepository.deactivateByCategory(source, now, username);
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new CategoryRetiredEvent(id, replacementId, affected));
+        return affected;
     }
 
+    @Transactional(readOnly = true)
     public MedicineCategory get(Long id) {
         return categoryRepository.findById(id)
                 .orElseThrow(() -> new NoSuchElementException("Category not found"));
@@ -0,0 +1,50 @@
+package com.medivex.medicine.service.service;
+
+import com.medivex.medicine.service.cache.MedicineSearchKey;
+import com.medivex.medicine.service.cache.SingleFlight;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Sits in front of {@link MedicineService} reads so that identical concurrent requests share one
+ * transaction and one query. Followers never open a transaction of their own while waiting.
+ */
+@Component
+public class MedicineReadCoalescer {
+
+    private final MedicineService medicineService;
+    private final boolean enabled;
+    private final SingleFlight<Long, MedicineResponse> getFlight;
+    private final SingleFlight<MedicineSearchKey, Page<MedicineResponse>> searchFlight;
+
+    public MedicineReadCoalescer(MedicineService medicineService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${medicine.coalescing.enabled:true}") boolean enabled,
+                                 @Value("${medicine.coalescing.max-wait:2s}") Duration maxWait) {
+        this.medicineService = medicineService;
+        this.enabled = enabled;
+        this.getFlight = new SingleFlight<>("get", maxWait, meterRegistry);
+        this.searchFlight = new SingleFlight<>("search", maxWait, meterRegistry);
+    }
+
+    public MedicineResponse get(Long id) {
+        if (!enabled) {
+            return medicineService.get(id);
+        }
+        return getFlight.load(id, () -> medicineService.get(id));
+    }
+
+    public Page<MedicineResponse> search(String q, Long categoryId, Boolean prescriptionRequired, Boolean active, Pageable pageable) {
+        if (!enabled) {
+            return medicineService.search(q, categoryId, prescriptionRequired, active, pageable);
+        }
+        MedicineSearchKey key = MedicineSearchKey.of(q, categoryId, prescriptionRequired, active, pageable);
+        return searchFlight.load(key, () -> medicineService.search(q, categoryId, prescriptionRequired, active, pageable));
+    }
+}
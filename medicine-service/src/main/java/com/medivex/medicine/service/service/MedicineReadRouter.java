@@ -0,0 +1,88 @@
+package com.medivex.medicine.service.service;
+
+import com.medivex.medicine.service.catalog.MedicineCatalog;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetRequest;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetResponse;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Entry point for the full-representation medicine reads. Answers from the configured
+ * {@link MedicineCatalog} store once it is loaded, and from the database (through the coalescer
+ * where it applies) when no store is configured, it is still loading, or it declines a query.
+ */
+@Component
+public class MedicineReadRouter {
+
+    private final MedicineService medicineService;
+    private final MedicineReadCoalescer readCoalescer;
+    private final MedicineCatalog catalog;
+    private final int bulkGetMaxItems;
+
+    public MedicineReadRouter(MedicineService medicineService,
+                              MedicineReadCoalescer readCoalescer,
+                              ObjectProvider<MedicineCatalog> catalog,
+                              @Value("${medicine.bulk-get.max-items:200}") int bulkGetMaxItems) {
+        this.medicineService = medicineService;
+        this.readCoalescer = readCoalescer;
+        this.catalog = catalog.getIfAvailable();
+        this.bulkGetMaxItems = bulkGetMaxItems;
+    }
+
+    public Page<MedicineResponse> list(Pageable pageable) {
+        return fromCatalog(MedicineFilter.all(), pageable).orElseGet(() -> medicineService.list(pageable));
+    }
+
+    public Page<MedicineResponse> listActive(Pageable pageable) {
+        return fromCatalog(MedicineFilter.activeOnly(), pageable).orElseGet(() -> medicineService.listActive(pageable));
+    }
+
+    public MedicineResponse get(Long id) {
+        if (ready()) {
+            return catalog.findById(id).orElseThrow(() -> new NoSuchElementException("Medicine not found"));
+        }
+        return readCoalescer.get(id);
+    }
+
+    public Page<MedicineResponse> search(String q, Long categoryId, Boolean prescriptionRequired, Boolean active, Pageable pageable) {
+        return fromCatalog(new MedicineFilter(q, categoryId, prescriptionRequired, active), pageable)
+                .orElseGet(() -> readCoalescer.search(q, categoryId, prescriptionRequired, active, pageable));
+    }
+
+    public Page<MedicineResponse> byCategory(Long categoryId, Pageable pageable) {
+        if (ready() && !catalog.hasCategory(categoryId)) {
+            throw new NoSuchElementException("Category not found");
+        }
+        return fromCatalog(MedicineFilter.category(categoryId), pageable)
+                .orElseGet(() -> medicineService.medicinesByCategory(categoryId, pageable));
+    }
+
+    public MedicineBulkGetResponse bulkGet(MedicineBulkGetRequest req) {
+        if (!ready()) {
+            return medicineService.bulkGet(req);
+        }
+        MedicineService.checkBulkGet(req, bulkGetMaxItems);
+        return MedicineService.bulkGetResponse(
+                req.getIds() != null ? req.getIds() : List.of(),
+                req.getMedicineCodes() != null ? req.getMedicineCodes() : List.of(),
+                id -> catalog.findById(id).orElse(null),
+                code -> catalog.findByCode(code).orElse(null));
+    }
+
+    private Optional<Page<MedicineResponse>> fromCatalog(MedicineFilter filter, Pageable pageable) {
+        return ready() ? catalog.query(filter, pageable) : Optional.empty();
+    }
+
+    private boolean ready() {
+        return catalog != null && catalog.isReady();
+    }
+}
@@ -1,19 +1,41 @@
 package com.medivex.medicine.service.service;
 
+import com.medivex.medicine.service.cache.MedicineSearchCache;
+import com.medivex.medicine.service.cache.MedicineSearchKey;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetItem;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetRequest;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetResponse;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineCompactPage;
 import com.medivex.medicine.service.dto.MedicineDtos.MedicineCreateRequest;
 import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
 import com.medivex.medicine.service.dto.MedicineDtos.MedicineUpdateRequest;
+import com.medivex.medicine.service.dto.MedicineField;
 import com.medivex.medicine.service.entity.Medicine;
 import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.MedicineSnapshot;
 import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineFilter;
 import com.medivex.medicine.service.repository.MedicineRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,15 +44,26 @@ public class MedicineService {
 
     private final MedicineRepository medicineRepository;
     private final MedicineCategoryRepository categoryRepository;
+    private final MedicineSearchCache searchCache;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value("${medicine.bulk-get.max-items:200}")
+    private int bulkGetMaxItems;
+
+    @Value("${medicine.bulk-get.batch-size:100}")
+    private int bulkGetBatchSize;
+
+    @Transactional(readOnly = true)
     public Page<MedicineResponse> list(Pageable pageable) {
         return medicineRepository.findAll(pageable).map(this::toResponse);
     }
 
+    @Transactional(readOnly = true)
     public Page<MedicineResponse> listActive(Pageable pageable) {
         return medicineRepository.findByActiveTrue(pageable).map(this::toResponse);
     }
 
+    @Transactional(readOnly = true)
     public MedicineResponse get(Long id) {
         Medicine m = medicineRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Medicine not found"));
         return toResponse(m);
@@ -62,11 +95,13 @@ public class MedicineService {
         m.setActive(req.getActive() == null ? true : req.getActive());
         m.setCreatedBy(username);
         Medicine saved = medicineRepository.save(m);
+        eventPublisher.publishEvent(new MedicineChangedEvent(saved.getId(), null, MedicineSnapshot.of(saved)));
         return toResponse(saved);
     }
 
     public MedicineResponse update(Long id, MedicineUpdateRequest req, String username) {
         Medicine m = medicineRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Medicine not found"));
+        MedicineSnapshot before = MedicineSnapshot.of(m);
         if (req.getName() != null) m.setName(req.getName());
         if (req.getGenericName() != null) m.setGenericName(req.getGenericName());
         if (req.getBrandName() != null) m.setBrandName(req.getBrandName());
@@ -97,24 +132,176 @@ public class MedicineService {
         if (req.getActive() != null) m.setActive(req.getActive());
         m.setUpdatedBy(username);
         Medicine saved = medicineRepository.save(m);
+        eventPublisher.publishEvent(new MedicineChangedEvent(id, before, MedicineSnapshot.of(saved)));
         return toResponse(saved);
     }
 
     public void softDelete(Long id, String username) {
         Medicine m = medicineRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Medicine not found"));
+        MedicineSnapshot before = MedicineSnapshot.of(m);
         m.setActive(false);
         m.setUpdatedBy(username);
-        medicineRepository.save(m);
+        Medicine saved = medicineRepository.save(m);
+        eventPublisher.publishEvent(new MedicineChangedEvent(id, before, MedicineSnapshot.of(saved)));
     }
 
+    @Transactional(readOnly = true)
     public Page<MedicineResponse> medicinesByCategory(Long categoryId, Pageable pageable) {
         MedicineCategory category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new NoSuchElementException("Category not found"));
         return medicineRepository.findByCategory(category, pageable).map(this::toResponse);
     }
 
+    @Transactional(readOnly = true)
     public Page<MedicineResponse> search(String q, Long categoryId, Boolean prescriptionRequired, Boolean active, Pageable pageable) {
-        return medicineRepository.search(q, categoryId, prescriptionRequired, active, pageable).map(this::toResponse);
+        MedicineSearchKey key = MedicineSearchKey.of(q, categoryId, prescriptionRequired, active, pageable);
+        MedicineSearchCache.Ids cached = searchCache.get(key);
+        if (cached != null) {
+            List<Medicine> rows = loadInOrder(cached.ids());
+            if (rows != null) {
+                return new PageImpl<>(rows, pageable, cached.total()).map(this::toResponse);
+            }
+            searchCache.invalidate(key);
+        }
+        long generation = searchCache.generation();
+        Page<Medicine> page = medicineRepository.search(q, categoryId, prescriptionRequired, active, pageable);
+        List<Long> ids = page.getContent().stream().map(Medicine::getId).toList();
+        searchCache.put(key, new MedicineSearchCache.Ids(ids, page.getTotalElements()), generation);
+        return page.map(this::toResponse);
+    }
+
+    /**
+     * Sparse representation: only the requested columns are selected, one map per medicine.
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> listFields(MedicineFilter filter, List<MedicineField> fields, Pageable pageable) {
+        return medicineRepository.findProjected(fields, filter, pageable).map(row -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                values.put(fields.get(i).jsonName(), fields.get(i).present(row[i]));
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Compact representation: only the requested columns are selected, one array per medicine.
+     */
+    @Transactional(readOnly = true)
+    public MedicineCompactPage listCompact(MedicineFilter filter, List<MedicineField> fields, Pageable pageable) {
+        Page<Object[]> page = medicineRepository.findProjected(fields, filter, pageable);
+        for (Object[] row : page.getContent()) {
+            for (int i = 0; i < fields.size(); i++) {
+                row[i] = fields.get(i).present(row[i]);
+            }
+        }
+        return MedicineCompactPage.builder()
+                .fields(fields.stream().map(MedicineField::jsonName).toList())
+                .rows(page.getContent())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .build();
+    }
+
+    /**
+     * Resolves ids and medicine codes with one IN query per batch, category fetch-joined.
+     * Items come back in request order; duplicates are queried once.
+     */
+    @Transactional(readOnly = true)
+    public MedicineBulkGetResponse bulkGet(MedicineBulkGetRequest req) {
+        checkBulkGet(req, bulkGetMaxItems);
+        List<Long> ids = req.getIds() != null ? req.getIds() : List.of();
+        List<String> codes = req.getMedicineCodes() != null ? req.getMedicineCodes() : List.of();
+        Map<Long, Medicine> byId = loadBatched(new LinkedHashSet<>(ids), medicineRepository::findAllWithCategoryByIdIn, Medicine::getId);
+        Map<String, Medicine> byCode = loadBatched(new LinkedHashSet<>(codes), medicineRepository::findAllWithCategoryByMedicineCodeIn, Medicine::getMedicineCode);
+        return bulkGetResponse(ids, codes,
+                id -> byId.containsKey(id) ? toResponse(byId.get(id)) : null,
+                code -> byCode.containsKey(code) ? toResponse(byCode.get(code)) : null);
+    }
+
+    static void checkBulkGet(MedicineBulkGetRequest req, int maxItems) {
+        int ids = req.getIds() != null ? req.getIds().size() : 0;
+        int codes = req.getMedicineCodes() != null ? req.getMedicineCodes().size() : 0;
+        if (ids == 0 && codes == 0) {
+            throw new IllegalArgumentException("Provide at least one id or medicine code");
+        }
+        if (ids + codes > maxItems) {
+            throw new IllegalArgumentException("At most " + maxItems + " ids and medicine codes per request");
+        }
+    }
+
+    /**
+     * One item per requested id and code, in request order; a lookup returning null marks it missing.
+     */
+    static MedicineBulkGetResponse bulkGetResponse(List<Long> ids, List<String> codes,
+                                                   Function<Long, MedicineResponse> byId,
+                                                   Function<String, MedicineResponse> byCode) {
+        List<MedicineBulkGetItem> items = new ArrayList<>(ids.size() + codes.size());
+        for (Long id : ids) {
+            MedicineResponse m = byId.apply(id);
+            items.add(MedicineBulkGetItem.builder()
+                    .id(id)
+                    .medicineCode(m != null ? m.getMedicineCode() : null)
+                    .found(m != null)
+                    .medicine(m)
+                    .build());
+        }
+        for (String code : codes) {
+            MedicineResponse m = byCode.apply(code);
+            items.add(MedicineBulkGetItem.builder()
+                    .id(m != null ? m.getId() : null)
+                    .medicineCode(code)
+                    .found(m != null)
+                    .medicine(m)
+                    .build());
+        }
+        int found = (int) items.stream().filter(MedicineBulkGetItem::isFound).count();
+        return MedicineBulkGetResponse.builder()
+                .items(items)
+                .found(found)
+                .missing(items.size() - found)
+                .build();
+    }
+
+    private <K> Map<K, Medicine> loadBatched(Collection<K> keys, Function<List<K>, List<Medicine>> query, Function<Medicine, K> keyOf) {
+        Map<K, Medicine> result = new HashMap<>();
+        List<K> all = new ArrayList<>(keys);
+        for (int from = 0; from < all.size(); from += bulkGetBatchSize) {
+            List<K> batch = all.subList(from, Math.min(from + bulkGetBatchSize, all.size()));
+            for (Medicine m : query.apply(batch)) {
+                result.put(keyOf.apply(m), m);
+            }
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public void requireCategory(Long categoryId) {
+        if (!categoryRepository.existsById(categoryId)) {
+            throw new NoSuchElementException("Category not found");
+        }
+    }
+
+    /**
+     * Loads medicines with their category in one query, in the order given. Returns null if any id is gone.
+     */
+    private List<Medicine> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Medicine> byId = medicineRepository.findAllWithCategoryByIdIn(ids).stream()
+                .collect(Collectors.toMap(Medicine::getId, Function.identity()));
+        List<Medicine> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Medicine m = byId.get(id);
+            if (m == null) {
+                return null;
+            }
+            ordered.add(m);
+        }
+        return ordered;
     }
 
     private MedicineResponse toResponse(Medicine m) {
@@ -131,6 +318,7 @@ public class MedicineService {
                 .dosageForm(m.getDosageForm())
                 .strength(m.getStrength())
                 .unitOfMeasure(m.getUnitOfMeasure())
+                .price(m.getPrice())
                 .prescriptionRequired(Boolean.TRUE.equals(m.getPrescriptionRequired()))
                 .minimumStockLevel(m.getMinimumStockLevel())
                 .maximumStockLevel(m.getMaximumStockLevel())
@@ -0,0 +1,93 @@
+package com.medivex.medicine.service.stats;
+
+import com.medivex.medicine.service.dto.CategoryDtos.CategoryStatsResponse;
+import com.medivex.medicine.service.event.MedicineSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals for one category. Prices are kept as a value-to-count multiset so min and max
+ * stay exact when a medicine is removed or repriced. Updates are additive, so events applied out
+ * of order converge to the same state.
+ */
+final class CategoryAggregate {
+
+    private long medicines;
+    private long active;
+    private long prescription;
+    private BigDecimal priceSum = BigDecimal.ZERO;
+    private long priced;
+    private final TreeMap<BigDecimal, Long> prices = new TreeMap<>();
+
+    synchronized void add(MedicineSnapshot m) {
+        apply(Boolean.TRUE.equals(m.active()), Boolean.TRUE.equals(m.prescriptionRequired()), m.price(), 1);
+    }
+
+    synchronized void remove(MedicineSnapshot m) {
+        apply(Boolean.TRUE.equals(m.active()), Boolean.TRUE.equals(m.prescriptionRequired()), m.price(), -1);
+    }
+
+    synchronized void apply(boolean isActive, boolean isPrescription, BigDecimal price, long n) {
+        medicines += n;
+        if (isActive) {
+            active += n;
+        }
+        if (isPrescription) {
+            prescription += n;
+        }
+        if (price != null) {
+            priceSum = priceSum.add(price.multiply(BigDecimal.valueOf(n)));
+            priced += n;
+            prices.merge(price, n, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    synchronized void absorb(CategoryAggregate other) {
+        synchronized (other) {
+            medicines += other.medicines;
+            active += other.active;
+            prescription += other.prescription;
+            priceSum = priceSum.add(other.priceSum);
+            priced += other.priced;
+            other.prices.forEach((price, n) -> prices.merge(price, n, (a, b) -> a + b == 0 ? null : a + b));
+        }
+    }
+
+    synchronized boolean sameAs(CategoryAggregate other) {
+        synchronized (other) {
+            return medicines == other.medicines
+                    && active == other.active
+                    && prescription == other.prescription
+                    && priced == other.priced
+                    && priceSum.compareTo(other.priceSum) == 0
+                    && prices.equals(other.prices);
+        }
+    }
+
+    synchronized CategoryStatsResponse toResponse(Long categoryId) {
+        return CategoryStatsResponse.builder()
+                .categoryId(categoryId)
+                .medicineCount(medicines)
+                .activeCount(active)
+                .inactiveCount(medicines - active)
+                .prescriptionCount(prescription)
+                .otcCount(medicines - prescription)
+                .minPrice(bound(prices.entrySet()))
+                .maxPrice(bound(prices.descendingMap().entrySet()))
+                .avgPrice(priced > 0 ? priceSum.divide(BigDecimal.valueOf(priced), 2, RoundingMode.HALF_UP) : null)
+                .build();
+    }
+
+    // a key can briefly hold a negative count while a remove overtakes its add
+    private static BigDecimal bound(Iterable<Map.Entry<BigDecimal, Long>> entries) {
+        for (Map.Entry<BigDecimal, Long> e : entries) {
+            if (e.getValue() > 0) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+}
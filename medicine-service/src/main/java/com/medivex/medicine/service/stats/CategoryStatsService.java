@@ -0,0 +1,212 @@
+package com.medivex.medicine.service.stats;
+
+import com.medivex.medicine.service.dto.CategoryDtos.CategoryStatsResponse;
+import com.medivex.medicine.service.event.CatalogBulkChangedEvent;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.MedicineSnapshot;
+import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Per-category medicine statistics served from memory. Aggregates are adjusted from committed
+ * medicine and category events; a periodic reconciliation recomputes them with one GROUP BY query
+ * and replaces the in-memory state, counting any drift it corrects. Bulk writes (seeding) only
+ * mark the state dirty so it is recomputed once rather than per chunk.
+ */
+@Component
+@Slf4j
+public class CategoryStatsService {
+
+    private final MedicineRepository medicineRepository;
+    private final MedicineCategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter drift;
+    // events take the read lock, the reconciliation swap takes the write lock
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private volatile Map<Long, CategoryAggregate> stats = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public CategoryStatsService(MedicineRepository medicineRepository,
+                                MedicineCategoryRepository categoryRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.medicineRepository = medicineRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.drift = Counter.builder("medicine.category.stats.drift")
+                .description("Categories whose incremental statistics differed from the database")
+                .register(meterRegistry);
+        Gauge.builder("medicine.category.stats.categories", this, s -> s.stats.size()).register(meterRegistry);
+    }
+
+    public List<CategoryStatsResponse> list() {
+        return stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .map(e -> e.getValue().toResponse(e.getKey()))
+                .toList();
+    }
+
+    public CategoryStatsResponse get(Long categoryId) {
+        CategoryAggregate aggregate = stats.get(categoryId);
+        if (aggregate == null) {
+            throw new NoSuchElementException("Category not found");
+        }
+        return aggregate.toResponse(categoryId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        update(s -> {
+            MedicineSnapshot before = event.before();
+            MedicineSnapshot after = event.after();
+            if (before != null && before.categoryId() != null) {
+                aggregate(s, before.categoryId()).remove(before);
+            }
+            if (after != null && after.categoryId() != null) {
+                aggregate(s, after.categoryId()).add(after);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        update(s -> {
+            switch (event.type()) {
+                case CREATED -> aggregate(s, event.categoryId());
+                case DELETED -> s.remove(event.categoryId());
+                case UPDATED -> { }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryRetired(CategoryRetiredEvent event) {
+        update(s -> {
+            CategoryAggregate removed = s.remove(event.categoryId());
+            if (removed != null && event.merged()) {
+                aggregate(s, event.replacementCategoryId()).absorb(removed);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogBulkChanged(CatalogBulkChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.category-stats.dirty-check-ms:10000}")
+    public void reconcileIfDirty() {
+        if (dirty.get()) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.category-stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${medicine.category-stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        long writesAtStart = writes.get();
+        dirty.set(false);
+        Map<Long, CategoryAggregate> fresh;
+        try {
+            fresh = load();
+        } catch (RuntimeException e) {
+            log.warn("Category statistics reconciliation failed: {}", e.getMessage());
+            dirty.set(true);
+            return;
+        }
+        swapLock.writeLock().lock();
+        try {
+            if (writes.get() != writesAtStart) {
+                // an event landed while loading; its effect may or may not be in the result
+                dirty.set(true);
+                return;
+            }
+            int drifted = loaded ? countDrift(stats, fresh) : 0;
+            if (drifted > 0) {
+                drift.increment(drifted);
+                log.info("Category statistics reconciled; corrected {} categories", drifted);
+            }
+            stats = fresh;
+            loaded = true;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, CategoryAggregate> load() {
+        // a read-write transaction keeps the reconciliation on the primary rather than a lagging replica
+        return transactionTemplate.execute(status -> {
+            Map<Long, CategoryAggregate> fresh = new ConcurrentHashMap<>();
+            for (Long id : categoryRepository.findAllIds()) {
+                fresh.put(id, new CategoryAggregate());
+            }
+            for (Object[] row : medicineRepository.categoryStatsRows()) {
+                fresh.computeIfAbsent((Long) row[0], id -> new CategoryAggregate())
+                        .apply(Boolean.TRUE.equals(row[1]), Boolean.TRUE.equals(row[2]), (BigDecimal) row[3], (Long) row[4]);
+            }
+            return fresh;
+        });
+    }
+
+    private void update(Consumer<Map<Long, CategoryAggregate>> change) {
+        swapLock.readLock().lock();
+        try {
+            writes.incrementAndGet();
+            change.accept(stats);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static CategoryAggregate aggregate(Map<Long, CategoryAggregate> s, Long categoryId) {
+        return s.computeIfAbsent(categoryId, id -> new CategoryAggregate());
+    }
+
+    private static int countDrift(Map<Long, CategoryAggregate> current, Map<Long, CategoryAggregate> fresh) {
+        Set<Long> ids = new HashSet<>(current.keySet());
+        ids.addAll(fresh.keySet());
+        int drifted = 0;
+        for (Long id : ids) {
+            CategoryAggregate a = current.get(id);
+            CategoryAggregate b = fresh.get(id);
+            if (a == null || b == null || !a.sameAs(b)) {
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+}
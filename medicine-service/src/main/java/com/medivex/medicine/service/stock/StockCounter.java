@@ -0,0 +1,111 @@
+package com.medivex.medicine.service.stock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock-free quantity and state for one medicine. Quantity changes are CAS loops; the state is
+ * moved with a CAS from the state the caller observed, so concurrent updates agree on a single
+ * winner for each crossing. {@code persisted} is the database quantity this node last saw; the
+ * difference is what this node has not written yet. It is only changed by the engine's flush and
+ * refresh, which do not overlap.
+ */
+final class StockCounter {
+
+    private final AtomicInteger quantity;
+    private final AtomicReference<StockState> state;
+    private volatile int persisted;
+    private volatile int minimum;
+    // null when the medicine has no maximum stock level
+    private volatile Integer maximum;
+
+    StockCounter(int quantity, int minimum, Integer maximum) {
+        this.quantity = new AtomicInteger(quantity);
+        this.persisted = quantity;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.state = new AtomicReference<>(classify(quantity));
+    }
+
+    int quantity() {
+        return quantity.get();
+    }
+
+    StockState state() {
+        return state.get();
+    }
+
+    int minimum() {
+        return minimum;
+    }
+
+    Integer maximum() {
+        return maximum;
+    }
+
+    void set(int value) {
+        quantity.set(value);
+    }
+
+    /**
+     * Adds {@code delta}; fails without changing anything when the result would be negative.
+     */
+    int add(int delta) {
+        while (true) {
+            int current = quantity.get();
+            int next = current + delta;
+            if (next < 0) {
+                throw new IllegalArgumentException("Insufficient stock: " + current + " available");
+            }
+            if (quantity.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Change made on this node since the last sync, to be added to the stored quantity.
+     */
+    int unpersisted() {
+        return quantity.get() - persisted;
+    }
+
+    /**
+     * Records that {@code written} was added to the stored quantity, which is now {@code actual}.
+     * Whatever other instances added in between is applied here too, keeping later local changes.
+     */
+    void synced(int written, int actual) {
+        quantity.addAndGet(actual - (persisted + written));
+        persisted = actual;
+    }
+
+    void thresholds(int minimum, Integer maximum) {
+        this.minimum = minimum;
+        this.maximum = maximum;
+    }
+
+    /**
+     * Moves the state to match the current quantity. Returns the state it left when this call
+     * performed a transition, or null when there was nothing to do or another thread did it.
+     */
+    StockState transition() {
+        while (true) {
+            StockState observed = state.get();
+            StockState target = classify(quantity.get());
+            if (observed == target) {
+                return null;
+            }
+            if (state.compareAndSet(observed, target)) {
+                return observed;
+            }
+        }
+    }
+
+    StockState classify(int value) {
+        if (value <= minimum) {
+            return StockState.LOW;
+        }
+        Integer max = maximum;
+        return max != null && value > max ? StockState.OVER : StockState.NORMAL;
+    }
+}
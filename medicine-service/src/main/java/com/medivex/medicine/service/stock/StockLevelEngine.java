@@ -0,0 +1,404 @@
+package com.medivex.medicine.service.stock;
+
+import com.medivex.medicine.service.dto.StockDtos.StockLevelResponse;
+import com.medivex.medicine.service.dto.StockDtos.StockUpdate;
+import com.medivex.medicine.service.dto.StockDtos.StockUpdateBatchResponse;
+import com.medivex.medicine.service.entity.MedicineStockLevel;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.StockLevelCrossedEvent;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import com.medivex.medicine.service.repository.MedicineStockLevelRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Evaluates stock quantities against each medicine's minimum and maximum stock levels without a
+ * database round trip per update. Counters live in a concurrent map and are updated with CAS, so
+ * updates to different medicines never contend and updates to the same medicine never block.
+ * A crossing of either level is detected by the update that caused it and queued as a
+ * {@link StockLevelCrossedEvent}.
+ *
+ * <p>Quantities are persisted write-behind: the flush job adds the change each medicine saw on this
+ * node since the last flush to the stored quantity with a single {@code quantity = quantity + ?}
+ * update, and publishes the queued crossings in the same transaction, so the outbox records a
+ * crossing together with the quantity that caused it. Instances therefore never overwrite each
+ * other's changes; each counter picks up what other instances wrote when it is flushed, and the
+ * refresh job does the same for counters with nothing to flush. Until then a counter, and the
+ * below-zero check made against it, can be behind other instances by up to the refresh interval.
+ * A quantity set is stored as the difference from this node's view. Updates not yet flushed are
+ * lost if the process dies; shutdown flushes them.
+ */
+@Component
+@Slf4j
+public class StockLevelEngine implements DisposableBean {
+
+    private final MedicineRepository medicineRepository;
+    private final MedicineStockLevelRepository stockLevelRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultMinimum;
+    private final int flushBatchSize;
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<Long> thresholdsChanged = ConcurrentHashMap.newKeySet();
+    private final Queue<StockLevelCrossedEvent> crossings = new ConcurrentLinkedQueue<>();
+    private final Counter updates;
+    private final Map<StockState, Counter> crossingCounters = new EnumMap<>(StockState.class);
+    private final Timer flushTimer;
+
+    public StockLevelEngine(MedicineRepository medicineRepository,
+                            MedicineStockLevelRepository stockLevelRepository,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${medicine.stock.default-minimum:10}") int defaultMinimum,
+                            @Value("${medicine.stock.flush-batch-size:500}") int flushBatchSize) {
+        this.medicineRepository = medicineRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.defaultMinimum = defaultMinimum;
+        this.flushBatchSize = flushBatchSize;
+        this.updates = Counter.builder("medicine.stock.updates").register(meterRegistry);
+        for (StockState state : StockState.values()) {
+            crossingCounters.put(state, Counter.builder("medicine.stock.crossings")
+                    .tag("to", state.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.flushTimer = Timer.builder("medicine.stock.flush").register(meterRegistry);
+        Gauge.builder("medicine.stock.tracked", counters, Map::size).register(meterRegistry);
+        Gauge.builder("medicine.stock.pending", dirty, Set::size)
+                .description("Medicines whose latest quantity is not yet persisted")
+                .register(meterRegistry);
+    }
+
+    public StockLevelResponse get(Long medicineId) {
+        return toResponse(medicineId, counter(medicineId));
+    }
+
+    public StockLevelResponse apply(StockUpdate update) {
+        StockCounter counter = counter(update.getMedicineId());
+        applyTo(update, counter);
+        return toResponse(update.getMedicineId(), counter);
+    }
+
+    /**
+     * Applies updates in order; counters missing from memory are loaded with one query per batch.
+     * The whole batch is checked first, so an unknown medicine or an adjustment that would take
+     * stock below zero rejects it before any entry is applied. The check runs against the
+     * quantities at the start; a concurrent update of the same medicine can still make a later
+     * entry fail.
+     */
+    public StockUpdateBatchResponse applyAll(List<StockUpdate> batch) {
+        Set<Long> missing = new HashSet<>();
+        for (StockUpdate update : batch) {
+            requireChange(update);
+            if (!counters.containsKey(update.getMedicineId())) {
+                missing.add(update.getMedicineId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            load(missing);
+        }
+        Map<Long, Integer> projected = new HashMap<>();
+        for (StockUpdate update : batch) {
+            Long id = update.getMedicineId();
+            Integer current = projected.get(id);
+            if (current == null) {
+                StockCounter counter = counters.get(id);
+                if (counter == null) {
+                    throw new NoSuchElementException("Medicine not found: " + id);
+                }
+                current = counter.quantity();
+            }
+            int next = update.getQuantity() != null ? update.getQuantity() : current + update.getDelta();
+            if (next < 0) {
+                throw new IllegalArgumentException("Insufficient stock for medicine " + id + ": " + current + " available");
+            }
+            projected.put(id, next);
+        }
+        int crossed = 0;
+        for (StockUpdate update : batch) {
+            if (applyTo(update, counter(update.getMedicineId()))) {
+                crossed++;
+            }
+        }
+        return StockUpdateBatchResponse.builder().applied(batch.size()).crossings(crossed).build();
+    }
+
+    /**
+     * Every medicine in {@code state}, from the stored levels; counters on this node replace their
+     * stored row, since they may hold changes not flushed yet. Medicines never stocked are LOW.
+     */
+    public List<StockLevelResponse> inState(StockState state) {
+        List<Object[]> rows = transactionTemplate.execute(status ->
+                stockLevelRepository.findInState(state, state == StockState.LOW));
+        Map<Long, StockLevelResponse> result = new TreeMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            result.put(id, StockLevelResponse.builder()
+                    .medicineId(id)
+                    .quantity(row[1] != null ? (Integer) row[1] : 0)
+                    .state(state)
+                    .minimumStockLevel(minimum((Integer) row[2]))
+                    .maximumStockLevel((Integer) row[3])
+                    .build());
+        }
+        counters.forEach((id, counter) -> {
+            if (counter.state() == state) {
+                result.put(id, toResponse(id, counter));
+            } else {
+                result.remove(id);
+            }
+        });
+        return List.copyOf(result.values());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedicineChanged(MedicineChangedEvent event) {
+        // the event carries no stock levels; reload them at the next flush
+        if (counters.containsKey(event.medicineId())) {
+            thresholdsChanged.add(event.medicineId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.stock.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (!thresholdsChanged.isEmpty()) {
+            reloadThresholds();
+        }
+        // bounded by what was pending at the start, so sustained updates cannot keep one flush going
+        for (int remaining = Math.max(dirty.size(), crossings.size());
+             remaining > 0 && (!dirty.isEmpty() || !crossings.isEmpty()); remaining -= flushBatchSize) {
+            List<Long> ids = new ArrayList<>(Math.min(dirty.size(), flushBatchSize));
+            for (Long id : dirty) {
+                if (ids.size() == flushBatchSize) {
+                    break;
+                }
+                ids.add(id);
+            }
+            // removed before reading the counters, so a concurrent update re-marks the id
+            dirty.removeAll(ids);
+            List<StockLevelCrossedEvent> events = new ArrayList<>();
+            for (StockLevelCrossedEvent event; events.size() < flushBatchSize && (event = crossings.poll()) != null; ) {
+                events.add(event);
+            }
+            try {
+                flushTimer.record(() -> write(ids, events));
+            } catch (RuntimeException e) {
+                log.warn("Stock level flush failed for {} medicines; retrying: {}", ids.size(), e.getMessage());
+                dirty.addAll(ids);
+                crossings.addAll(events);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Brings every counter on this node up to date with the stored quantity and stock levels,
+     * picking up changes made through other instances. Changes not flushed yet are kept.
+     */
+    @Scheduled(fixedDelayString = "${medicine.stock.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        List<Long> tracked = new ArrayList<>(counters.keySet());
+        for (int from = 0; from < tracked.size(); from += flushBatchSize) {
+            List<Long> ids = tracked.subList(from, Math.min(tracked.size(), from + flushBatchSize));
+            Map<Long, Integer> quantities = new HashMap<>();
+            List<Object[]> thresholds;
+            try {
+                thresholds = transactionTemplate.execute(status -> {
+                    for (MedicineStockLevel row : stockLevelRepository.findAllById(ids)) {
+                        quantities.put(row.getMedicineId(), row.getQuantity());
+                    }
+                    return medicineRepository.stockThresholds(ids);
+                });
+            } catch (RuntimeException e) {
+                log.warn("Stock level refresh failed for {} medicines: {}", ids.size(), e.getMessage());
+                return;
+            }
+            Set<Long> present = new HashSet<>();
+            for (Object[] row : thresholds) {
+                Long id = (Long) row[0];
+                present.add(id);
+                StockCounter counter = counters.get(id);
+                Integer stored = quantities.get(id);
+                if (stored != null) {
+                    counter.synced(0, stored);
+                }
+                counter.thresholds(minimum((Integer) row[1]), (Integer) row[2]);
+                if (evaluate(id, counter)) {
+                    dirty.add(id);
+                }
+            }
+            for (Long id : ids) {
+                if (!present.contains(id)) {
+                    // deleted medicine
+                    counters.remove(id);
+                    dirty.remove(id);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        if (!dirty.isEmpty()) {
+            log.warn("{} stock levels were not persisted at shutdown", dirty.size());
+        }
+    }
+
+    private void write(List<Long> ids, List<StockLevelCrossedEvent> events) {
+        Map<Long, Integer> written = new HashMap<>();
+        Map<Long, Integer> stored = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<MedicineStockLevel> created = new ArrayList<>();
+            for (Long id : ids) {
+                StockCounter counter = counters.get(id);
+                if (counter == null) {
+                    continue;
+                }
+                int delta = counter.unpersisted();
+                written.put(id, delta);
+                if (delta != 0 && stockLevelRepository.addQuantity(id, delta, now) == 0) {
+                    // first write for this medicine; a concurrent insert elsewhere fails this flush, and the retry adds
+                    created.add(MedicineStockLevel.builder()
+                            .medicineId(id).quantity(delta).state(counter.classify(delta)).updatedAt(now)
+                            .build());
+                }
+            }
+            stockLevelRepository.saveAll(created);
+            // the state is that of the stored quantity, which includes other instances' changes
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (MedicineStockLevel row : stockLevelRepository.findAllById(written.keySet())) {
+                row.setState(counters.get(row.getMedicineId()).classify(row.getQuantity()));
+                quantities.put(row.getMedicineId(), row.getQuantity());
+            }
+            events.forEach(eventPublisher::publishEvent);
+            return quantities;
+        });
+        stored.forEach((id, quantity) -> {
+            StockCounter counter = counters.get(id);
+            counter.synced(written.get(id), quantity);
+            if (evaluate(id, counter)) {
+                dirty.add(id);
+            }
+        });
+    }
+
+    private boolean applyTo(StockUpdate update, StockCounter counter) {
+        if (update.getQuantity() != null) {
+            counter.set(update.getQuantity());
+        } else {
+            counter.add(requireChange(update).getDelta());
+        }
+        updates.increment();
+        dirty.add(update.getMedicineId());
+        return evaluate(update.getMedicineId(), counter);
+    }
+
+    private static StockUpdate requireChange(StockUpdate update) {
+        if (update.getQuantity() == null && update.getDelta() == null) {
+            throw new IllegalArgumentException("Either quantity or delta is required");
+        }
+        return update;
+    }
+
+    private boolean evaluate(Long medicineId, StockCounter counter) {
+        StockState previous = counter.transition();
+        if (previous == null) {
+            return false;
+        }
+        StockState current = counter.state();
+        crossingCounters.get(current).increment();
+        crossings.add(new StockLevelCrossedEvent(medicineId, previous, current, counter.quantity(),
+                counter.minimum(), counter.maximum()));
+        log.debug("Medicine {} stock moved from {} to {} at quantity {}", medicineId, previous, current, counter.quantity());
+        return true;
+    }
+
+    private StockCounter counter(Long medicineId) {
+        StockCounter counter = counters.get(medicineId);
+        if (counter == null) {
+            load(List.of(medicineId));
+            counter = counters.get(medicineId);
+            if (counter == null) {
+                throw new NoSuchElementException("Medicine not found");
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Loads persisted quantities and stock levels outside the map, so no map bin is held during
+     * the query; a counter created concurrently by another thread wins.
+     */
+    private void load(Collection<Long> medicineIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Integer> quantities = new HashMap<>();
+            for (MedicineStockLevel row : stockLevelRepository.findAllById(medicineIds)) {
+                quantities.put(row.getMedicineId(), row.getQuantity());
+            }
+            for (Object[] row : medicineRepository.stockThresholds(medicineIds)) {
+                Long id = (Long) row[0];
+                counters.putIfAbsent(id, new StockCounter(quantities.getOrDefault(id, 0), minimum((Integer) row[1]), (Integer) row[2]));
+            }
+        });
+    }
+
+    private void reloadThresholds() {
+        List<Long> ids = new ArrayList<>(thresholdsChanged);
+        thresholdsChanged.removeAll(ids);
+        List<Object[]> rows = transactionTemplate.execute(status -> medicineRepository.stockThresholds(ids));
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            StockCounter counter = counters.get(id);
+            if (counter != null) {
+                counter.thresholds(minimum((Integer) row[1]), (Integer) row[2]);
+                if (evaluate(id, counter)) {
+                    dirty.add(id);
+                }
+            }
+        }
+    }
+
+    private int minimum(Integer configured) {
+        return configured != null ? configured : defaultMinimum;
+    }
+
+    private static StockLevelResponse toResponse(Long medicineId, StockCounter counter) {
+        return StockLevelResponse.builder()
+                .medicineId(medicineId)
+                .quantity(counter.quantity())
+                .state(counter.state())
+                .minimumStockLevel(counter.minimum())
+                .maximumStockLevel(counter.maximum())
+                .build();
+    }
+}
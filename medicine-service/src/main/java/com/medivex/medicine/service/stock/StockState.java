@@ -0,0 +1,10 @@
+package com.medivex.medicine.service.stock;
+
+/**
+ * Where a medicine's quantity sits relative to its minimum and maximum stock levels.
+ */
+public enum StockState {
+    LOW,
+    NORMAL,
+    OVER
+}
@@ -0,0 +1,81 @@
+package com.medivex.medicine.service.bulkhead;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkheadTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsOnceSlotsAndQueueAreTaken() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("search", group(List.of(), 2, 0, Duration.ofMillis(10)), registry);
+
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+        assertEquals(1.0, registry.get("medicine.bulkhead.rejected").tag("group", "search").counter().count());
+
+        bulkhead.release(Duration.ofMillis(1));
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    void slowRequestsShrinkTheLimitAndFastOnesGrowItWhileBusy() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("search", group(List.of(), 10, 0, Duration.ofMillis(10)), registry);
+        assertTrue(bulkhead.tryAcquire());
+
+        bulkhead.release(Duration.ofSeconds(1));
+        assertEquals(9, bulkhead.limit());
+
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 8; j++) {
+                assertTrue(bulkhead.tryAcquire());
+            }
+            for (int j = 0; j < 8; j++) {
+                bulkhead.release(Duration.ofMillis(1));
+            }
+        }
+        // growth stops once 8 concurrent requests no longer use half the limit
+        assertEquals(16, bulkhead.limit());
+    }
+
+    @Test
+    void filterShedsWith503AndRetryAfterAndRoutesInOrder() throws Exception {
+        Map<String, BulkheadProperties.Group> groups = new LinkedHashMap<>();
+        groups.put("search", group(List.of("GET /api/medicines/search"), 1, 0, Duration.ofMillis(10)));
+        groups.put("point-read", group(List.of("GET /api/medicines/*"), 1, 0, Duration.ofMillis(10)));
+        BulkheadFilter filter = new BulkheadFilter(new BulkheadProperties(true, Duration.ofSeconds(2), groups),
+                registry, new ObjectMapper());
+
+        assertEquals("search", filter.resolve(new MockHttpServletRequest("GET", "/api/medicines/search")).name());
+        assertEquals("point-read", filter.resolve(new MockHttpServletRequest("GET", "/api/medicines/42")).name());
+        assertNull(filter.resolve(new MockHttpServletRequest("POST", "/api/medicines/42")));
+
+        // hold the only search slot
+        assertTrue(filter.resolve(new MockHttpServletRequest("GET", "/api/medicines/search")).tryAcquire());
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/medicines/search"), rejected, new MockFilterChain());
+        MockHttpServletResponse served = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/medicines/42"), served, new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        assertEquals(200, served.getStatus());
+    }
+
+    private static BulkheadProperties.Group group(List<String> routes, int limit, int queueSize, Duration maxWait) {
+        return new BulkheadProperties.Group(routes, limit, 1, 20, queueSize, maxWait, Duration.ofMillis(100));
+    }
+}
@@ -0,0 +1,65 @@
+package com.medivex.medicine.service.cache;
+
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.MedicineSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MedicineSearchCacheTest {
+
+    private final MedicineSearchCache cache = new MedicineSearchCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1));
+
+    @Test
+    void writeInvalidatesOnlyMatchingQueries() {
+        MedicineSearchKey para = MedicineSearchKey.of("Para", null, null, true, PageRequest.of(0, 20));
+        MedicineSearchKey ibu = MedicineSearchKey.of("ibu", null, null, true, PageRequest.of(0, 20));
+        cache.put(para, new MedicineSearchCache.Ids(List.of(1L), 1), cache.generation());
+        cache.put(ibu, new MedicineSearchCache.Ids(List.of(2L), 1), cache.generation());
+
+        MedicineSnapshot created = new MedicineSnapshot(3L, "Paracetamol 650", null, null, 7L, false, true, BigDecimal.ONE);
+        cache.onMedicineChanged(new MedicineChangedEvent(3L, null, created));
+
+        assertNull(cache.get(para));
+        assertNotNull(cache.get(ibu));
+    }
+
+    @Test
+    void queriesNormalizeCaseAndEmptyText() {
+        assertEquals(MedicineSearchKey.of("PARA", 1L, null, null, PageRequest.of(0, 20)),
+                MedicineSearchKey.of("para", 1L, null, null, PageRequest.of(0, 20)));
+        assertEquals(MedicineSearchKey.of("", null, null, null, PageRequest.of(0, 20)),
+                MedicineSearchKey.of(null, null, null, null, PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void categoryChangeInvalidatesQueriesFilteredByIt() {
+        MedicineSearchKey inCategory = MedicineSearchKey.of(null, 5L, null, null, PageRequest.of(0, 20));
+        MedicineSearchKey other = MedicineSearchKey.of(null, 6L, null, null, PageRequest.of(0, 20));
+        cache.put(inCategory, new MedicineSearchCache.Ids(List.of(1L), 1), cache.generation());
+        cache.put(other, new MedicineSearchCache.Ids(List.of(2L), 1), cache.generation());
+
+        cache.onCategoryChanged(new CategoryChangedEvent(5L, CategoryChangedEvent.Type.DELETED));
+
+        assertNull(cache.get(inCategory));
+        assertNotNull(cache.get(other));
+    }
+
+    @Test
+    void resultLoadedAcrossAnInvalidationIsNotStored() {
+        MedicineSearchKey key = MedicineSearchKey.of(null, null, null, null, PageRequest.of(0, 20));
+        long generation = cache.generation();
+        cache.onCategoryChanged(new CategoryChangedEvent(9L, CategoryChangedEvent.Type.UPDATED));
+
+        cache.put(key, new MedicineSearchCache.Ids(List.of(1L), 1), generation);
+
+        assertNull(cache.get(key));
+    }
+}
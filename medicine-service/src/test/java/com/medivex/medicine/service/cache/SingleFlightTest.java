@@ -0,0 +1,118 @@
+package com.medivex.medicine.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<Long, String> flight = new SingleFlight<>("get", Duration.ofSeconds(5), registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> flight.load(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "value";
+                })));
+            }
+            waitForCollapsed(registry, 7);
+            release.countDown();
+            for (Future<String> f : results) {
+                assertEquals("value", f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void leaderFailureIsPropagatedAndNotRetained() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<Long, String> flight = new SingleFlight<>("get", Duration.ofSeconds(5), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.load(1L, () -> {
+                await(release);
+                throw new NoSuchElementException("Medicine not found");
+            }));
+            Future<String> follower = pool.submit(() -> {
+                waitForLeader(registry);
+                return flight.load(1L, () -> "unexpected");
+            });
+            waitForCollapsed(registry, 1);
+            release.countDown();
+            assertInstanceOf(NoSuchElementException.class, assertThrows(Exception.class, leader::get).getCause());
+            assertInstanceOf(NoSuchElementException.class, assertThrows(Exception.class, follower::get).getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals("fresh", flight.load(1L, () -> "fresh"));
+    }
+
+    @Test
+    void followerLoadsItselfWhenWaitIsExceeded() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<Long, String> flight = new SingleFlight<>("get", Duration.ofMillis(50), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> flight.load(1L, () -> {
+                await(release);
+                return "slow";
+            }));
+            waitForLeader(registry);
+            assertEquals("own", flight.load(1L, () -> "own"));
+            assertEquals(1.0, registry.get("medicine.coalescing.calls").tag("result", "timeout").counter().count());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitForLeader(SimpleMeterRegistry registry) throws InterruptedException {
+        waitFor(registry, "leader", 1);
+    }
+
+    private static void waitForCollapsed(SimpleMeterRegistry registry, int expected) throws InterruptedException {
+        waitFor(registry, "collapsed", expected);
+    }
+
+    private static void waitFor(SimpleMeterRegistry registry, String result, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("medicine.coalescing.calls").tag("result", result).counter().count() < expected) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for " + expected + " " + result + " calls");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ColumnarCatalogStoreTest {
+
+    // the database: medicines by id and category names
+    private final Map<Long, CatalogRecord> medicines = new TreeMap<>();
+    private final Map<Long, String> categories = new HashMap<>(Map.of(1L, "Tablet", 2L, "Syrup"));
+    private final List<Long> changedSince = new ArrayList<>();
+    private final CatalogLoader loader = mock(CatalogLoader.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        doAnswer(inv -> {
+            medicines.values().forEach(inv.<Consumer<CatalogRecord>>getArgument(0));
+            return null;
+        }).when(loader).forEach(any());
+        when(loader.load(anyCollection())).thenAnswer(inv -> inv.<Collection<Long>>getArgument(0).stream()
+                .filter(medicines::containsKey).map(medicines::get).toList());
+        when(loader.idsChangedSince(any())).thenAnswer(inv -> List.copyOf(changedSince));
+        when(loader.categoryNames()).thenAnswer(inv -> Map.copyOf(categories));
+        for (long id = 1; id <= 3; id++) {
+            put(id, "Medicine " + id, 1L);
+        }
+    }
+
+    @Test
+    void catchesUpWithWritesMadeThroughOtherInstances() {
+        ColumnarCatalogStore store = store(Duration.ZERO, Duration.ofHours(1), "database");
+        store.refresh();
+
+        // committed elsewhere: no event reaches this instance
+        put(2, "Medicine 2 (renamed)", 1L);
+        put(4, "Medicine 4", 2L);
+        changedSince.addAll(List.of(2L, 4L));
+        store.refresh();
+
+        verify(loader, times(1)).forEach(any());
+        assertEquals("Medicine 2 (renamed)", store.findById(2).orElseThrow().getName());
+        assertEquals("Syrup", store.findByCode("CODE-4").orElseThrow().getCategoryName());
+    }
+
+    @Test
+    void rebuildsWhenCategoriesChangedElsewhereOrTheRebuildIntervalPassed() {
+        ColumnarCatalogStore store = store(Duration.ZERO, Duration.ofHours(1), "database");
+        store.refresh();
+
+        categories.put(1L, "Tablets");
+        for (long id = 1; id <= 3; id++) {
+            put(id, "Medicine " + id, 1L);
+        }
+        store.refresh();
+        verify(loader, times(2)).forEach(any());
+        assertEquals("Tablets", store.findById(3).orElseThrow().getCategoryName());
+
+        ColumnarCatalogStore rebuilding = store(Duration.ofHours(1), Duration.ZERO, "database");
+        rebuilding.refresh();
+        rebuilding.refresh();
+        verify(loader, times(4)).forEach(any());
+    }
+
+    @Test
+    void leavesStringSortsToTheDatabaseUnlessACollationIsConfigured() {
+        ColumnarCatalogStore store = store(Duration.ofHours(1), Duration.ofHours(1), "database");
+        store.refresh();
+        store.onMedicineChanged(new MedicineChangedEvent(1L, null, null));
+        store.refresh();
+        assertTrue(store.query(MedicineFilter.all(), PageRequest.of(0, 10, Sort.by("name"))).isEmpty());
+
+        ColumnarCatalogStore english = store(Duration.ofHours(1), Duration.ofHours(1), "en-US");
+        english.refresh();
+        assertEquals(3, english.query(MedicineFilter.all(), PageRequest.of(0, 10, Sort.by("name")))
+                .orElseThrow().getTotalElements());
+    }
+
+    private ColumnarCatalogStore store(Duration catchUpInterval, Duration rebuildInterval, String collation) {
+        return new ColumnarCatalogStore(loader, new SimpleMeterRegistry(), catchUpInterval, rebuildInterval,
+                Duration.ofMinutes(1), collation);
+    }
+
+    private void put(long id, String name, Long categoryId) {
+        medicines.put(id, new CatalogRecord(id, name, null, name, "Acme Pharma", categoryId, categories.get(categoryId),
+                "CODE-" + id, null, "Tablet", "500mg", null, new BigDecimal("10.00"), false, 10, 100, true));
+    }
+}
@@ -0,0 +1,137 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineResponse;
+import com.medivex.medicine.service.repository.MedicineFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarCatalogTest {
+
+    private static final Map<Long, String> CATEGORIES = Map.of(1L, "Tablet", 2L, "Syrup");
+
+    @Test
+    void repeatedStringsAreStoredOnce() {
+        ColumnarCatalog.Builder builder = new ColumnarCatalog.Builder(CATEGORIES);
+        for (long id = 1; id <= 1000; id++) {
+            builder.upsert(record(id, "Medicine " + id, 1L, "10.00", true));
+        }
+        ColumnarCatalog catalog = builder.build();
+
+        // 1000 names and codes, plus the shared manufacturer and dosage form
+        assertEquals(2002, catalog.dictionarySize());
+        assertSame(catalog.findById(1).orElseThrow().getManufacturer(), catalog.findById(2).orElseThrow().getManufacturer());
+        assertTrue(catalog.heapBytes() < catalog.entityHeapBytes());
+    }
+
+    @Test
+    void filtersSortsAndPagesLikeTheRepository() {
+        ColumnarCatalog catalog = new ColumnarCatalog.Builder(CATEGORIES)
+                .upsert(record(1, "Paracetamol 500", 1L, "12.50", true))
+                .upsert(record(2, "Paracetamol 650", 1L, "15.00", false))
+                .upsert(record(3, "Cough Relief", 2L, null, true))
+                .upsert(record(4, "Paracetamol Syrup", 2L, "40.00", true))
+                .build();
+
+        Page<MedicineResponse> page = catalog.query(new MedicineFilter("PARA", null, null, true),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "price"))).orElseThrow();
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(4L, page.getContent().get(0).getId());
+        assertEquals("Syrup", page.getContent().get(0).getCategoryName());
+        assertEquals(0, new BigDecimal("40.00").compareTo(page.getContent().get(0).getPrice()));
+        assertEquals(3L, catalog.query(MedicineFilter.category(2L), PageRequest.of(0, 10, Sort.by("price")))
+                .orElseThrow().getContent().get(1).getId());
+        assertTrue(catalog.query(MedicineFilter.all(), PageRequest.of(0, 10, Sort.by("createdAt"))).isEmpty());
+    }
+
+    @Test
+    void pagesOfASortedQueryMatchAFullSort() {
+        Random random = new Random(42);
+        ColumnarCatalog.Builder builder = new ColumnarCatalog.Builder(CATEGORIES);
+        List<CatalogRecord> records = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            String price = random.nextInt(10) == 0 ? null : (random.nextInt(50) + 1) + ".00";
+            CatalogRecord rec = record(id, "Medicine " + random.nextInt(40), random.nextBoolean() ? 1L : 2L, price, random.nextBoolean());
+            records.add(rec);
+            builder.upsert(rec);
+        }
+        ColumnarCatalog catalog = builder.build();
+        // nulls sort high, so they lead a descending sort
+        Comparator<CatalogRecord> expected = Comparator
+                .comparing(CatalogRecord::price, Comparator.nullsFirst(Comparator.<BigDecimal>reverseOrder()))
+                .thenComparing(CatalogRecord::name)
+                .thenComparing(CatalogRecord::id);
+        List<Long> all = records.stream().sorted(expected).map(CatalogRecord::id).toList();
+        Sort sort = Sort.by(Sort.Order.desc("price"), Sort.Order.asc("name"));
+
+        assertEquals(all, catalog.query(MedicineFilter.all(), Pageable.unpaged(sort)).orElseThrow()
+                .getContent().stream().map(MedicineResponse::getId).toList());
+        for (int page = 0; page < 6; page++) {
+            Page<MedicineResponse> result = catalog.query(MedicineFilter.all(), PageRequest.of(page, 90, sort)).orElseThrow();
+            assertEquals(all.subList(page * 90, Math.min(500, page * 90 + 90)),
+                    result.getContent().stream().map(MedicineResponse::getId).toList());
+            assertEquals(500, result.getTotalElements());
+        }
+        assertTrue(catalog.query(MedicineFilter.all(), PageRequest.of(10, 90, sort)).orElseThrow().getContent().isEmpty());
+    }
+
+    @Test
+    void changesProduceANewSnapshotAndLeaveTheOldOneIntact() {
+        ColumnarCatalog before = new ColumnarCatalog.Builder(CATEGORIES)
+                .upsert(record(1, "Paracetamol 500", 1L, "12.50", true))
+                .upsert(record(5, "Ibuprofen 400", 1L, "20.00", true))
+                .build();
+
+        ColumnarCatalog after = new ColumnarCatalog.Builder(before)
+                .upsert(record(5, "Ibuprofen 400", 1L, "20.00", false))
+                .upsert(record(3, "Cetirizine 10", 2L, "8.00", true))
+                .build();
+
+        assertTrue(before.findById(5).orElseThrow().getActive());
+        assertFalse(after.findById(5).orElseThrow().getActive());
+        assertTrue(before.findById(3).isEmpty());
+        assertEquals("Cetirizine 10", after.findByCode("CODE-3").orElseThrow().getName());
+        assertEquals(3, after.size());
+        assertEquals(3L, after.query(MedicineFilter.all(), PageRequest.of(0, 10)).orElseThrow().getContent().get(1).getId());
+    }
+
+    @Test
+    void stringSortsFollowTheCollationOrAreLeftToTheDatabase() {
+        ColumnarCatalog.Builder builder = new ColumnarCatalog.Builder(CATEGORIES)
+                .upsert(record(1, "banana", 1L, "1.00", true))
+                .upsert(record(2, "Apple", 1L, "1.00", true))
+                .upsert(record(3, "apple", 1L, "1.00", true));
+        Pageable byName = PageRequest.of(0, 10, Sort.by("name"));
+
+        assertEquals(List.of(2L, 3L, 1L), ids(builder.build().query(MedicineFilter.all(), byName).orElseThrow()));
+        Collator english = Collator.getInstance(Locale.US);
+        assertEquals(List.of(3L, 2L, 1L), ids(builder.collation(english::compare).build().query(MedicineFilter.all(), byName).orElseThrow()));
+
+        ColumnarCatalog declined = builder.collation(null).build();
+        assertTrue(declined.query(MedicineFilter.all(), byName).isEmpty());
+        assertTrue(declined.query(MedicineFilter.all(), PageRequest.of(0, 10, Sort.by("price"))).isPresent());
+    }
+
+    private static List<Long> ids(Page<MedicineResponse> page) {
+        return page.getContent().stream().map(MedicineResponse::getId).toList();
+    }
+
+        private static CatalogRecord record(long id, String name, Long categoryId, String price, boolean active) {
+        return new CatalogRecord(id, name, null, name, "Acme Pharma", categoryId, null, "CODE-" + id, null,
+                "Tablet", null, null, price != null ? new BigDecimal(price) : null, false, null, null, active);
+    }
+}
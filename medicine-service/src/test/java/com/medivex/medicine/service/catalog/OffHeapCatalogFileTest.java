@@ -0,0 +1,99 @@
+package com.medivex.medicine.service.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCatalogFileTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recordsSurviveAReopenAndTheLastCopyWins() {
+        Path path = dir.resolve("catalog.bin");
+        try (OffHeapCatalogFile file = OffHeapCatalogFile.create(path, SEGMENT_SIZE, 1_700_000_000L)) {
+            // enough records to spill over several segments
+            for (long id = 1; id <= 200; id++) {
+                file.append(record(id, "Medicine " + id, "10.00", true));
+            }
+            file.append(record(7, "Medicine 7 (renamed)", "12.25", false));
+            file.force();
+        }
+
+        try (OffHeapCatalogFile file = OffHeapCatalogFile.open(path, SEGMENT_SIZE)) {
+            assertNotNull(file);
+            assertEquals(1_700_000_000L, file.snapshotEpochSecond());
+            OffHeapIndex.Builder builder = new OffHeapIndex.Builder(16);
+            file.scan(builder::put);
+            OffHeapIndex index = builder.build();
+
+            assertEquals(200, index.size());
+            assertTrue(file.usedBytes() > SEGMENT_SIZE);
+            CatalogRecord updated = file.read(index.offsetOf(7));
+            assertEquals("Medicine 7 (renamed)", updated.name());
+            assertEquals(new BigDecimal("12.25"), updated.price());
+            assertFalse(updated.active());
+            assertEquals("Medicine 200", file.read(index.offsetOf(200)).name());
+            assertEquals(-1, index.offsetOf(201));
+
+            long appended = file.append(record(201, "Medicine 201", null, true));
+            assertNull(file.read(appended).price());
+            assertEquals("CODE-201", file.read(appended).medicineCode());
+        }
+    }
+
+    @Test
+    void fileWithAnotherSegmentSizeIsNotReused() {
+        Path path = dir.resolve("catalog.bin");
+        OffHeapCatalogFile.create(path, SEGMENT_SIZE, 0).close();
+
+        assertNull(OffHeapCatalogFile.open(path, SEGMENT_SIZE * 2));
+        assertNull(OffHeapCatalogFile.open(dir.resolve("missing.bin"), SEGMENT_SIZE));
+    }
+
+    @Test
+    void stringsLongerThanAShortLengthRoundTrip() {
+        // 50 000 characters, 100 000 bytes of UTF-8
+        String name = "é".repeat(50_000);
+        try (OffHeapCatalogFile file = OffHeapCatalogFile.create(dir.resolve("catalog.bin"), 1024 * 1024, 0)) {
+            long offset = file.append(record(1, name, "10.00", true));
+
+            CatalogRecord read = file.read(offset);
+            assertEquals(name, read.name());
+            assertEquals("Acme Pharma", read.manufacturer());
+            assertEquals("CODE-1", read.medicineCode());
+            assertThrows(IllegalArgumentException.class, () -> file.append(record(2, "x".repeat(2 * 1024 * 1024), null, true)));
+        }
+    }
+
+    @Test
+    void indexCopyKeepsBaseAndFindsCodesByHash() {
+        OffHeapIndex base = new OffHeapIndex.Builder(4)
+                .put(1, OffHeapCatalogFile.codeHash("CODE-1"), 100)
+                .put(5, OffHeapCatalogFile.codeHash("CODE-5"), 500)
+                .build();
+        OffHeapIndex next = new OffHeapIndex.Builder(base)
+                .put(3, OffHeapCatalogFile.codeHash("CODE-3"), 300)
+                .put(5, OffHeapCatalogFile.codeHash("CODE-5"), 550)
+                .build();
+
+        assertEquals(500, base.offsetOf(5));
+        assertEquals(-1, base.offsetOf(3));
+        assertEquals(3, next.size());
+        assertEquals(300, next.offsetOf(3));
+        assertEquals(550, next.offsetOf(5));
+        assertArrayEquals(new long[]{550}, next.offsetsForCodeHash(OffHeapCatalogFile.codeHash("CODE-5")));
+    }
+
+    private static CatalogRecord record(long id, String name, String price, boolean active) {
+        return new CatalogRecord(id, name, null, name, "Acme Pharma", 1L, "Tablet", "CODE-" + id, null,
+                "Tablet", "500mg", null, price != null ? new BigDecimal(price) : null, false, 10, 100, active);
+    }
+}
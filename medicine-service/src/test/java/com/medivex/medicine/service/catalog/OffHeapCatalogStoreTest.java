@@ -0,0 +1,193 @@
+package com.medivex.medicine.service.catalog;
+
+import com.medivex.medicine.service.event.CatalogBulkChangedEvent;
+import com.medivex.medicine.service.event.CategoryChangedEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OffHeapCatalogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    // the database: medicines by id and category names
+    private final Map<Long, CatalogRecord> medicines = new TreeMap<>();
+    private final Map<Long, String> categories = new HashMap<>(Map.of(1L, "Tablet", 2L, "Syrup"));
+    private final List<Long> changedSince = new ArrayList<>();
+    private final CatalogLoader loader = mock(CatalogLoader.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<OffHeapCatalogStore> stores = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        doAnswer(inv -> {
+            medicines.values().forEach(inv.<Consumer<CatalogRecord>>getArgument(0));
+            return null;
+        }).when(loader).forEach(any());
+        when(loader.load(anyCollection())).thenAnswer(inv -> inv.<Collection<Long>>getArgument(0).stream()
+                .filter(medicines::containsKey).map(medicines::get).toList());
+        when(loader.idsChangedSince(any())).thenAnswer(inv -> List.copyOf(changedSince));
+        when(loader.categoryNames()).thenAnswer(inv -> Map.copyOf(categories));
+        for (long id = 1; id <= 3; id++) {
+            put(id, "Medicine " + id, 1L);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(OffHeapCatalogStore::destroy);
+    }
+
+    @Test
+    void warmStartMapsThePreviousFileAndReloadsOnlyChangedRows() {
+        OffHeapCatalogStore first = store();
+        first.refresh();
+        assertTrue(first.isReady());
+        first.destroy();
+
+        put(2, "Medicine 2 (renamed)", 1L);
+        changedSince.add(2L);
+        clearInvocations(loader);
+        OffHeapCatalogStore second = store();
+        second.refresh();
+
+        assertTrue(second.isReady());
+        verify(loader, never()).forEach(any());
+        verify(loader).load(List.of(2L));
+        assertEquals("Medicine 2 (renamed)", second.findById(2).orElseThrow().getName());
+        assertEquals("Medicine 3", second.findByCode("CODE-3").orElseThrow().getName());
+    }
+
+    @Test
+    void warmStartRebuildsWhenACategoryChangedSinceTheFileWasWritten() {
+        OffHeapCatalogStore first = store();
+        first.refresh();
+        first.destroy();
+
+        categories.put(1L, "Tablets");
+        put(1, "Medicine 1", 1L);
+        when(loader.categoriesModifiedSince(any())).thenReturn(true);
+        clearInvocations(loader);
+        OffHeapCatalogStore second = store();
+        second.refresh();
+
+        verify(loader).forEach(any());
+        assertEquals("Tablets", second.findById(1).orElseThrow().getCategoryName());
+    }
+
+    @Test
+    void bulkChangesAreCaughtUpByTimestampWithoutARebuild() {
+        OffHeapCatalogStore store = store();
+        store.refresh();
+
+        put(4, "Seeded 4", 2L);
+        put(5, "Seeded 5", 2L);
+        changedSince.addAll(List.of(4L, 5L));
+        store.onCatalogBulkChanged(new CatalogBulkChangedEvent("seed"));
+        store.refresh();
+
+        verify(loader, times(1)).forEach(any());
+        assertEquals("Seeded 5", store.findByCode("CODE-5").orElseThrow().getName());
+        assertEquals("Syrup", store.findById(4).orElseThrow().getCategoryName());
+        assertEquals(5.0, registry.get("medicine.catalog.rows").gauge().value());
+    }
+
+    @Test
+    void writesThroughOtherInstancesAreCaughtUpOnSchedule() {
+        OffHeapCatalogStore store = store(Duration.ZERO);
+        store.refresh();
+
+        // committed elsewhere: no event reaches this instance
+        put(2, "Medicine 2 (renamed)", 1L);
+        changedSince.add(2L);
+        store.refresh();
+        assertEquals("Medicine 2 (renamed)", store.findById(2).orElseThrow().getName());
+        verify(loader, times(1)).forEach(any());
+
+        categories.put(2L, "Syrups");
+        store.refresh();
+        verify(loader, times(2)).forEach(any());
+    }
+
+    @Test
+    void categoryRenameRewritesTheFile() {
+        OffHeapCatalogStore store = store();
+        store.refresh();
+
+        categories.put(1L, "Tablets");
+        for (long id = 1; id <= 3; id++) {
+            put(id, "Medicine " + id, 1L);
+        }
+        store.onCategoryChanged(new CategoryChangedEvent(1L, CategoryChangedEvent.Type.UPDATED));
+        store.refresh();
+
+        verify(loader, times(2)).forEach(any());
+        assertEquals("Tablets", store.findById(3).orElseThrow().getCategoryName());
+        assertTrue(store.hasCategory(2L));
+    }
+
+    @Test
+    void compactsOnceSupersededCopiesOutnumberLiveRecords() {
+        OffHeapCatalogStore store = store();
+        store.refresh();
+        double compact = usedBytes();
+
+        // four updates of three medicines leave more superseded copies than live ones
+        for (int round = 1; round <= 4; round++) {
+            long id = round % 3 + 1;
+            put(id, "Medicine " + id + " v" + round, 1L);
+            store.onMedicineChanged(new MedicineChangedEvent(id, null, null));
+            store.refresh();
+        }
+        assertTrue(usedBytes() > compact);
+        verify(loader, times(1)).forEach(any());
+
+        store.refresh();
+
+        verify(loader, times(2)).forEach(any());
+        assertTrue(usedBytes() < compact * 1.5);
+        assertEquals("Medicine 2 v4", store.findById(2).orElseThrow().getName());
+        assertEquals("Medicine 3 v2", store.findById(3).orElseThrow().getName());
+    }
+
+    private OffHeapCatalogStore store() {
+        return store(Duration.ofHours(1));
+    }
+
+    private OffHeapCatalogStore store(Duration catchUpInterval) {
+        OffHeapCatalogStore store = new OffHeapCatalogStore(loader, registry, dir.resolve("catalog.bin"), 1, true,
+                Duration.ofMinutes(1), catchUpInterval);
+        stores.add(store);
+        return store;
+    }
+
+    private double usedBytes() {
+        return registry.get("medicine.catalog.off-heap.used").gauges().stream()
+                .mapToDouble(g -> g.value()).max().orElseThrow();
+    }
+
+    private void put(long id, String name, Long categoryId) {
+        medicines.put(id, new CatalogRecord(id, name, null, name, "Acme Pharma", categoryId, categories.get(categoryId),
+                "CODE-" + id, null, "Tablet", "500mg", null, new BigDecimal("10.00"), false, 10, 100, true));
+    }
+}
@@ -0,0 +1,55 @@
+package com.medivex.medicine.service.config;
+
+import com.medivex.medicine.service.datasource.ReadYourWritesTracker;
+import com.medivex.medicine.service.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadReplicaDataSourceConfigTest {
+
+    @Test
+    void poolsUseTheHikariSettingsAndAreClosedOnShutdown() throws Exception {
+        ReadReplicaDataSourceConfig config = new ReadReplicaDataSourceConfig();
+        ReflectionTestUtils.setField(config, "replicaUrls", List.of("jdbc:h2:mem:config_replica;DB_CLOSE_DELAY=-1"));
+        ReflectionTestUtils.setField(config, "replicaUsername", "sa");
+        ReflectionTestUtils.setField(config, "replicaPassword", "");
+        ReflectionTestUtils.setField(config, "maxLag", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(config, "lagQuery", "select 0");
+        ReflectionTestUtils.setField(config, "stickyWindow", Duration.ofSeconds(10));
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl("jdbc:h2:mem:config_primary;DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        properties.afterPropertiesSet();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "3")
+                .withProperty("spring.datasource.hikari.connection-timeout", "2500");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        ReplicaLagMonitor monitor = config.replicaLagMonitor(properties, environment, registry);
+        DataSource dataSource = config.dataSource(properties, environment, monitor,
+                new ReadYourWritesTracker(Duration.ofSeconds(10)), registry);
+        assertEquals(1, new JdbcTemplate(dataSource).queryForObject("select 1", Integer.class));
+
+        @SuppressWarnings("unchecked")
+        List<HikariDataSource> pools = (List<HikariDataSource>) ReflectionTestUtils.getField(config, "pools");
+        assertEquals(List.of("medicine-replica-0", "medicine-primary"), pools.stream().map(HikariDataSource::getPoolName).toList());
+        for (HikariDataSource pool : pools) {
+            assertEquals(3, pool.getMaximumPoolSize());
+            assertEquals(2500, pool.getConnectionTimeout());
+        }
+
+        config.destroy();
+        assertTrue(pools.stream().allMatch(HikariDataSource::isClosed));
+    }
+}
@@ -0,0 +1,214 @@
+package com.medivex.medicine.service.config;
+
+import com.medivex.medicine.service.config.SeedDataLoader.State;
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.repository.CatalogSeedRunRepository;
+import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = "medicine.seed.enabled=false")
+// the seed commits from its own threads, so the test must not hold a transaction open
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeedDataLoaderTest {
+
+    private static final String HEADER = "id,name,price(₹),Is_discontinued,manufacturer_name,type,pack_size_label,short_composition1,short_composition2\n";
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private MedicineCategoryRepository categoryRepository;
+
+    @Autowired
+    private CatalogSeedRunRepository seedRunRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    private SeedDataLoader loader;
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (loader != null) {
+            loader.destroy();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+        medicineRepository.deleteAll();
+        categoryRepository.deleteAll();
+        seedRunRepository.deleteAll();
+    }
+
+    @Test
+    void seedsInTheBackgroundAndRecordsCompletion() throws Exception {
+        loader = loader(csv(5), true);
+
+        loader.startSeeding();
+
+        await(() -> loader.progress().state() == State.COMPLETED);
+        assertEquals(5, medicineRepository.count());
+        assertEquals(5, loader.progress().created());
+        assertEquals(3, loader.progress().chunksCommitted());
+        assertTrue(seedRunRepository.existsById(csv(5)));
+
+        SeedDataLoader again = loader(csv(5), true);
+        again.seed();
+        assertEquals(State.SKIPPED, again.progress().state());
+    }
+
+    @Test
+    void resumesAPartialSeedInsteadOfSkippingIt() throws Exception {
+        String url = csv(5);
+        medicineRepository.save(seeded("CSV-1"));
+        medicineRepository.save(seeded("CSV-2"));
+        loader = loader(url, true);
+
+        loader.seed();
+
+        assertEquals(State.COMPLETED, loader.progress().state());
+        assertEquals(5, medicineRepository.count());
+        assertEquals(3, loader.progress().created());
+        assertEquals(2, loader.progress().skipped());
+        assertTrue(seedRunRepository.existsById(url));
+    }
+
+    @Test
+    void leavesACatalogWithoutSeededRowsAlone() throws Exception {
+        Medicine manual = seeded("MANUAL-1");
+        manual.setCreatedBy("admin");
+        medicineRepository.save(manual);
+        loader = loader(csv(5), true);
+
+        loader.seed();
+
+        assertEquals(State.SKIPPED, loader.progress().state());
+        assertEquals(1, medicineRepository.count());
+    }
+
+    @Test
+    void destroyCancelsARunningSeedWhichTheNextStartCompletes() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/slow.csv", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(HEADER.getBytes(StandardCharsets.UTF_8));
+                for (int i = 1; i <= 100_000; i++) {
+                    out.write(row(i).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    Thread.sleep(5);
+                }
+            } catch (IOException | InterruptedException e) {
+                // the reader went away
+            }
+        });
+        server.start();
+        loader = loader("http://127.0.0.1:" + server.getAddress().getPort() + "/slow.csv", true);
+
+        loader.startSeeding();
+        await(() -> loader.progress().chunksCommitted() > 0);
+        loader.destroy();
+
+        assertEquals(State.CANCELLED, loader.progress().state());
+        assertEquals(0, seedRunRepository.count());
+        Set<String> partial = codes();
+        assertTrue(!partial.isEmpty() && partial.size() < 100_000);
+
+        SeedDataLoader next = loader(csv(5), true);
+        next.seed();
+        assertEquals(State.COMPLETED, next.progress().state());
+        // chunks commit in parallel, so the cancelled run may have left gaps among the first rows
+        Set<String> expected = new HashSet<>(partial);
+        for (int i = 1; i <= 5; i++) {
+            expected.add("CSV-" + i);
+        }
+        assertEquals(expected, codes());
+    }
+
+    @Test
+    void disabledSeedDoesNothing() throws Exception {
+        loader = loader(csv(5), false);
+
+        loader.startSeeding();
+
+        assertEquals(State.DISABLED, loader.progress().state());
+        assertEquals(0, medicineRepository.count());
+    }
+
+    private SeedDataLoader loader(String url, boolean enabled) {
+        SeedDataLoader l = new SeedDataLoader(medicineRepository, categoryRepository, seedRunRepository,
+                transactionManager, mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(l, "seedEnabled", enabled);
+        ReflectionTestUtils.setField(l, "csvUrl", url);
+        ReflectionTestUtils.setField(l, "chunkSize", 2);
+        ReflectionTestUtils.setField(l, "parallelism", 2);
+        return l;
+    }
+
+    private String csv(int rows) throws IOException {
+        Path file = dir.resolve("medicines-" + rows + ".csv");
+        if (!Files.exists(file)) {
+            StringBuilder sb = new StringBuilder(HEADER);
+            for (int i = 1; i <= rows; i++) {
+                sb.append(row(i));
+            }
+            Files.writeString(file, sb.toString());
+        }
+        return file.toUri().toString();
+    }
+
+    private static String row(int i) {
+        return i + ",Medicine " + i + " 500mg Tablet,12.50,FALSE,Acme,allopathy,strip of 10 tablets,Paracetamol (500mg),\n";
+    }
+
+    private Set<String> codes() {
+        return medicineRepository.findAll().stream().map(Medicine::getMedicineCode).collect(Collectors.toSet());
+    }
+
+    private static Medicine seeded(String code) {
+        Medicine m = new Medicine();
+        m.setName(code);
+        m.setMedicineCode(code);
+        m.setActive(true);
+        m.setCreatedBy(SeedDataLoader.SEED_USER);
+        return m;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.medivex.medicine.service.config;
+
+import com.medivex.medicine.service.config.SeedDataLoader.Progress;
+import com.medivex.medicine.service.config.SeedDataLoader.State;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeedingHealthIndicatorTest {
+
+    private final SeedDataLoader loader = mock(SeedDataLoader.class);
+    private final SeedingHealthIndicator indicator = new SeedingHealthIndicator(loader);
+
+    @Test
+    void runningSeedIsReportedWithoutTakingTheInstanceDown() {
+        when(loader.progress()).thenReturn(new Progress(State.RUNNING, 1000, 3, 2, Instant.parse("2026-01-01T00:00:00Z"), null));
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(State.RUNNING, health.getDetails().get("state"));
+        assertEquals(1000, health.getDetails().get("created"));
+        assertEquals("2026-01-01T00:00:00Z", health.getDetails().get("startedAt"));
+        assertFalse(health.getDetails().containsKey("finishedAt"));
+    }
+
+    @Test
+    void skippedSeedHasNoTimestamps() {
+        when(loader.progress()).thenReturn(new Progress(State.SKIPPED, 0, 0, 0, null, null));
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(State.SKIPPED, health.getDetails().get("state"));
+        assertFalse(health.getDetails().containsKey("startedAt"));
+    }
+
+    @Test
+    void failedAndCompletedSeedsReportWhenTheyFinished() {
+        Instant started = Instant.parse("2026-01-01T00:00:00Z");
+        Instant finished = Instant.parse("2026-01-01T00:05:00Z");
+        for (State state : new State[]{State.FAILED, State.COMPLETED}) {
+            when(loader.progress()).thenReturn(new Progress(state, 10, 1, 1, started, finished));
+
+            Health health = indicator.health();
+
+            assertEquals(Status.UP, health.getStatus(), state.name());
+            assertEquals(state, health.getDetails().get("state"));
+            assertEquals("2026-01-01T00:05:00Z", health.getDetails().get("finishedAt"));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.medivex.medicine.service.controller;
+
+import com.medivex.medicine.service.dto.StockDtos.StockLevelResponse;
+import com.medivex.medicine.service.dto.StockDtos.StockUpdate;
+import com.medivex.medicine.service.dto.StockDtos.StockUpdateBatchResponse;
+import com.medivex.medicine.service.exception.GlobalExceptionHandler;
+import com.medivex.medicine.service.stock.StockLevelEngine;
+import com.medivex.medicine.service.stock.StockState;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// role checks live in SecurityConfig; this covers binding, validation and error mapping
+class StockControllerTest {
+
+    private final StockLevelEngine engine = mock(StockLevelEngine.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new StockController(engine))
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+
+    @Test
+    void batchIsPassedToTheEngineInOrder() throws Exception {
+        when(engine.applyAll(anyList())).thenReturn(StockUpdateBatchResponse.builder().applied(2).crossings(1).build());
+
+        mockMvc.perform(post("/api/medicines/stock/updates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":[{\"medicineId\":1,\"quantity\":20},{\"medicineId\":2,\"delta\":-3}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.crossings").value(1));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockUpdate>> batch = ArgumentCaptor.forClass(List.class);
+        verify(engine).applyAll(batch.capture());
+        assertEquals(List.of(1L, 2L), batch.getValue().stream().map(StockUpdate::getMedicineId).toList());
+        assertEquals(20, batch.getValue().get(0).getQuantity());
+        assertEquals(-3, batch.getValue().get(1).getDelta());
+    }
+
+    @Test
+    void rejectedBatchesMapToClientErrors() throws Exception {
+        when(engine.applyAll(anyList()))
+                .thenThrow(new IllegalArgumentException("Insufficient stock for medicine 1: 2 available"))
+                .thenThrow(new NoSuchElementException("Medicine not found: 9"));
+        String body = "{\"updates\":[{\"medicineId\":1,\"delta\":-3}]}";
+
+        mockMvc.perform(post("/api/medicines/stock/updates").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Insufficient stock for medicine 1: 2 available"));
+        mockMvc.perform(post("/api/medicines/stock/updates").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void invalidBatchesNeverReachTheEngine() throws Exception {
+        mockMvc.perform(post("/api/medicines/stock/updates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":[]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/medicines/stock/updates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":[{\"medicineId\":1,\"quantity\":-1}]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/medicines/stock/updates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":[{\"quantity\":5}]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(engine);
+    }
+
+    @Test
+    void singleUpdateTakesTheMedicineFromThePath() throws Exception {
+        when(engine.apply(any())).thenReturn(StockLevelResponse.builder()
+                .medicineId(7L).quantity(4).state(StockState.LOW).minimumStockLevel(5).build());
+
+        mockMvc.perform(put("/api/medicines/stock/7")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("LOW"))
+                .andExpect(jsonPath("$.quantity").value(4));
+
+        verify(engine).apply(argThat(u -> u.getMedicineId() == 7L && u.getDelta() == -1 && u.getQuantity() == null));
+    }
+}
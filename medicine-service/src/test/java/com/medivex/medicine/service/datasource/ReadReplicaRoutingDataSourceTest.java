@@ -0,0 +1,107 @@
+package com.medivex.medicine.service.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two H2 databases stand in for the primary and a replica; each holds a single marker row so the
+ * test can see where a query was routed.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+    private ReplicaLagMonitor lagMonitor;
+    private ReadYourWritesTracker writesTracker;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        primary = h2("routing_primary", "primary");
+        replica = h2("routing_replica", "replica");
+        new JdbcTemplate(replica).execute("create table replica_lag (seconds double)");
+        new JdbcTemplate(replica).update("insert into replica_lag values (0)");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        lagMonitor = new ReplicaLagMonitor(Map.of("replica-0", replica), "select seconds from replica_lag", Duration.ofSeconds(5), registry);
+        lagMonitor.check();
+        writesTracker = new ReadYourWritesTracker(Duration.ofSeconds(30));
+
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(List.of("replica-0"), lagMonitor, writesTracker, registry);
+        routing.setTargetDataSources(Map.of(ReadReplicaRoutingDataSource.PRIMARY, primary, "replica-0", replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(txManager);
+        readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        new JdbcTemplate(primary).execute("shutdown");
+        new JdbcTemplate(replica).execute("shutdown");
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnly.execute(s -> marker()));
+        assertEquals("primary", readWrite.execute(s -> marker()));
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() {
+        writesTracker.markWrite("alice");
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        assertEquals("primary", readOnly.execute(s -> marker()));
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("bob", null, List.of()));
+        assertEquals("replica", readOnly.execute(s -> marker()));
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 30");
+        lagMonitor.check();
+        assertEquals("primary", readOnly.execute(s -> marker()));
+
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 1");
+        lagMonitor.check();
+        assertEquals("replica", readOnly.execute(s -> marker()));
+    }
+
+    private String marker() {
+        return jdbc.queryForObject("select name from marker", String.class);
+    }
+
+    private static DriverManagerDataSource h2(String db, String marker) {
+        DriverManagerDataSource ds = new DriverManagerDataSource("jdbc:h2:mem:" + db + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(ds);
+        jdbc.execute("create table marker (name varchar(20))");
+        jdbc.update("insert into marker values (?)", marker);
+        return ds;
+    }
+}
@@ -0,0 +1,68 @@
+package com.medivex.medicine.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedDataSourceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clear() {
+        SqlRequestStats.end();
+    }
+
+    @Test
+    void countsStatementsRowsAndJdbcTimeOfTheCurrentRequest() throws Exception {
+        InstrumentedDataSource dataSource = new InstrumentedDataSource(h2(), Duration.ofSeconds(10), 1.0, registry);
+        SqlRequestStats stats = SqlRequestStats.begin("MedicineController.list");
+
+        try (Connection connection = dataSource.getConnection(); Statement ddl = connection.createStatement()) {
+            ddl.execute("create table t (id int)");
+            ddl.executeUpdate("insert into t values (1), (2), (3)");
+            try (PreparedStatement query = connection.prepareStatement("select id from t where id > ?")) {
+                query.setInt(1, 0);
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        assertTrue(rs.getInt(1) > 0);
+                    }
+                }
+                // proxies must be usable as keys in identity-based registries
+                assertEquals(query, query);
+                assertNotEquals(query, connection.prepareStatement("select 1"));
+            }
+        }
+
+        assertEquals(3, stats.statements());
+        assertEquals(3, stats.rows());
+        assertTrue(stats.jdbcNanos() > 0);
+        assertEquals(0.0, registry.get("medicine.sql.slow").counter().count());
+    }
+
+    @Test
+    void statementsOverTheThresholdAreCountedAsSlowOutsideRequestsToo() throws Exception {
+        InstrumentedDataSource dataSource = new InstrumentedDataSource(h2(), Duration.ZERO, 0.0, registry);
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeQuery("select 1").close();
+        }
+
+        assertEquals(1.0, registry.get("medicine.sql.slow").counter().count());
+    }
+
+    private static JdbcDataSource h2() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:instrumented-" + System.nanoTime());
+        return h2;
+    }
+}
@@ -0,0 +1,168 @@
+package com.medivex.medicine.service.outbox;
+
+import com.medivex.medicine.service.entity.CatalogOutboxEvent;
+import com.medivex.medicine.service.repository.CatalogOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "medicine.seed.enabled=false")
+// the relay runs its own claim and mark transactions, as it does in production
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogOutboxRelayTest {
+
+    @Autowired
+    private CatalogOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations ops = mock(RabbitOperations.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<Message> sent = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class))).thenAnswer(inv ->
+                inv.<RabbitOperations.OperationsCallback<Object>>getArgument(0).doInRabbit(ops));
+        doAnswer(inv -> sent.add(inv.getArgument(2))).when(ops).send(anyString(), anyString(), any(Message.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void publishesInIdOrderAcrossBatchesAndMarksRowsPublished() {
+        List<Long> ids = insert(25);
+
+        relay(10, Duration.ofSeconds(1)).relay();
+
+        assertEquals(ids, sent.stream().map(m -> Long.valueOf(m.getMessageProperties().getMessageId())).toList());
+        assertEquals("catalog.medicine.medicine_updated", captureRoutingKey());
+        verify(rabbitTemplate, times(3)).invoke(any(RabbitOperations.OperationsCallback.class));
+        verify(ops, times(3)).waitForConfirmsOrDie(anyLong());
+        assertTrue(outboxRepository.findAll().stream().allMatch(e -> e.getPublishedAt() != null && e.getClaimedUntil() == null));
+        assertEquals(25.0, registry.get("catalog.outbox.published").counter().count());
+        assertEquals(0.0, registry.get("catalog.outbox.pending").gauge().value());
+    }
+
+    @Test
+    void slowConfirmHalvesTheBatchAndPausesTheRelay() {
+        insert(50);
+        doAnswer(inv -> {
+            Thread.sleep(50);
+            return null;
+        }).when(ops).waitForConfirmsOrDie(anyLong());
+        CatalogOutboxRelay relay = relay(40, Duration.ofMillis(10));
+
+        relay.relay();
+        relay.relay();
+
+        assertEquals(40, sent.size());
+        assertEquals(20.0, registry.get("catalog.outbox.batch.size").gauge().value());
+        assertEquals(10, outboxRepository.countByPublishedAtIsNull());
+    }
+
+    @Test
+    void confirmTimeoutHalvesTheBatchReleasesTheRowsAndBacksOff() {
+        insert(5);
+        doThrow(new AmqpTimeoutException("no confirm")).when(ops).waitForConfirmsOrDie(anyLong());
+        CatalogOutboxRelay relay = relay(40, Duration.ofSeconds(1));
+
+        relay.relay();
+        relay.relay();
+
+        verify(rabbitTemplate, times(1)).invoke(any(RabbitOperations.OperationsCallback.class));
+        assertEquals(20.0, registry.get("catalog.outbox.batch.size").gauge().value());
+        assertEquals(1.0, registry.get("catalog.outbox.failures").counter().count());
+        assertTrue(outboxRepository.findAll().stream().allMatch(e -> e.getPublishedAt() == null && e.getClaimedUntil() == null));
+    }
+
+    @Test
+    void backoffDoublesWithEachFailureUpToTheMaximum() {
+        Duration max = Duration.ofSeconds(60);
+        assertEquals(1000, CatalogOutboxRelay.backoffMillis(1, max));
+        assertEquals(2000, CatalogOutboxRelay.backoffMillis(2, max));
+        assertEquals(4000, CatalogOutboxRelay.backoffMillis(3, max));
+        assertEquals(60_000, CatalogOutboxRelay.backoffMillis(7, max));
+        assertEquals(60_000, CatalogOutboxRelay.backoffMillis(1000, max));
+    }
+
+    @Test
+    void waitsWhileAnotherRelayHoldsTheOldestRows() {
+        List<Long> ids = insert(3);
+        CatalogOutboxEvent head = outboxRepository.findById(ids.get(0)).orElseThrow();
+        head.setClaimedUntil(LocalDateTime.now().plusMinutes(1));
+        outboxRepository.save(head);
+
+        relay(10, Duration.ofSeconds(1)).relay();
+
+        assertTrue(sent.isEmpty());
+        assertEquals(3, outboxRepository.countByPublishedAtIsNull());
+    }
+
+    @Test
+    void purgeRemovesOnlyRowsPublishedBeforeTheRetention() {
+        List<Long> ids = insert(3);
+        markPublished(ids.get(0), LocalDateTime.now().minusHours(25));
+        markPublished(ids.get(1), LocalDateTime.now().minusHours(1));
+
+        relay(10, Duration.ofSeconds(1)).purgePublished();
+
+        assertEquals(List.of(ids.get(1), ids.get(2)),
+                outboxRepository.findAll().stream().map(CatalogOutboxEvent::getId).sorted().toList());
+    }
+
+    private CatalogOutboxRelay relay(int batchSize, Duration slowConfirm) {
+        return new CatalogOutboxRelay(outboxRepository, rabbitTemplate, transactionManager, registry, true,
+                "medivex.catalog", batchSize, Duration.ofSeconds(2), slowConfirm, Duration.ofSeconds(60), Duration.ofHours(24));
+    }
+
+    private String captureRoutingKey() {
+        List<String> keys = new ArrayList<>();
+        verify(ops, atLeastOnce()).send(eq("medivex.catalog"), argThat(k -> keys.add(k)), any(Message.class));
+        return keys.get(0);
+    }
+
+    private List<Long> insert(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(outboxRepository.save(CatalogOutboxEvent.builder()
+                    .aggregateType(CatalogOutboxWriter.MEDICINE)
+                    .aggregateId((long) i)
+                    .eventType("MEDICINE_UPDATED")
+                    .payload("{}")
+                    .build()).getId());
+        }
+        return ids;
+    }
+
+    private void markPublished(Long id, LocalDateTime at) {
+        CatalogOutboxEvent e = outboxRepository.findById(id).orElseThrow();
+        e.setPublishedAt(at);
+        outboxRepository.save(e);
+    }
+}
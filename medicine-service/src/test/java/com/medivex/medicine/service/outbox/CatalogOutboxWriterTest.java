@@ -0,0 +1,82 @@
+package com.medivex.medicine.service.outbox;
+
+import com.medivex.medicine.service.entity.CatalogOutboxEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.MedicineSnapshot;
+import com.medivex.medicine.service.repository.CatalogOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "medicine.seed.enabled=false")
+@Import(CatalogOutboxWriter.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+// each test opens its own transactions so that commit and rollback are real
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CatalogOutboxWriterTest {
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private CatalogOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void eventRowIsWrittenWhenTheTransactionCommits() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                publisher.publishEvent(new MedicineChangedEvent(7L, null, snapshot(7L))));
+
+        List<CatalogOutboxEvent> rows = outboxRepository.findAll();
+        assertEquals(1, rows.size());
+        CatalogOutboxEvent row = rows.get(0);
+        assertEquals(CatalogOutboxWriter.MEDICINE, row.getAggregateType());
+        assertEquals(7L, row.getAggregateId());
+        assertEquals("MEDICINE_CREATED", row.getEventType());
+        assertTrue(row.getPayload().contains("\"name\":\"Paracetamol\""));
+        assertNull(row.getPublishedAt());
+    }
+
+    @Test
+    void eventRowIsDiscardedWhenTheTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            publisher.publishEvent(new MedicineChangedEvent(7L, snapshot(7L), snapshot(7L)));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void eventOutsideATransactionIsRejected() {
+        assertThrows(IllegalTransactionStateException.class, () ->
+                publisher.publishEvent(new MedicineChangedEvent(7L, null, snapshot(7L))));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private static MedicineSnapshot snapshot(Long id) {
+        return new MedicineSnapshot(id, "Paracetamol", "Paracetamol", "Calpol", 1L, false, true, new BigDecimal("2.50"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.medivex.medicine.service.repository;
+
+import com.medivex.medicine.service.dto.MedicineField;
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.entity.MedicineCategory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "medicine.seed.enabled=false")
+class MedicineProjectionRepositoryTest {
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private MedicineCategoryRepository categoryRepository;
+
+    private MedicineCategory tablets;
+
+    @BeforeEach
+    void setUp() {
+        tablets = categoryRepository.save(MedicineCategory.builder().name("Tablet").build());
+        MedicineCategory syrups = categoryRepository.save(MedicineCategory.builder().name("Syrup").build());
+        medicineRepository.save(medicine("Paracetamol 500", "PCM-500", "500mg", "12.50", tablets, true));
+        medicineRepository.save(medicine("Paracetamol 650", "PCM-650", "650mg", "15.00", tablets, false));
+        medicineRepository.save(medicine("Cough Relief", "CR-100", "100ml", "80.00", syrups, true));
+    }
+
+    @Test
+    void selectsOnlyRequestedColumnsInOrder() {
+        List<MedicineField> fields = MedicineField.parse("name,strength,price");
+        Page<Object[]> page = medicineRepository.findProjected(fields, new MedicineFilter("para", null, null, null),
+                PageRequest.of(0, 10, Sort.by("name")));
+
+        assertEquals(2, page.getTotalElements());
+        Object[] first = page.getContent().get(0);
+        assertEquals(4, first.length);
+        assertEquals("Paracetamol 500", first[1]);
+        assertEquals("500mg", first[2]);
+        assertEquals(0, new BigDecimal("12.50").compareTo((BigDecimal) first[3]));
+    }
+
+    @Test
+    void joinsCategoryOnlyForItsName() {
+        List<MedicineField> fields = MedicineField.parse("categoryId,categoryName");
+        Page<Object[]> page = medicineRepository.findProjected(fields, MedicineFilter.activeOnly(),
+                PageRequest.of(0, 10, Sort.by("categoryName", "id")));
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals("Syrup", page.getContent().get(0)[2]);
+        assertEquals(tablets.getId(), page.getContent().get(1)[1]);
+    }
+
+    @Test
+    void singleFieldStillReturnsArrays() {
+        Page<Object[]> page = medicineRepository.findProjected(MedicineField.parse("id"), MedicineFilter.category(tablets.getId()),
+                PageRequest.of(0, 1));
+
+        assertEquals(2, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertArrayEquals(new Object[]{page.getContent().get(0)[0]}, page.getContent().get(0));
+    }
+
+    private static Medicine medicine(String name, String code, String strength, String price, MedicineCategory category, boolean active) {
+        Medicine m = new Medicine();
+        m.setName(name);
+        m.setMedicineCode(code);
+        m.setStrength(strength);
+        m.setPrice(new BigDecimal(price));
+        m.setCategory(category);
+        m.setPrescriptionRequired(false);
+        m.setActive(active);
+        return m;
+    }
+}
@@ -0,0 +1,132 @@
+package com.medivex.medicine.service.security;
+
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksKeyResolverTest {
+
+    private final KeyPair keyPair = generate();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void verifiesLocallyWithFetchedKeysAndRefreshesOnlyWhenAskedForAnUnknownOne() throws IOException {
+        JwksKeyResolver resolver = new JwksKeyResolver(new SimpleMeterRegistry(), serve("key-1"),
+                Duration.ofHours(1), Duration.ZERO, "", "");
+        JwtTokenProvider provider = new JwtTokenProvider(resolver);
+        resolver.poll();
+        assertEquals(1, fetches.get());
+
+        String token = sign("key-1");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of("ROLE_PHARMACIST"), provider.extractRoles(provider.parseToken(token).getBody()));
+        }
+        resolver.poll();
+        assertEquals(1, fetches.get());
+
+        assertThrows(UnsupportedJwtException.class, () -> provider.parseToken(sign("key-2")));
+        resolver.poll();
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void acceptsLegacyHmacTokensOnlyBeforeTheSunset() throws IOException {
+        String secret = "test-secret-key-that-is-long-enough-for-hs256-signing";
+        String legacy = Jwts.builder()
+                .setSubject("pharmacist")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+        String uri = serve("key-1");
+
+        JwksKeyResolver accepting = new JwksKeyResolver(new SimpleMeterRegistry(), uri, Duration.ofHours(1), Duration.ZERO,
+                secret, Instant.now().plusSeconds(3600).toString());
+        assertEquals("pharmacist", new JwtTokenProvider(accepting).parseToken(legacy).getBody().getSubject());
+
+        JwksKeyResolver sunset = new JwksKeyResolver(new SimpleMeterRegistry(), uri, Duration.ofHours(1), Duration.ZERO,
+                secret, Instant.now().minusSeconds(1).toString());
+        assertThrows(UnsupportedJwtException.class, () -> new JwtTokenProvider(sunset).parseToken(legacy));
+
+        JwksKeyResolver unset = new JwksKeyResolver(new SimpleMeterRegistry(), uri, Duration.ofHours(1), Duration.ZERO,
+                secret, "");
+        assertThrows(UnsupportedJwtException.class, () -> new JwtTokenProvider(unset).parseToken(legacy));
+    }
+
+    private String serve(String kid) throws IOException {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        byte[] body = ("{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"" + kid
+                + "\",\"n\":\"" + base64Url(publicKey.getModulus()) + "\",\"e\":\"" + base64Url(publicKey.getPublicExponent())
+                + "\"}]}").getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/.well-known/jwks.json", exchange -> {
+            fetches.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/.well-known/jwks.json";
+    }
+
+    private String sign(String kid) {
+        return Jwts.builder()
+                .setHeaderParam("kid", kid)
+                .setSubject("pharmacist")
+                .claim("roles", List.of("ROLE_PHARMACIST"))
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+                .compact();
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
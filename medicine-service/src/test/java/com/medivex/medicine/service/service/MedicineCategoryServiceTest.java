@@ -0,0 +1,91 @@
+package com.medivex.medicine.service.service;
+
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "medicine.seed.enabled=false")
+@Import(MedicineCategoryService.class)
+@RecordApplicationEvents
+class MedicineCategoryServiceTest {
+
+    @Autowired
+    private MedicineCategoryService categoryService;
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private MedicineCategoryRepository categoryRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    private MedicineCategory tablets;
+    private MedicineCategory capsules;
+
+    @BeforeEach
+    void setUp() {
+        tablets = categoryRepository.save(MedicineCategory.builder().name("Tablet").build());
+        capsules = categoryRepository.save(MedicineCategory.builder().name("Capsule").build());
+        for (int i = 0; i < 3; i++) {
+            medicineRepository.save(medicine("TAB-" + i, tablets));
+        }
+        medicineRepository.save(medicine("CAP-0", capsules));
+    }
+
+    @Test
+    void mergeMovesAllMedicinesAndBumpsVersions() {
+        int affected = categoryService.retire(tablets.getId(), capsules.getId(), "admin");
+
+        assertEquals(3, affected);
+        assertFalse(categoryRepository.existsById(tablets.getId()));
+        List<Medicine> moved = medicineRepository.findAllWithCategoryByMedicineCodeIn(List.of("TAB-0", "TAB-1", "TAB-2"));
+        assertTrue(moved.stream().allMatch(m -> m.getCategory().getId().equals(capsules.getId())));
+        assertTrue(moved.stream().allMatch(m -> m.getVersion() == 1L && "admin".equals(m.getUpdatedBy())));
+        assertEquals(List.of(new CategoryRetiredEvent(tablets.getId(), capsules.getId(), 3)),
+                events.stream(CategoryRetiredEvent.class).toList());
+    }
+
+    @Test
+    void deleteDeactivatesMedicinesOfTheCategory() {
+        categoryService.delete(tablets.getId(), "admin");
+
+        assertFalse(categoryRepository.existsById(tablets.getId()));
+        List<Medicine> retired = medicineRepository.findAllWithCategoryByMedicineCodeIn(List.of("TAB-0", "TAB-1", "TAB-2"));
+        assertTrue(retired.stream().noneMatch(Medicine::getActive));
+        assertTrue(retired.stream().allMatch(m -> m.getCategory() == null));
+        assertTrue(medicineRepository.findByMedicineCode("CAP-0").orElseThrow().getActive());
+        assertEquals(1, events.stream(CategoryRetiredEvent.class).count());
+    }
+
+    @Test
+    void mergeIntoMissingCategoryChangesNothing() {
+        assertThrows(NoSuchElementException.class, () -> categoryService.retire(tablets.getId(), -1L, "admin"));
+        assertThrows(IllegalArgumentException.class, () -> categoryService.retire(tablets.getId(), tablets.getId(), "admin"));
+        assertTrue(categoryRepository.existsById(tablets.getId()));
+    }
+
+    private static Medicine medicine(String code, MedicineCategory category) {
+        Medicine m = new Medicine();
+        m.setName(code);
+        m.setMedicineCode(code);
+        m.setCategory(category);
+        m.setActive(true);
+        return m;
+    }
+}
@@ -0,0 +1,107 @@
+package com.medivex.medicine.service.service;
+
+import com.medivex.medicine.service.cache.MedicineSearchCache;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetItem;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetRequest;
+import com.medivex.medicine.service.dto.MedicineDtos.MedicineBulkGetResponse;
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {"medicine.seed.enabled=false", "medicine.bulk-get.batch-size=2", "medicine.bulk-get.max-items=6"})
+@Import(MedicineService.class)
+class MedicineServiceBulkGetTest {
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @MockitoSpyBean
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private MedicineCategoryRepository categoryRepository;
+
+    @MockitoBean
+    private MedicineSearchCache searchCache;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MedicineCategory tablets = categoryRepository.save(MedicineCategory.builder().name("Tablet").build());
+        for (int i = 0; i < 4; i++) {
+            ids.add(medicineRepository.save(medicine("TAB-" + i, tablets)).getId());
+        }
+        clearInvocations(medicineRepository);
+    }
+
+    @Test
+    void returnsItemsInRequestOrderAndReportsMissingOnes() {
+        MedicineBulkGetResponse response = medicineService.bulkGet(request(
+                List.of(ids.get(2), -1L, ids.get(0)), List.of("TAB-3", "NOPE")));
+
+        List<MedicineBulkGetItem> items = response.getItems();
+        assertEquals(List.of("TAB-2", "TAB-0"), List.of(items.get(0).getMedicine().getMedicineCode(), items.get(2).getMedicineCode()));
+        assertFalse(items.get(1).isFound());
+        assertEquals(-1L, items.get(1).getId());
+        assertEquals(ids.get(3), items.get(3).getId());
+        assertFalse(items.get(4).isFound());
+        assertEquals("NOPE", items.get(4).getMedicineCode());
+        assertEquals(3, response.getFound());
+        assertEquals(2, response.getMissing());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void queriesDuplicatesOnceAndSplitsTheInListAtTheBatchSize() {
+        MedicineBulkGetResponse response = medicineService.bulkGet(request(
+                List.of(ids.get(0), ids.get(1), ids.get(0), ids.get(2), ids.get(1)), List.of()));
+
+        // five requested, three distinct: batches of two and one
+        verify(medicineRepository).findAllWithCategoryByIdIn(List.of(ids.get(0), ids.get(1)));
+        verify(medicineRepository).findAllWithCategoryByIdIn(List.of(ids.get(2)));
+        verify(medicineRepository, times(2)).findAllWithCategoryByIdIn(anyList());
+        verify(medicineRepository, never()).findAllWithCategoryByMedicineCodeIn(anyList());
+        assertEquals(5, response.getItems().size());
+        assertEquals(5, response.getFound());
+    }
+
+    @Test
+    void rejectsRequestsAboveTheConfiguredMaximum() {
+        assertThrows(IllegalArgumentException.class, () -> medicineService.bulkGet(request(
+                List.of(1L, 2L, 3L, 4L), List.of("A", "B", "C"))));
+        assertThrows(IllegalArgumentException.class, () -> medicineService.bulkGet(request(List.of(), List.of())));
+        verifyNoInteractions(medicineRepository);
+    }
+
+    private static MedicineBulkGetRequest request(List<Long> ids, List<String> codes) {
+        MedicineBulkGetRequest request = new MedicineBulkGetRequest();
+        request.setIds(ids);
+        request.setMedicineCodes(codes);
+        return request;
+    }
+
+    private static Medicine medicine(String code, MedicineCategory category) {
+        Medicine m = new Medicine();
+        m.setName(code);
+        m.setMedicineCode(code);
+        m.setCategory(category);
+        m.setActive(true);
+        return m;
+    }
+}
@@ -0,0 +1,106 @@
+package com.medivex.medicine.service.stats;
+
+import com.medivex.medicine.service.dto.CategoryDtos.CategoryStatsResponse;
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.entity.MedicineCategory;
+import com.medivex.medicine.service.event.CategoryRetiredEvent;
+import com.medivex.medicine.service.event.MedicineChangedEvent;
+import com.medivex.medicine.service.event.MedicineSnapshot;
+import com.medivex.medicine.service.repository.MedicineCategoryRepository;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "medicine.seed.enabled=false")
+class CategoryStatsServiceTest {
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private MedicineCategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CategoryStatsService statsService;
+    private MedicineCategory tablets;
+    private MedicineCategory syrups;
+
+    @BeforeEach
+    void setUp() {
+        tablets = categoryRepository.save(MedicineCategory.builder().name("Tablet").build());
+        syrups = categoryRepository.save(MedicineCategory.builder().name("Syrup").build());
+        medicineRepository.save(medicine("TAB-1", tablets, "10.00", true, false));
+        medicineRepository.save(medicine("TAB-2", tablets, "30.00", false, true));
+        statsService = new CategoryStatsService(medicineRepository, categoryRepository, transactionManager, registry);
+        statsService.reconcile();
+    }
+
+    @Test
+    void reconciliationComputesAggregates() {
+        CategoryStatsResponse stats = statsService.get(tablets.getId());
+
+        assertEquals(2, stats.getMedicineCount());
+        assertEquals(1, stats.getActiveCount());
+        assertEquals(1, stats.getPrescriptionCount());
+        assertEquals(0, new BigDecimal("10").compareTo(stats.getMinPrice()));
+        assertEquals(0, new BigDecimal("30").compareTo(stats.getMaxPrice()));
+        assertEquals(0, new BigDecimal("20").compareTo(stats.getAvgPrice()));
+        assertEquals(0, statsService.get(syrups.getId()).getMedicineCount());
+    }
+
+    @Test
+    void repricingAndMovingKeepMinAndMaxExact() {
+        MedicineSnapshot before = new MedicineSnapshot(2L, "TAB-2", null, null, tablets.getId(), true, false, new BigDecimal("30.00"));
+        MedicineSnapshot after = new MedicineSnapshot(2L, "TAB-2", null, null, syrups.getId(), true, true, new BigDecimal("45.00"));
+        statsService.onMedicineChanged(new MedicineChangedEvent(2L, before, after));
+
+        CategoryStatsResponse tabletStats = statsService.get(tablets.getId());
+        assertEquals(1, tabletStats.getMedicineCount());
+        assertEquals(0, new BigDecimal("10").compareTo(tabletStats.getMaxPrice()));
+        CategoryStatsResponse syrupStats = statsService.get(syrups.getId());
+        assertEquals(1, syrupStats.getActiveCount());
+        assertEquals(0, new BigDecimal("45").compareTo(syrupStats.getMinPrice()));
+    }
+
+    @Test
+    void mergeFoldsStatisticsIntoReplacement() {
+        statsService.onCategoryRetired(new CategoryRetiredEvent(tablets.getId(), syrups.getId(), 2));
+
+        assertEquals(2, statsService.get(syrups.getId()).getMedicineCount());
+        assertThrows(NoSuchElementException.class, () -> statsService.get(tablets.getId()));
+    }
+
+    @Test
+    void reconciliationCorrectsAndCountsDrift() {
+        MedicineSnapshot phantom = new MedicineSnapshot(99L, "Ghost", null, null, syrups.getId(), false, true, BigDecimal.ONE);
+        statsService.onMedicineChanged(new MedicineChangedEvent(99L, null, phantom));
+
+        statsService.reconcile();
+
+        assertEquals(0, statsService.get(syrups.getId()).getMedicineCount());
+        assertEquals(1.0, registry.get("medicine.category.stats.drift").counter().count());
+    }
+
+    private static Medicine medicine(String code, MedicineCategory category, String price, boolean active, boolean prescription) {
+        Medicine m = new Medicine();
+        m.setName(code);
+        m.setMedicineCode(code);
+        m.setCategory(category);
+        m.setPrice(new BigDecimal(price));
+        m.setActive(active);
+        m.setPrescriptionRequired(prescription);
+        return m;
+    }
+}
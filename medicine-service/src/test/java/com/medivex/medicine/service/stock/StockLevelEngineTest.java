@@ -0,0 +1,221 @@
+package com.medivex.medicine.service.stock;
+
+import com.medivex.medicine.service.dto.StockDtos.StockLevelResponse;
+import com.medivex.medicine.service.dto.StockDtos.StockUpdate;
+import com.medivex.medicine.service.entity.Medicine;
+import com.medivex.medicine.service.entity.MedicineStockLevel;
+import com.medivex.medicine.service.event.StockLevelCrossedEvent;
+import com.medivex.medicine.service.repository.MedicineRepository;
+import com.medivex.medicine.service.repository.MedicineStockLevelRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a long flush interval keeps the scheduled flush from committing in the background
+@DataJpaTest(properties = {"medicine.seed.enabled=false", "medicine.stock.flush-interval-ms=3600000"})
+@Import({StockLevelEngine.class, StockLevelEngineTest.Metrics.class})
+@RecordApplicationEvents
+class StockLevelEngineTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private StockLevelEngine engine;
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private MedicineStockLevelRepository stockLevelRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Long medicineId;
+
+    @BeforeEach
+    void setUp() {
+        medicineId = medicineRepository.save(Medicine.builder()
+                .name("Paracetamol 500").medicineCode("PARA-500")
+                .minimumStockLevel(5).maximumStockLevel(50)
+                .active(true).prescriptionRequired(false)
+                .build()).getId();
+    }
+
+    @Test
+    void raisesEventsOnlyOnCrossingsAndPersistsOnFlush() {
+        assertEquals(StockState.LOW, engine.get(medicineId).getState());
+
+        engine.apply(set(20));
+        engine.apply(adjust(-3));
+        engine.apply(adjust(-12));
+
+        assertEquals(0, stockLevelRepository.count());
+        assertEquals(0, events.stream(StockLevelCrossedEvent.class).count());
+
+        engine.flush();
+
+        MedicineStockLevel row = stockLevelRepository.findById(medicineId).orElseThrow();
+        assertEquals(5, row.getQuantity());
+        assertEquals(StockState.LOW, row.getState());
+        assertEquals(List.of(
+                        new StockLevelCrossedEvent(medicineId, StockState.LOW, StockState.NORMAL, 20, 5, 50),
+                        new StockLevelCrossedEvent(medicineId, StockState.NORMAL, StockState.LOW, 5, 5, 50)),
+                events.stream(StockLevelCrossedEvent.class).toList());
+    }
+
+    @Test
+    void concurrentIncrementsCrossEachLevelOnce() throws Exception {
+        engine.get(medicineId);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        engine.apply(adjust(1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        engine.flush();
+
+        assertEquals(8000, engine.get(medicineId).getQuantity());
+        assertEquals(StockState.OVER, engine.get(medicineId).getState());
+        // one CAS may move straight from LOW to OVER, so only which levels were entered is fixed
+        List<StockState> entered = events.stream(StockLevelCrossedEvent.class).map(StockLevelCrossedEvent::current).toList();
+        assertEquals(Set.copyOf(entered).size(), entered.size(), "each level is entered once");
+        assertTrue(entered.contains(StockState.OVER));
+        assertFalse(entered.contains(StockState.LOW));
+    }
+
+    @Test
+    void rejectsAdjustmentBelowZeroWithoutChangingQuantity() {
+        engine.apply(set(2));
+
+        assertThrows(IllegalArgumentException.class, () -> engine.apply(adjust(-3)));
+        assertEquals(2, engine.get(medicineId).getQuantity());
+    }
+
+    @Test
+    void batchIsRejectedWholeWhenAnyEntryWouldFail() {
+        Long otherId = medicineRepository.save(Medicine.builder()
+                .name("Ibuprofen 400").medicineCode("IBU-400")
+                .active(true).prescriptionRequired(false)
+                .build()).getId();
+        engine.apply(set(10));
+
+        // the third entry takes the running total below zero
+        assertThrows(IllegalArgumentException.class, () -> engine.applyAll(List.of(
+                adjust(-4), StockUpdate.builder().medicineId(otherId).quantity(30).build(), adjust(-7))));
+        assertThrows(NoSuchElementException.class, () -> engine.applyAll(List.of(adjust(5), StockUpdate.builder().medicineId(-1L).delta(-1).build())));
+        assertThrows(IllegalArgumentException.class, () -> engine.applyAll(List.of(adjust(5), StockUpdate.builder().medicineId(otherId).build())));
+
+        assertEquals(10, engine.get(medicineId).getQuantity());
+        assertEquals(0, engine.get(otherId).getQuantity());
+
+        assertEquals(2, engine.applyAll(List.of(adjust(-4), adjust(-6))).getApplied());
+        assertEquals(0, engine.get(medicineId).getQuantity());
+        // the engine outlives the test; leave no crossings queued for the next one
+        engine.flush();
+    }
+
+    @Test
+    void instancesSharingTheDatabaseKeepEachOthersChanges() {
+        StockLevelEngine other = anotherInstance();
+        engine.apply(set(20));
+        engine.flush();
+        assertEquals(20, other.get(medicineId).getQuantity());
+
+        // both take stock from the same starting quantity
+        engine.apply(adjust(-5));
+        other.apply(adjust(-3));
+        engine.flush();
+        other.flush();
+
+        assertEquals(12, stockLevelRepository.findById(medicineId).orElseThrow().getQuantity());
+        assertEquals(12, other.get(medicineId).getQuantity(), "the flush picks up the other instance's change");
+        assertEquals(15, engine.get(medicineId).getQuantity());
+        engine.refresh();
+        assertEquals(12, engine.get(medicineId).getQuantity());
+
+        // a change made after the refresh read is kept, not replaced by the stored quantity
+        engine.apply(adjust(4));
+        other.apply(adjust(-2));
+        other.flush();
+        engine.refresh();
+        assertEquals(14, engine.get(medicineId).getQuantity());
+        engine.flush();
+        assertEquals(14, stockLevelRepository.findById(medicineId).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void lowAndOverListsComeFromTheStoredLevelsAfterARestart() {
+        Long unstocked = medicineRepository.save(Medicine.builder()
+                .name("Ibuprofen 400").medicineCode("IBU-400")
+                .active(true).prescriptionRequired(false)
+                .build()).getId();
+        engine.apply(set(60));
+        engine.flush();
+
+        StockLevelEngine restarted = anotherInstance();
+        assertEquals(List.of(medicineId), restarted.inState(StockState.OVER).stream().map(StockLevelResponse::getMedicineId).toList());
+        List<Long> low = restarted.inState(StockState.LOW).stream().map(StockLevelResponse::getMedicineId).toList();
+        assertTrue(low.contains(unstocked), "a medicine never stocked is low");
+        assertFalse(low.contains(medicineId));
+
+        // an unflushed change on this instance wins over the stored state
+        restarted.apply(set(3));
+        assertTrue(restarted.inState(StockState.OVER).isEmpty());
+        assertTrue(restarted.inState(StockState.LOW).stream().anyMatch(r -> r.getMedicineId().equals(medicineId) && r.getQuantity() == 3));
+    }
+
+    private StockLevelEngine anotherInstance() {
+        return new StockLevelEngine(medicineRepository, stockLevelRepository, transactionManager, eventPublisher,
+                new SimpleMeterRegistry(), 10, 500);
+    }
+
+    private StockUpdate set(int quantity) {
+        return StockUpdate.builder().medicineId(medicineId).quantity(quantity).build();
+    }
+
+    private StockUpdate adjust(int delta) {
+        return StockUpdate.builder().medicineId(medicineId).delta(delta).build();
+    }
+}
@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+#
+# Compares startup of the regular fat jar with the AOT + AppCDS build of a service.
+#
+#   scripts/startup-benchmark.sh <service-dir> [runs]
+#
+# Builds the service with -Poptimized (set SKIP_BUILD=1 to reuse target/), then starts each
+# variant `runs` times and reports time-to-first-request (JVM launch until the first HTTP
+# response from /actuator/health, whatever its status) and resident set size at that moment.
+# The service's config-server file is used directly; extra application arguments can be
+# passed through APP_ARGS. Backing services that are down only make both variants log more.
+#
+set -euo pipefail
+
+service_dir=${1:?usage: $0 <service-dir> [runs]}
+runs=${2:-5}
+port=${PORT:-18080}
+service=$(basename "$service_dir")
+root=$(cd "$(dirname "$0")/.." && pwd)
+config="$root/config-server/src/main/resources/config/$service.yml"
+
+cd "$service_dir"
+if [[ -z "${SKIP_BUILD:-}" ]]; then
+  ./mvnw -B -q -Poptimized -DskipTests clean package
+fi
+jar=$(ls target/"$service"-*.jar | grep -v original | head -n 1)
+
+app_args=(--server.port="$port" --spring.config.additional-location="optional:file:$config" --spring.cloud.refresh.enabled=false)
+# shellcheck disable=SC2206
+app_args+=(${APP_ARGS:-})
+
+now_ms() { date +%s%3N; }
+
+# Prints "<ms> <rss-kb>" for one start of the given command line.
+measure() {
+  local start pid elapsed rss
+  start=$(now_ms)
+  "$@" "${app_args[@]}" > /dev/null 2>&1 &
+  pid=$!
+  until curl -s -o /dev/null "http://localhost:$port/actuator/health"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "process exited before serving a request" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - start ))
+  rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+  echo "$elapsed $rss"
+}
+
+report() {
+  local label=$1; shift
+  local total_ms=0 total_rss=0 result ms rss
+  for ((i = 1; i <= runs; i++)); do
+    result=$(measure "$@")
+    read -r ms rss <<< "$result"
+    printf '%-10s run %d: %6d ms  %7d KB RSS\n' "$label" "$i" "$ms" "$rss"
+    total_ms=$((total_ms + ms))
+    total_rss=$((total_rss + rss))
+  done
+  printf '%-10s mean : %6d ms  %7d KB RSS\n\n' "$label" $((total_ms / runs)) $((total_rss / runs))
+}
+
+report regular java -jar "$jar"
+(
+  cd target/optimized
+  report optimized java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar "$(basename "$jar")"
+)
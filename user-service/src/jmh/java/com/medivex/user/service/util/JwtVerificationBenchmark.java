@@ -0,0 +1,100 @@
+package com.medivex.user.service.util;
+
+import com.medivex.user.service.entity.Role;
+import com.medivex.user.service.entity.User;
+import com.medivex.user.service.security.SigningKeyStore;
+import com.medivex.user.service.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling cost of one authenticated request. {@code reparsePerClaim} is what the filter
+ * used to do: validate, then read the username and the user id, each call building a parser and
+ * verifying the signature again. {@code verifyOnce} is the current path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtUtil jwtUtil;
+    private SigningKeyStore.Key key;
+    private String token;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair pair = generator.generateKeyPair();
+        key = new SigningKeyStore.Key(1L, "benchmark", (RSAPublicKey) pair.getPublic(), pair.getPrivate(), LocalDateTime.now());
+        // a mock would record every call and skew the numbers
+        SigningKeyStore signingKeys = new SigningKeyStore(null, 2048, Duration.ZERO, Duration.ZERO, 0) {
+            @Override
+            public Key signingKey() {
+                return key;
+            }
+
+            @Override
+            public PublicKey publicKey(String kid) {
+                return key.publicKey();
+            }
+        };
+        jwtUtil = new JwtUtil(signingKeys);
+        ReflectionTestUtils.setField(jwtUtil, "secret", "");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 7_200_000L);
+        ReflectionTestUtils.setField(jwtUtil, "maxRoles", 16);
+        ReflectionTestUtils.setField(jwtUtil, "maxPermissions", 64);
+        ReflectionTestUtils.setField(jwtUtil, "maxTokenBytes", 4096);
+        jwtUtil.init();
+        Role role = Role.builder().name("PHARMACIST").build();
+        token = jwtUtil.generateToken(User.builder().id(42L).username("pharmacist").roles(Set.of(role)).build());
+    }
+
+    @Benchmark
+    public void reparsePerClaim(Blackhole blackhole) {
+        blackhole.consume(parseWithFreshKey().getExpiration());
+        blackhole.consume(parseWithFreshKey().getSubject());
+        blackhole.consume(parseWithFreshKey().get(JwtUtil.USER_ID_CLAIM));
+    }
+
+    @Benchmark
+    public void verifyOnce(Blackhole blackhole) {
+        VerifiedToken verified = jwtUtil.verify(token);
+        blackhole.consume(verified.username());
+        blackhole.consume(verified.userId());
+    }
+
+    private Claims parseWithFreshKey() {
+        return Jwts.parser()
+                .verifyWith(key.publicKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+}
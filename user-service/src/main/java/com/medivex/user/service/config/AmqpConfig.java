@@ -0,0 +1,63 @@
+package com.medivex.user.service.config;
+
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class AmqpConfig {
+
+    public static final String EMAIL_QUEUE = "user.email";
+    // emails still failing after the last retry, kept for inspection
+    public static final String EMAIL_FAILED_QUEUE = "user.email.failed";
+
+    /**
+     * Delay queue for the given retry: messages sit there for that retry's delay, then expire
+     * back onto {@link #EMAIL_QUEUE}.
+     */
+    public static String emailRetryQueue(int attempt) {
+        return EMAIL_QUEUE + ".retry." + attempt;
+    }
+
+    @Bean
+    public Declarables emailQueues(@Value("${app.email.retry-delays:5s,1m,10m}") List<Duration> retryDelays) {
+        List<Declarable> queues = new ArrayList<>();
+        queues.add(QueueBuilder.durable(EMAIL_QUEUE).build());
+        queues.add(QueueBuilder.durable(EMAIL_FAILED_QUEUE).build());
+        for (int i = 0; i < retryDelays.size(); i++) {
+            queues.add(QueueBuilder.durable(emailRetryQueue(i + 1))
+                    .ttl((int) retryDelays.get(i).toMillis())
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(EMAIL_QUEUE)
+                    .build());
+        }
+        return new Declarables(queues);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory emailListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.email.batch-size:50}") int batchSize,
+            @Value("${app.email.concurrency:2}") int concurrency) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        // up to batch-size messages per delivery, or whatever arrived within the receive timeout
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(Math.max(batchSize, 250));
+        factory.setConcurrentConsumers(concurrency);
+        return factory;
+    }
+}
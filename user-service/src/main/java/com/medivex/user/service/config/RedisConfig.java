@@ -0,0 +1,24 @@
+package com.medivex.user.service.config;
+
+import com.medivex.user.service.security.RevocationFilter;
+import com.medivex.user.service.security.UserDetailsCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+    
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RevocationFilter revocationFilter,
+                                                                       UserDetailsCache userDetailsCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(revocationFilter, new ChannelTopic(RevocationFilter.CHANNEL));
+        container.addMessageListener(userDetailsCache, new ChannelTopic(UserDetailsCache.CHANNEL));
+        return container;
+    }
+}
@@ -1,10 +1,15 @@
 package com.medivex.user.service.config;
 
+import com.medivex.user.service.security.BoundedPasswordEncoder;
 import com.medivex.user.service.security.JwtAuthenticationEntryPoint;
 import com.medivex.user.service.security.JwtAuthenticationFilter;
+import com.medivex.user.service.security.UserDetailsCache;
 import com.medivex.user.service.service.TokenBlacklistService;
 import com.medivex.user.service.service.UserService;
 import com.medivex.user.service.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -15,15 +20,14 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
@@ -31,28 +35,37 @@ import java.util.Arrays;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
     
-    private final UserService userService;
+    // resolved on first use: UserService needs the PasswordEncoder defined here (a @Lazy class proxy is not AOT-compatible)
+    private final ObjectProvider<UserService> userService;
     private final JwtUtil jwtUtil;
     private final TokenBlacklistService tokenBlacklistService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private final UserDetailsCache userDetailsCache;
     
-    public SecurityConfig(@Lazy UserService userService, JwtUtil jwtUtil, TokenBlacklistService tokenBlacklistService, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint) {
+    public SecurityConfig(ObjectProvider<UserService> userService, JwtUtil jwtUtil, TokenBlacklistService tokenBlacklistService, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint, UserDetailsCache userDetailsCache) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
         this.tokenBlacklistService = tokenBlacklistService;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
+        this.userDetailsCache = userDetailsCache;
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password-hashing.strength:10}") int strength,
+                                           @Value("${security.password-hashing.threads:0}") int threads,
+                                           @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                           @Value("${security.password-hashing.max-wait:5s}") Duration maxWait) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, maxWait, meterRegistry);
     }
     
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsService(userService.getObject());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // re-hashes passwords stored with a lower cost than configured on successful login
+        authProvider.setUserDetailsPasswordService(userService.getObject());
         authProvider.setHideUserNotFoundExceptions(false);
         return authProvider;
     }
@@ -64,11 +77,11 @@ public class SecurityConfig {
     
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtil, userService, tokenBlacklistService);
+        return new JwtAuthenticationFilter(jwtUtil, userService.getObject(), tokenBlacklistService, userDetailsCache);
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(AbstractHttpConfigurer::disable)
             .exceptionHandling(exception -> exception.authenticationEntryPoint(jwtAuthenticationEntryPoint))
@@ -78,6 +91,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/users/register").permitAll()
                 .requestMatchers("/api/health").permitAll()
+                .requestMatchers("/.well-known/jwks.json").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .requestMatchers("/error", "/error/**").permitAll()
                 
@@ -93,7 +107,7 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
             );
         
-        http.authenticationProvider(authenticationProvider());
+        http.authenticationProvider(authenticationProvider);
         // Add JWT filter for all endpoints - the filter itself handles skipping auth endpoints
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
         
@@ -1,10 +1,13 @@
 package com.medivex.user.service.controller;
 
 import com.medivex.user.service.dto.*;
+import com.medivex.user.service.security.UserAuthenticationToken;
 import com.medivex.user.service.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -27,23 +30,37 @@ public class AuthController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequestDto loginRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequestDto loginRequest, HttpServletRequest request) {
         if (loginRequest.getUsernameOrEmail() == null || loginRequest.getUsernameOrEmail().isEmpty() ||
             loginRequest.getPassword() == null || loginRequest.getPassword().isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Username/email and password are required"));
         }
         log.info("User login request for: {}", loginRequest.getUsernameOrEmail());
-        JwtResponseDto response = authService.login(loginRequest);
+        // the gateway's address is replaced by the client's from X-Forwarded-For (server.forward-headers-strategy)
+        JwtResponseDto response = authService.login(loginRequest, request.getRemoteAddr());
         return ResponseEntity.ok(response);
     }
     
     @PostMapping("/logout")
     public ResponseEntity<Map<String, String>> logout(Authentication authentication) {
         log.info("User logout request");
-        authService.logout(authentication.getName());
+        if (!(authentication instanceof UserAuthenticationToken user)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "A valid access token is required"));
+        }
+        authService.logout(user.getToken());
         return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
     
+    @PostMapping("/logout-all")
+    public ResponseEntity<Map<String, String>> logoutEverywhere(Authentication authentication) {
+        log.info("User logout request for all sessions");
+        if (!(authentication instanceof UserAuthenticationToken user)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "A valid access token is required"));
+        }
+        authService.logoutEverywhere(user.getToken());
+        return ResponseEntity.ok(Map.of("message", "Logged out of all sessions"));
+    }
+    
     @PostMapping("/refresh")
     public ResponseEntity<JwtResponseDto> refreshToken(@RequestBody Map<String, String> request) {
         String refreshToken = request.get("refreshToken");
@@ -0,0 +1,51 @@
+package com.medivex.user.service.controller;
+
+import com.medivex.user.service.security.SigningKeyStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the public signing keys as a JSON Web Key Set, so other services verify tokens
+ * locally without sharing a secret with user-service.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    
+    private final SigningKeyStore signingKeyStore;
+    
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, String>>>> jwks() {
+        List<Map<String, String>> keys = signingKeyStore.publishedKeys().stream()
+                .map(key -> Map.of(
+                        "kty", "RSA",
+                        "use", "sig",
+                        "alg", SigningKeyStore.ALGORITHM,
+                        "kid", key.kid(),
+                        "n", base64Url(key.publicKey().getModulus()),
+                        "e", base64Url(key.publicKey().getPublicExponent())))
+                .toList();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(Map.of("keys", keys));
+    }
+    
+    // unsigned big-endian, as RFC 7518 requires
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
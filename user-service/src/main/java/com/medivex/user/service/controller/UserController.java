@@ -1,6 +1,7 @@
 package com.medivex.user.service.controller;
 
 import com.medivex.user.service.dto.*;
+import com.medivex.user.service.security.UserAuthenticationToken;
 import com.medivex.user.service.service.UserService;
 import com.medivex.user.service.service.AuthService;
 import jakarta.validation.Valid;
@@ -121,7 +122,10 @@ public class UserController {
     }
     
     private Long getCurrentUserId(Authentication authentication) {
-        // This is a simplified approach - in a real application, you might want to store user ID in JWT claims
+        if (authentication instanceof UserAuthenticationToken token && token.getUserId() != null) {
+            return token.getUserId();
+        }
+        // tokens issued before the user id claim was added
         String username = authentication.getName();
         return userService.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"))
@@ -0,0 +1,7 @@
+package com.medivex.user.service.dto;
+
+/**
+ * A rendered email waiting in the dispatch queue.
+ */
+public record OutgoingEmailDto(String to, String subject, String text) {
+}
@@ -0,0 +1,44 @@
+package com.medivex.user.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email written in the same transaction as the change that triggers it and handed to the
+ * email queue by {@code EmailOutboxRelay} once the broker has confirmed it.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_sent", columnList = "sent_at, id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // OutgoingEmailDto as JSON, published as is
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    
+    // set while a relay publishes the row outside its lock; an expired claim is taken over
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
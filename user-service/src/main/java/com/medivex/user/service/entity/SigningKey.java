@@ -0,0 +1,49 @@
+package com.medivex.user.service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * An RSA key pair for signing tokens, shared by all user-service instances. A key is published
+ * in the JWKS from creation but only signs from {@code activatesAt}, which gives verifiers time
+ * to fetch it before the first token signed with it arrives.
+ */
+@Entity
+@Table(name = "signing_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SigningKey {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(unique = true, nullable = false, length = 64)
+    private String kid;
+    
+    @Column(nullable = false, length = 16)
+    private String algorithm;
+    
+    // X.509 encoded, base64
+    @Column(name = "public_key", nullable = false, columnDefinition = "TEXT")
+    private String publicKey;
+    
+    // PKCS#8 encoded, encrypted by SigningKeyCipher
+    @Column(name = "private_key", nullable = false, columnDefinition = "TEXT")
+    private String privateKey;
+    
+    @Column(name = "activates_at", nullable = false)
+    private LocalDateTime activatesAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
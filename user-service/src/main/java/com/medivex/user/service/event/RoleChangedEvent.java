@@ -0,0 +1,7 @@
+package com.medivex.user.service.event;
+
+/**
+ * A change to a role's name, permissions or active flag, affecting every user holding it.
+ */
+public record RoleChangedEvent(Long roleId) {
+}
@@ -0,0 +1,7 @@
+package com.medivex.user.service.event;
+
+/**
+ * A change to what a user's authentication is built from: roles, account status, lock or password.
+ */
+public record UserSecurityChangedEvent(String username) {
+}
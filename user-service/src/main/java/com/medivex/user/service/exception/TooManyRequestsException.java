@@ -0,0 +1,20 @@
+package com.medivex.user.service.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Rejects a request the service has no capacity for right now; answered with 429 and a
+ * Retry-After header.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
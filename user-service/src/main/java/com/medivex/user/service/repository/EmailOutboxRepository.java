@@ -0,0 +1,48 @@
+package com.medivex.user.service.repository;
+
+import com.medivex.user.service.entity.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+    
+    /**
+     * Oldest unsent emails nobody holds a claim on, row-locked until the claim commits so that
+     * relays on other nodes take different rows.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from EmailOutboxMessage m where m.sentAt is null "
+            + "and (m.claimedUntil is null or m.claimedUntil < :now) order by m.id")
+    List<EmailOutboxMessage> lockUnclaimed(LocalDateTime now, Pageable pageable);
+    
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.claimedUntil = :until where m.id in :ids")
+    int claim(Collection<Long> ids, LocalDateTime until);
+    
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.claimedUntil = null where m.id in :ids")
+    int release(Collection<Long> ids);
+    
+    long countBySentAtIsNull();
+    
+    @Query("select min(m.createdAt) from EmailOutboxMessage m where m.sentAt is null")
+    LocalDateTime findOldestUnsentCreatedAt();
+    
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.sentAt = :sentAt, m.claimedUntil = null where m.id in :ids")
+    int markSent(Collection<Long> ids, LocalDateTime sentAt);
+    
+    @Modifying
+    @Query("delete from EmailOutboxMessage m where m.sentAt < :before")
+    int deleteSentBefore(LocalDateTime before);
+}
@@ -0,0 +1,13 @@
+package com.medivex.user.service.repository;
+
+import com.medivex.user.service.entity.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, Long> {
+    
+    List<SigningKey> findAllByOrderByActivatesAtDesc();
+}
@@ -47,6 +47,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findAllByDeletedAtIsNullAndAccountLockedUntilIsNotNullAndAccountLockedUntilAfter(LocalDateTime now);
 
+    @Query("SELECT u.username FROM User u JOIN u.roles r WHERE r.id = :roleId")
+    List<String> findUsernamesByRoleId(@Param("roleId") Long roleId);
+
     @Query("SELECT u FROM User u WHERE u.deletedAt IS NULL AND (" +
            "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
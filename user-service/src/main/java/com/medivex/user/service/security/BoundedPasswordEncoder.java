@@ -0,0 +1,120 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt on a fixed pool of threads, one per core by default, so a burst of logins uses at most
+ * that many cores and leaves the rest to other requests. Work beyond the pool waits in a bounded
+ * queue; when the queue is full, or the work waits longer than {@code maxWait}, the caller gets a
+ * {@link TooManyRequestsException} instead of piling up behind it.
+ *
+ * <p>{@link #upgradeEncoding} reports hashes made with a lower cost than configured, so the
+ * authentication provider re-hashes them on the next successful login.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, Duration maxWait, MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(strength);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxWaitNanos = maxWait.toNanos();
+        this.encodeTimer = Timer.builder("user.password.hash").tag("operation", "encode")
+                .description("Time spent hashing or verifying a password")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("user.password.hash").tag("operation", "matches")
+                .register(meterRegistry);
+        this.queueTimer = Timer.builder("user.password.hash.queued")
+                .description("Time password work waited for a hashing thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("user.password.hash.rejected").register(meterRegistry);
+        Gauge.builder("user.password.hash.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("user.password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        log.info("Hashing passwords with BCrypt cost {} on {} threads", strength, poolSize);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(work);
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private TooManyRequestsException busy() {
+        rejected.increment();
+        return new TooManyRequestsException("Too many sign-in requests, please retry shortly", Duration.ofSeconds(1));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
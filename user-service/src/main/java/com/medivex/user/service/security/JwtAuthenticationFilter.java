@@ -9,7 +9,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -27,6 +26,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserService userService;
     private final TokenBlacklistService tokenBlacklistService;
+    private final UserDetailsCache userDetailsCache;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -35,10 +35,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String requestPath = request.getRequestURI();
         log.debug("JWT Filter processing request: {}", requestPath);
         
-        // Skip JWT authentication for public endpoints
-        if (requestPath.startsWith("/api/auth/") || 
+        // Skip JWT authentication for public endpoints; logout and /me need the caller's token
+        if ((requestPath.startsWith("/api/auth/") && !requestPath.equals("/api/auth/logout")
+                && !requestPath.equals("/api/auth/logout-all") && !requestPath.equals("/api/auth/me")) ||
             requestPath.equals("/api/users/register") ||
-            requestPath.startsWith("/api/health") || 
+            requestPath.startsWith("/api/health") ||
+            requestPath.equals("/.well-known/jwks.json") ||
             requestPath.startsWith("/actuator/")) {
             log.debug("Skipping JWT authentication for public endpoint: {}", requestPath);
             filterChain.doFilter(request, response);
@@ -48,19 +50,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
+            if (StringUtils.hasText(jwt)) {
+                // verified once here; everything after this reads the claims from the authentication
+                VerifiedToken token = jwtUtil.verify(jwt);
+                if (token.isRefreshToken()) {
+                    log.warn("Refresh token used as an access token");
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                
                 // Check if token is blacklisted
-                if (tokenBlacklistService.isTokenBlacklisted(jwt)) {
-                    log.warn("Blacklisted token used: {}", jwt);
+                if (tokenBlacklistService.isRevoked(token)) {
+                    log.warn("Revoked token used by {}", token.username());
                     filterChain.doFilter(request, response);
                     return;
                 }
                 
-                String username = jwtUtil.extractUsername(jwt);
-                UserDetails userDetails = userService.loadUserByUsername(username);
+                UserDetails userDetails = userDetailsCache.get(token.username(), userService::loadUserByUsername);
                 
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                UserAuthenticationToken authentication = new UserAuthenticationToken(userDetails, token);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
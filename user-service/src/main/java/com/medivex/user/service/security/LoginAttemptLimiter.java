@@ -0,0 +1,329 @@
+package com.medivex.user.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medivex.user.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Failed login attempts per username and per client IP over a sliding window, counted in memory
+ * so a credential-stuffing burst costs no database writes, and checked before the password is
+ * hashed. The window is approximated from two fixed buckets aligned on the clock, the previous
+ * one weighted by how much of it still overlaps the window.
+ *
+ * <p>Counts are shared through Redis: local increments are added to the bucket's Redis counter
+ * in one pipelined batch per flush, and each reply brings back the total across all nodes. A key
+ * seen for the first time is read from Redis once. If Redis is unreachable each node limits on
+ * its own counts.
+ *
+ * <p>Failures are counted per account, so a username and its email share one window. The email
+ * is mapped to the account when the user is loaded for a sign-in ({@link #resolved}); until a
+ * node has seen that once, an email's first attempt there is counted on its own.
+ */
+@Component
+@Slf4j
+public class LoginAttemptLimiter {
+
+    static final String KEY_PREFIX = "login-attempts:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long windowMillis;
+    private final int maxFailuresPerUser;
+    private final int maxFailuresPerIp;
+    private final Cache<String, Window> windows;
+    // identifier signed in with -> account username, both normalised
+    private final Cache<String, String> accounts;
+    private final Counter throttledUser;
+    private final Counter throttledIp;
+    private LongSupplier clock = System::currentTimeMillis;
+
+    public LoginAttemptLimiter(RedisTemplate<String, String> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.login-attempts.window:15m}") Duration window,
+                               @Value("${security.login-attempts.max-failures-per-user:5}") int maxFailuresPerUser,
+                               @Value("${security.login-attempts.max-failures-per-ip:50}") int maxFailuresPerIp,
+                               @Value("${security.login-attempts.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = window.toMillis();
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        // an entry idle for two buckets has nothing left in the window
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(window.multipliedBy(2))
+                .build();
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(window.multipliedBy(2))
+                .build();
+        this.throttledUser = Counter.builder("user.login.throttled").tag("scope", "user").register(meterRegistry);
+        this.throttledIp = Counter.builder("user.login.throttled").tag("scope", "ip").register(meterRegistry);
+        Gauge.builder("user.login.attempts.tracked", windows, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Throws if the username or the client IP has used up its failures for the window.
+     */
+    public void checkAllowed(String username, String clientIp) {
+        long now = clock.getAsLong();
+        if (clientIp != null && window(ipKey(clientIp), now).estimate(now, windowMillis) >= maxFailuresPerIp) {
+            throttledIp.increment();
+            throw throttled(now);
+        }
+        if (window(accountKey(username), now).estimate(now, windowMillis) >= maxFailuresPerUser) {
+            throttledUser.increment();
+            throw throttled(now);
+        }
+    }
+
+    /**
+     * Counts a failed attempt. Returns true when it is the one that brings the username to its
+     * limit, which is when the account should be locked.
+     */
+    public boolean recordFailure(String username, String clientIp) {
+        long now = clock.getAsLong();
+        if (clientIp != null) {
+            window(ipKey(clientIp), now).increment(now, windowMillis);
+        }
+        Window user = window(accountKey(username), now);
+        double before = user.estimate(now, windowMillis);
+        user.increment(now, windowMillis);
+        return before < maxFailuresPerUser && user.estimate(now, windowMillis) >= maxFailuresPerUser;
+    }
+
+    /**
+     * Clears the username's failures after it signed in; the client IP keeps its count.
+     */
+    public void recordSuccess(String username) {
+        String key = accountKey(username);
+        Window window = windows.getIfPresent(key);
+        if (window == null || window.estimate(clock.getAsLong(), windowMillis) == 0) {
+            return;
+        }
+        windows.invalidate(key);
+        long bucket = window.bucket();
+        try {
+            redisTemplate.delete(List.of(redisKey(key, bucket), redisKey(key, bucket - 1)));
+        } catch (DataAccessException e) {
+            log.debug("Cannot clear login attempts of {}: {}", username, e.getMessage());
+        }
+    }
+
+    /**
+     * Records that signing in as {@code usernameOrEmail} means the account {@code username}, so
+     * both are counted in the account's window.
+     */
+    public void resolved(String usernameOrEmail, String username) {
+        String identifier = normalize(usernameOrEmail);
+        String account = normalize(username);
+        if (!identifier.equals(account)) {
+            accounts.put(identifier, account);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.login-attempts.flush-interval-ms:500}")
+    public void flush() {
+        List<Window> batch = new ArrayList<>();
+        List<Window.Pending> pending = new ArrayList<>();
+        for (Map.Entry<String, Window> entry : windows.asMap().entrySet()) {
+            Window window = entry.getValue();
+            Window.Pending taken = window.takeIfTouched(entry.getKey());
+            if (taken != null) {
+                batch.add(window);
+                pending.add(taken);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Object> totals;
+        try {
+            totals = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Object execute(RedisOperations operations) {
+                    for (Window.Pending p : pending) {
+                        String key = redisKey(p.key(), p.bucket());
+                        operations.opsForValue().increment(key, p.current());
+                        operations.expire(key, 2 * windowMillis, TimeUnit.MILLISECONDS);
+                        if (p.previous() > 0) {
+                            String previous = redisKey(p.key(), p.bucket() - 1);
+                            operations.opsForValue().increment(previous, p.previous());
+                            // may create the key if it was never flushed; it is only needed for one more bucket
+                            operations.expire(previous, windowMillis, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).restore(pending.get(i));
+            }
+            log.debug("Cannot share login attempts: {}", e.getMessage());
+            return;
+        }
+        int reply = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Window.Pending p = pending.get(i);
+            long total = ((Number) totals.get(reply)).longValue();
+            reply += p.previous() > 0 ? 4 : 2;
+            batch.get(i).shared(p.bucket(), total);
+        }
+    }
+
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    private Window window(String key, long now) {
+        return windows.get(key, k -> load(k, now / windowMillis));
+    }
+
+    private Window load(String key, long bucket) {
+        Window window = new Window(bucket);
+        try {
+            List<String> counts = redisTemplate.opsForValue().multiGet(List.of(redisKey(key, bucket), redisKey(key, bucket - 1)));
+            if (counts != null) {
+                window.shared(bucket, counts.get(0) != null ? Long.parseLong(counts.get(0)) : 0);
+                window.sharedPrevious(bucket, counts.get(1) != null ? Long.parseLong(counts.get(1)) : 0);
+            }
+        } catch (DataAccessException e) {
+            log.debug("Cannot read login attempts of {}: {}", key, e.getMessage());
+        }
+        return window;
+    }
+
+    private TooManyRequestsException throttled(long now) {
+        // the oldest failures leave the window gradually; retrying before the bucket ends is pointless
+        long retryAfter = windowMillis - now % windowMillis;
+        return new TooManyRequestsException("Too many failed sign-in attempts, please try again later",
+                Duration.ofMillis(retryAfter));
+    }
+
+    private String accountKey(String usernameOrEmail) {
+        String identifier = normalize(usernameOrEmail);
+        String account = accounts.getIfPresent(identifier);
+        return "user:" + (account != null ? account : identifier);
+    }
+
+    private static String normalize(String usernameOrEmail) {
+        return usernameOrEmail.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + clientIp;
+    }
+
+    private static String redisKey(String key, long bucket) {
+        return KEY_PREFIX + key + ":" + bucket;
+    }
+
+    /**
+     * Counts of the current and the previous bucket: what Redis last reported for all nodes,
+     * plus this node's increments not yet flushed.
+     */
+    static final class Window {
+
+        record Pending(String key, long bucket, long current, long previous) {
+        }
+
+        private long bucket;
+        private long shared;
+        private long pending;
+        private long previousShared;
+        private long previousPending;
+        private boolean touched;
+
+        Window(long bucket) {
+            this.bucket = bucket;
+        }
+
+        synchronized long bucket() {
+            return bucket;
+        }
+
+        synchronized double estimate(long now, long windowMillis) {
+            roll(now / windowMillis);
+            double overlap = 1 - (double) (now % windowMillis) / windowMillis;
+            return (previousShared + previousPending) * overlap + shared + pending;
+        }
+
+        synchronized void increment(long now, long windowMillis) {
+            roll(now / windowMillis);
+            pending++;
+            touched = true;
+        }
+
+        synchronized Pending takeIfTouched(String key) {
+            if (!touched && previousPending == 0) {
+                return null;
+            }
+            Pending taken = new Pending(key, bucket, pending, previousPending);
+            shared += pending;
+            previousShared += previousPending;
+            pending = 0;
+            previousPending = 0;
+            touched = false;
+            return taken;
+        }
+
+        synchronized void restore(Pending taken) {
+            if (taken.bucket() == bucket) {
+                shared -= taken.current();
+                pending += taken.current();
+                previousShared -= taken.previous();
+                previousPending += taken.previous();
+                touched = true;
+            }
+        }
+
+        synchronized void shared(long bucket, long total) {
+            if (bucket == this.bucket) {
+                shared = Math.max(shared, total);
+            } else if (bucket == this.bucket - 1) {
+                previousShared = Math.max(previousShared, total);
+            }
+        }
+
+        synchronized void sharedPrevious(long bucket, long total) {
+            if (bucket == this.bucket) {
+                previousShared = Math.max(previousShared, total);
+            }
+        }
+
+        private void roll(long now) {
+            if (now == bucket) {
+                return;
+            }
+            if (now == bucket + 1) {
+                previousShared = shared;
+                previousPending = pending;
+            } else {
+                previousShared = 0;
+                previousPending = 0;
+            }
+            shared = 0;
+            pending = 0;
+            bucket = now;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.service.TokenBlacklistService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Local Bloom filter of revoked tokens and of users with a revoke-all cutoff, so checking a token
+ * that was never revoked, which is nearly every request, needs no Redis round trip. Only entries
+ * the filter might contain are looked up in Redis.
+ *
+ * <p>Every revocation takes the next number from a Redis sequence and is published on
+ * {@link #CHANNEL}; this node adds what it receives and tracks the highest number up to which it
+ * has seen every revocation. When a number is still missing one check later, a message was lost
+ * and the filter is rebuilt from the revocation keys. A rebuild first reads the sequence, then
+ * scans: revocations up to that number are in the scan, later ones arrive as messages, which also
+ * go into the filter being built. Until the first build completes every lookup goes to Redis.
+ * The filter is also rebuilt periodically and when it grows past its expected size, which drops
+ * revocations that have expired.
+ */
+@Component
+@Slf4j
+public class RevocationFilter implements MessageListener {
+
+    public static final String CHANNEL = "token-blacklist";
+    public static final String SEQUENCE_KEY = "token-blacklist:seq";
+
+    // token ids are base64url, so they never contain a colon
+    private static final String USER_ENTRY_PREFIX = "user:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long rebuildIntervalNanos;
+    private final Counter filtered;
+    private final Counter checked;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean(true);
+    // revocation numbers received above the contiguous mark
+    private final NavigableSet<Long> received = new ConcurrentSkipListSet<>();
+    private volatile TokenBloomFilter filter;
+    private volatile TokenBloomFilter building;
+    private volatile long contiguous;
+    private volatile long suspect = -1;
+    private volatile long builtAt;
+    private volatile int capacity;
+
+    public RevocationFilter(RedisTemplate<String, String> redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${security.token-blacklist.filter.expected-entries:100000}") int expectedEntries,
+                            @Value("${security.token-blacklist.filter.false-positive-rate:0.001}") double falsePositiveRate,
+                            @Value("${security.token-blacklist.filter.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.redisTemplate = redisTemplate;
+        this.expectedEntries = expectedEntries;
+        this.capacity = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildIntervalNanos = rebuildInterval.toNanos();
+        this.filtered = Counter.builder("user.token.blacklist.lookups").tag("result", "filtered")
+                .description("Lookups answered by the local filter without Redis")
+                .register(meterRegistry);
+        this.checked = Counter.builder("user.token.blacklist.lookups").tag("result", "redis")
+                .register(meterRegistry);
+        Gauge.builder("user.token.blacklist.filter.entries", this, f -> f.filter != null ? f.filter.size() : 0)
+                .register(meterRegistry);
+        Gauge.builder("user.token.blacklist.filter.ready", this, f -> f.filter != null ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Which of a token's revocation entries might exist: one for the token itself, and a
+     * revoke-all cutoff for its user. Both false means the token is certainly not revoked.
+     */
+    public Lookup lookup(String tokenId, String username) {
+        TokenBloomFilter current = filter;
+        Lookup lookup = current == null
+                ? new Lookup(true, true)
+                : new Lookup(current.mightContain(tokenId), current.mightContain(userEntry(username)));
+        (lookup.any() ? checked : filtered).increment();
+        return lookup;
+    }
+
+    /**
+     * The filter entry standing for a user's revoke-all cutoff.
+     */
+    public static String userEntry(String username) {
+        return USER_ENTRY_PREFIX + username;
+    }
+
+    /**
+     * Adds a revocation made by this node, before it is announced to the others.
+     */
+    public void add(String id) {
+        TokenBloomFilter current = filter;
+        if (current != null) {
+            current.add(id);
+        }
+        TokenBloomFilter next = building;
+        if (next != null) {
+            next.add(id);
+        }
+    }
+
+    /**
+     * Receives {@code sequence:id} announcements published by {@link #announce}.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int colon = body.indexOf(':');
+        if (colon < 0) {
+            return;
+        }
+        add(body.substring(colon + 1));
+        received(Long.parseLong(body.substring(0, colon)));
+    }
+
+    /**
+     * Numbers a revocation already written to Redis and publishes it to every node.
+     */
+    public void announce(String id) {
+        add(id);
+        Long sequence = redisTemplate.opsForValue().increment(SEQUENCE_KEY);
+        redisTemplate.convertAndSend(CHANNEL, sequence + ":" + id);
+    }
+
+    @Scheduled(fixedDelayString = "${security.token-blacklist.filter.check-interval-ms:5000}")
+    public void check() {
+        try {
+            TokenBloomFilter current = filter;
+            if (rebuildRequested.getAndSet(false) || current == null
+                    || System.nanoTime() - builtAt > rebuildIntervalNanos
+                    || current.size() > current.capacity()) {
+                rebuild();
+                return;
+            }
+            String value = redisTemplate.opsForValue().get(SEQUENCE_KEY);
+            long latest = value != null ? Long.parseLong(value) : 0;
+            if (suspect >= 0 && contiguous < suspect) {
+                log.warn("Revocations up to {} were not received; rebuilding the token blacklist filter", suspect);
+                rebuild();
+            } else {
+                suspect = latest > contiguous ? latest : -1;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Token blacklist filter check failed: {}", e.getMessage());
+            rebuildRequested.set(true);
+        }
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        TokenBloomFilter next = new TokenBloomFilter(capacity, falsePositiveRate);
+        building = next;
+        try {
+            String value = redisTemplate.opsForValue().get(SEQUENCE_KEY);
+            long sequence = value != null ? Long.parseLong(value) : 0;
+            int count = scan(TokenBlacklistService.REVOKED_PREFIX, next, Function.identity())
+                    + scan(TokenBlacklistService.REVOKED_BEFORE_PREFIX, next, RevocationFilter::userEntry)
+                    + scan(TokenBlacklistService.LEGACY_PREFIX, next, VerifiedToken::hash);
+            filter = next;
+            builtAt = System.nanoTime();
+            synchronized (received) {
+                contiguous = Math.max(contiguous, sequence);
+                received.headSet(contiguous, true).clear();
+                advance();
+            }
+            suspect = -1;
+            // room to grow for the next build, so a large blacklist does not rebuild on every check
+            capacity = Math.max(expectedEntries, count * 2);
+            log.info("Token blacklist filter rebuilt in {} ms from {} revocations ({} KB)",
+                    (System.nanoTime() - start) / 1_000_000, count, next.sizeInBytes() / 1024);
+        } finally {
+            building = null;
+        }
+    }
+
+    private int scan(String prefix, TokenBloomFilter into, Function<String, String> entry) {
+        int count = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                into.add(entry.apply(keys.next().substring(prefix.length())));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void received(long sequence) {
+        synchronized (received) {
+            if (sequence > contiguous) {
+                received.add(sequence);
+                advance();
+            }
+        }
+    }
+
+    private void advance() {
+        while (received.remove(contiguous + 1)) {
+            contiguous++;
+        }
+    }
+
+    public record Lookup(boolean token, boolean user) {
+
+        public boolean any() {
+            return token || user;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.medivex.user.service.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Encrypts signing key private keys for storage with AES-256-GCM under a key-encryption key that
+ * comes from configuration (an environment variable or secret manager, never the database). The
+ * key id is bound in as associated data, so a ciphertext copied onto another row fails to decrypt.
+ * Stored values are {@code v1:} followed by base64 of the IV and the ciphertext.
+ */
+@Component
+public class SigningKeyCipher {
+
+    static final String PREFIX = "v1:";
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec kek;
+    private final SecureRandom random = new SecureRandom();
+
+    public SigningKeyCipher(@Value("${jwt.signing.key-encryption-key:}") String keyEncryptionKey) {
+        if (keyEncryptionKey.isBlank()) {
+            throw new IllegalStateException("jwt.signing.key-encryption-key must be set");
+        }
+        byte[] key = Base64.getDecoder().decode(keyEncryptionKey.trim());
+        if (key.length != 32) {
+            throw new IllegalStateException("jwt.signing.key-encryption-key must be 32 bytes, base64 encoded");
+        }
+        this.kek = new SecretKeySpec(key, "AES");
+    }
+
+    public String encrypt(String kid, byte[] privateKey) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, kek, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(privateKey);
+            byte[] out = Arrays.copyOf(iv, IV_BYTES + sealed.length);
+            System.arraycopy(sealed, 0, out, IV_BYTES, sealed.length);
+            return PREFIX + Base64.getEncoder().encodeToString(out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt signing key " + kid, e);
+        }
+    }
+
+    public byte[] decrypt(String kid, String stored) {
+        if (!isEncrypted(stored)) {
+            throw new IllegalArgumentException("Signing key " + kid + " is not encrypted");
+        }
+        try {
+            byte[] in = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, kek, new GCMParameterSpec(TAG_BITS, in, 0, IV_BYTES));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(in, IV_BYTES, in.length - IV_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signing key " + kid + " cannot be decrypted with the configured key-encryption key", e);
+        }
+    }
+
+    /**
+     * False for keys written before private keys were encrypted, which hold plain base64 PKCS#8.
+     */
+    public static boolean isEncrypted(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+}
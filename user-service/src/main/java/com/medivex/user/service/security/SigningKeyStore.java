@@ -0,0 +1,221 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.entity.SigningKey;
+import com.medivex.user.service.repository.SigningKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * RSA keys for signing and verifying tokens, kept in the database so every instance signs with
+ * the same key and verifies the others' tokens. A new key is created every rotation interval and
+ * published ahead of its activation; a superseded key stays published until the longest-lived
+ * token it can have signed has expired.
+ *
+ * <p>Keys are read on first use rather than at startup, and instances pick up each other's
+ * rotations when the check runs or a token names a key they have not seen.
+ *
+ * <p>Private keys are stored encrypted by {@link SigningKeyCipher} and only held decrypted in
+ * memory. Rows written before that are encrypted in place the first time they are loaded.
+ */
+@Component
+@Slf4j
+public class SigningKeyStore {
+
+    public static final String ALGORITHM = "RS256";
+
+    private static final Duration MIN_RELOAD_INTERVAL = Duration.ofSeconds(10);
+
+    private final SigningKeyRepository repository;
+    private final SigningKeyCipher cipher;
+    private final int keySize;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration retention;
+    // newest activation first
+    private volatile List<Key> keys;
+    private volatile LocalDateTime lastReload = LocalDateTime.MIN;
+
+    public SigningKeyStore(SigningKeyRepository repository,
+                           SigningKeyCipher cipher,
+                           @Value("${jwt.signing.key-size:2048}") int keySize,
+                           @Value("${jwt.signing.rotation-interval:30d}") Duration rotationInterval,
+                           @Value("${jwt.signing.publish-ahead:15m}") Duration publishAhead,
+                           @Value("${jwt.refresh-expiration}") long refreshExpirationMs) {
+        this.repository = repository;
+        this.cipher = cipher;
+        this.keySize = keySize;
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        this.retention = Duration.ofMillis(refreshExpirationMs);
+    }
+
+    /**
+     * The key new tokens are signed with: the newest one already active.
+     */
+    public Key signingKey() {
+        Key key = active(keys(), LocalDateTime.now());
+        if (key == null) {
+            // only reachable before the first check ran on a fresh database
+            synchronized (this) {
+                LocalDateTime now = LocalDateTime.now();
+                rotate(now);
+                key = active(keys, now);
+            }
+        }
+        if (key == null) {
+            throw new IllegalStateException("No active signing key");
+        }
+        return key;
+    }
+
+    /**
+     * The public key with the given id, reloading once if another instance may have created it.
+     */
+    public PublicKey publicKey(String kid) {
+        Key key = find(kid);
+        if (key == null && LocalDateTime.now().isAfter(lastReload.plus(MIN_RELOAD_INTERVAL))) {
+            reload();
+            key = find(kid);
+        }
+        return key != null ? key.publicKey() : null;
+    }
+
+    /**
+     * Every key a valid token can be signed with, including the one that is not active yet.
+     */
+    public List<Key> publishedKeys() {
+        return keys();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.check-interval-ms:60000}",
+            initialDelayString = "${jwt.signing.check-interval-ms:60000}")
+    public synchronized void rotate() {
+        rotate(LocalDateTime.now());
+    }
+
+    synchronized void rotate(LocalDateTime now) {
+        reload();
+        List<Key> current = keys;
+        if (current.isEmpty()) {
+            create(now);
+        } else if (!current.get(0).activatesAt().plus(rotationInterval).isAfter(now)) {
+            create(now.plus(publishAhead));
+        }
+        prune(now);
+    }
+
+    private void create(LocalDateTime activatesAt) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(keySize);
+            KeyPair pair = generator.generateKeyPair();
+            String kid = UUID.randomUUID().toString();
+            SigningKey saved = repository.save(SigningKey.builder()
+                    .kid(kid)
+                    .algorithm(ALGORITHM)
+                    .publicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()))
+                    .privateKey(cipher.encrypt(kid, pair.getPrivate().getEncoded()))
+                    .activatesAt(activatesAt)
+                    .build());
+            log.info("Created signing key {} active from {}", saved.getKid(), activatesAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate a signing key", e);
+        }
+        reload();
+    }
+
+    /**
+     * Drops keys whose successor has been active for longer than any token lives.
+     */
+    private void prune(LocalDateTime now) {
+        List<Key> current = keys;
+        List<Key> expired = new ArrayList<>();
+        for (int i = 1; i < current.size(); i++) {
+            if (current.get(i - 1).activatesAt().plus(retention).isBefore(now)) {
+                expired.add(current.get(i));
+            }
+        }
+        if (!expired.isEmpty()) {
+            repository.deleteAllById(expired.stream().map(Key::id).toList());
+            log.info("Retired {} signing keys", expired.size());
+            reload();
+        }
+    }
+
+    private List<Key> keys() {
+        List<Key> current = keys;
+        if (current == null) {
+            synchronized (this) {
+                if (keys == null) {
+                    reload();
+                }
+                current = keys;
+            }
+        }
+        return current;
+    }
+
+    private static Key active(List<Key> keys, LocalDateTime now) {
+        for (Key key : keys) {
+            if (!key.activatesAt().isAfter(now)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private Key find(String kid) {
+        for (Key key : keys()) {
+            if (key.kid().equals(kid)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private void reload() {
+        List<Key> loaded = new ArrayList<>();
+        for (SigningKey row : repository.findAllByOrderByActivatesAtDesc()) {
+            if (!SigningKeyCipher.isEncrypted(row.getPrivateKey())) {
+                row.setPrivateKey(cipher.encrypt(row.getKid(), Base64.getDecoder().decode(row.getPrivateKey())));
+                repository.save(row);
+                log.info("Encrypted signing key {} at rest", row.getKid());
+            }
+            loaded.add(decode(row));
+        }
+        keys = List.copyOf(loaded);
+        lastReload = LocalDateTime.now();
+    }
+
+    private Key decode(SigningKey row) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance("RSA");
+            PublicKey publicKey = factory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(row.getPublicKey())));
+            PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(cipher.decrypt(row.getKid(), row.getPrivateKey())));
+            return new Key(row.getId(), row.getKid(), (RSAPublicKey) publicKey, privateKey, row.getActivatesAt());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Signing key " + row.getKid() + " cannot be decoded", e);
+        }
+    }
+
+    public record Key(Long id, String kid, RSAPublicKey publicKey, PrivateKey privateKey, LocalDateTime activatesAt) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.medivex.user.service.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings, safe for concurrent adds and lookups. Sized from the expected
+ * number of entries and the false positive rate wanted at that size; it never reports an added
+ * string as absent. Entries cannot be removed, so owners rebuild it to drop expired ones.
+ */
+public final class TokenBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public TokenBloomFilter(int expectedEntries, double falsePositiveRate) {
+        this.capacity = expectedEntries;
+        long m = (long) Math.ceil(-Math.max(expectedEntries, 1) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedEntries, 1) * Math.log(2)));
+    }
+
+    public void add(String value) {
+        long[] hashes = hashes(value);
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashes, i);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = bits.get(word);
+            }
+        }
+        if (changed) {
+            size.incrementAndGet();
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long[] hashes = hashes(value);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashes, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Entries added, not counting re-adds that set no new bit.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * The number of entries the filter was sized for; past it the false positive rate climbs.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    public long sizeInBytes() {
+        return bitCount / 8;
+    }
+
+    private long index(long[] hashes, int i) {
+        // double hashing: the i-th probe is h1 + i * h2
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+    }
+
+    private static long[] hashes(String value) {
+        byte[] digest = sha256().digest(value.getBytes(StandardCharsets.UTF_8));
+        long h1 = 0;
+        long h2 = 0;
+        for (int i = 0; i < 8; i++) {
+            h1 = (h1 << 8) | (digest[i] & 0xFF);
+            h2 = (h2 << 8) | (digest[i + 8] & 0xFF);
+        }
+        return new long[]{h1, h2 | 1};
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.medivex.user.service.security;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Authentication for a request carrying an access token. Keeps the verified token, so
+ * controllers read the user id from it instead of looking the user up by name, and logout
+ * blacklists it without parsing it again.
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+public class UserAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private final VerifiedToken token;
+
+    public UserAuthenticationToken(UserDetails userDetails, VerifiedToken token) {
+        super(userDetails, null, userDetails.getAuthorities());
+        this.token = token;
+    }
+
+    public Long getUserId() {
+        return token.userId();
+    }
+}
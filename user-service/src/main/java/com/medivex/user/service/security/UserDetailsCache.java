@@ -0,0 +1,128 @@
+package com.medivex.user.service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medivex.user.service.event.RoleChangedEvent;
+import com.medivex.user.service.event.UserSecurityChangedEvent;
+import com.medivex.user.service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * UserDetails for authenticated requests, keyed by username, so the JWT filter does not reload a
+ * user with all roles and permissions on every request. Entries are evicted after the change
+ * that affects them commits; an eviction waits for an in-flight load of the same user, so a
+ * load that read the old state cannot outlive it. Cached copies hold no password hash.
+ *
+ * <p>Every node keeps its own cache, so evictions are also published on {@link #CHANNEL} and
+ * applied by every node that receives them, this one included. Redis pub/sub does not redeliver:
+ * if a node misses a message, or Redis is unreachable when the change commits, its entry is
+ * stale until the TTL expires.
+ */
+@Component
+@Slf4j
+public class UserDetailsCache implements MessageListener {
+
+    public static final String CHANNEL = "user-details-evictions";
+
+    // usernames of one eviction are sent as one message, one per line
+    private static final String SEPARATOR = "\n";
+
+    private final UserRepository userRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Cache<String, UserDetails> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter queriesAvoided;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            RedisTemplate<String, String> redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${security.user-details-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${security.user-details-cache.ttl:5m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+        this.hits = Counter.builder("user.details.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("user.details.requests").tag("result", "miss").register(meterRegistry);
+        this.queriesAvoided = Counter.builder("user.details.db.queries.avoided")
+                .description("User-with-roles queries not run because the request was served from cache")
+                .register(meterRegistry);
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        boolean[] loaded = new boolean[1];
+        UserDetails details = cache.get(username, key -> {
+            loaded[0] = true;
+            UserDetails fresh = loader.apply(key);
+            if (fresh instanceof CredentialsContainer container) {
+                container.eraseCredentials();
+            }
+            return fresh;
+        });
+        if (loaded[0]) {
+            misses.increment();
+        } else {
+            hits.increment();
+            queriesAvoided.increment();
+        }
+        return details;
+    }
+
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        evictEverywhere(List.of(event.username()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoleChanged(RoleChangedEvent event) {
+        List<String> usernames = userRepository.findUsernamesByRoleId(event.roleId());
+        evictEverywhere(usernames);
+        log.debug("Evicted {} cached users holding role {}", usernames.size(), event.roleId());
+    }
+
+    /**
+     * Receives evictions published by {@link #evictEverywhere}, from any node.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        cache.invalidateAll(List.of(new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR)));
+    }
+
+    private void evictEverywhere(List<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        cache.invalidateAll(usernames);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, String.join(SEPARATOR, usernames));
+        } catch (RuntimeException e) {
+            log.warn("Cannot publish eviction of {} cached users; other nodes keep them until they expire: {}",
+                    usernames.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * A token whose signature and expiry have been checked, with its claims. Produced once per
+ * request by {@link JwtUtil#verify} and shared by the filter, the blacklist and controllers, so
+ * nothing downstream parses the token again.
+ */
+public record VerifiedToken(String value, Claims claims) {
+
+    public String username() {
+        return claims.getSubject();
+    }
+
+    /**
+     * The user id, or null for tokens issued before the id was added.
+     */
+    public Long userId() {
+        return claims.get(JwtUtil.USER_ID_CLAIM) instanceof Number n ? n.longValue() : null;
+    }
+
+    /**
+     * The jti, or null for tokens issued before tokens carried one.
+     */
+    public String id() {
+        return claims.getId();
+    }
+
+    /**
+     * The fixed-size id revocations are stored under: the jti, or a hash of the token for tokens
+     * issued before tokens carried one.
+     */
+    public String revocationId() {
+        return id() != null ? id() : hash(value);
+    }
+
+    public Date issuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    public Date expiresAt() {
+        return claims.getExpiration();
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(claims.get("type"));
+    }
+
+    public static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,19 +5,26 @@ import com.medivex.user.service.dto.LoginRequestDto;
 import com.medivex.user.service.dto.UserRegistrationDto;
 import com.medivex.user.service.dto.UserProfileDto;
 import com.medivex.user.service.entity.User;
+import com.medivex.user.service.exception.TooManyRequestsException;
+import com.medivex.user.service.security.LoginAttemptLimiter;
+import com.medivex.user.service.security.VerifiedToken;
 import com.medivex.user.service.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,9 +37,12 @@ public class AuthService {
     private final UserService userService;
     private final JwtUtil jwtUtil;
     private final TokenBlacklistService tokenBlacklistService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
     
-    public JwtResponseDto login(LoginRequestDto loginRequest) {
+    public JwtResponseDto login(LoginRequestDto loginRequest, String clientIp) {
         log.info("Attempting login for user: {}", loginRequest.getUsernameOrEmail());
+        // before the user is loaded or the password hashed
+        loginAttemptLimiter.checkAllowed(loginRequest.getUsernameOrEmail(), clientIp);
         
         try {
             Authentication authentication = authenticationManager.authenticate(
@@ -48,9 +58,10 @@ public class AuthService {
             
             // Update last login
             userService.updateLastLogin(user.getUsername());
+            loginAttemptLimiter.recordSuccess(loginRequest.getUsernameOrEmail());
             
             // Generate tokens
-            String token = jwtUtil.generateToken(authentication);
+            String token = jwtUtil.generateToken(user);
             String refreshToken = jwtUtil.generateRefreshToken(authentication);
             
             log.info("Login successful for user: {}", user.getUsername());
@@ -77,8 +88,24 @@ public class AuthService {
             throw new RuntimeException("Account is locked");
         } catch (BadCredentialsException e) {
             log.warn("Login failed - invalid credentials for user: {}", loginRequest.getUsernameOrEmail());
-            userService.handleFailedLogin(loginRequest.getUsernameOrEmail());
+            if (loginAttemptLimiter.recordFailure(loginRequest.getUsernameOrEmail(), clientIp)) {
+                userService.lockAccount(loginRequest.getUsernameOrEmail());
+            }
             throw new RuntimeException("Invalid username or password");
+        } catch (UsernameNotFoundException e) {
+            // unknown usernames count against the client IP like wrong passwords
+            loginAttemptLimiter.recordFailure(loginRequest.getUsernameOrEmail(), clientIp);
+            log.error("Login failed for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage());
+            throw new RuntimeException("Login failed: " + e.getMessage());
+        } catch (TooManyRequestsException e) {
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // the provider wraps whatever the user lookup throws, including a saturated password encoder
+            if (e.getCause() instanceof TooManyRequestsException busy) {
+                throw busy;
+            }
+            log.error("Login failed for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage());
+            throw new RuntimeException("Login failed: " + e.getMessage());
         } catch (Exception e) {
             log.error("Login failed for user {}: {}", loginRequest.getUsernameOrEmail(), e.getMessage());
             throw new RuntimeException("Login failed: " + e.getMessage());
@@ -88,19 +115,26 @@ public class AuthService {
     public JwtResponseDto refreshToken(String refreshToken) {
         log.info("Refreshing token");
         
-        if (!jwtUtil.validateToken(refreshToken)) {
+        VerifiedToken token;
+        try {
+            token = jwtUtil.verify(refreshToken);
+        } catch (JwtException e) {
             throw new RuntimeException("Invalid refresh token");
         }
         
-        if (!jwtUtil.isRefreshToken(refreshToken)) {
+        if (!token.isRefreshToken()) {
             throw new RuntimeException("Token is not a refresh token");
         }
+        if (tokenBlacklistService.isRevoked(token)) {
+            throw new RuntimeException("Refresh token has been revoked");
+        }
         
-        String username = jwtUtil.extractUsername(refreshToken);
-        UserDetails userDetails = userService.loadUserByUsername(username);
+        String username = token.username();
+        User user = userService.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
         
-        String newToken = jwtUtil.generateToken(userDetails);
-        String newRefreshToken = jwtUtil.generateRefreshToken(userDetails);
+        String newToken = jwtUtil.generateToken(user);
+        String newRefreshToken = jwtUtil.generateRefreshToken(username);
         
         log.info("Token refreshed successfully for user: {}", username);
         
@@ -111,15 +145,18 @@ public class AuthService {
                 .build();
     }
     
-    public void logout(String token) {
+    public void logout(VerifiedToken token) {
         log.info("Logging out user");
-        
-        if (jwtUtil.validateToken(token)) {
-            tokenBlacklistService.blacklistToken(token);
-            log.info("User logged out successfully");
-        } else {
-            log.warn("Invalid token provided for logout");
-        }
+        tokenBlacklistService.blacklistToken(token);
+        log.info("User logged out successfully");
+    }
+    
+    /**
+     * Revokes every access and refresh token the user holds, including the one making the call.
+     */
+    public void logoutEverywhere(VerifiedToken token) {
+        tokenBlacklistService.revokeAllBefore(token.username(), Instant.now());
+        log.info("User {} logged out of all sessions", token.username());
     }
     
     public UserProfileDto register(UserRegistrationDto registrationDto) {
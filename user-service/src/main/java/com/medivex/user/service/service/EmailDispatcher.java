@@ -0,0 +1,163 @@
+package com.medivex.user.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medivex.user.service.config.AmqpConfig;
+import com.medivex.user.service.dto.OutgoingEmailDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends queued emails. Each delivery is a batch of up to {@code app.email.batch-size} messages,
+ * sent over one SMTP connection; {@code app.email.concurrency} consumers run side by side.
+ *
+ * <p>A message that could not be sent goes to the delay queue of its next attempt, which returns
+ * it to the email queue once the delay has passed, so retries back off without holding a worker.
+ * After the last delay it is parked on {@link AmqpConfig#EMAIL_FAILED_QUEUE}. Failed messages
+ * are published together and the batch is acknowledged only once the broker confirmed them; if
+ * that fails the whole batch is redelivered, so an email can occasionally be sent twice but is
+ * never dropped.
+ */
+@Component
+@Slf4j
+public class EmailDispatcher {
+
+    static final String ATTEMPT_HEADER = "x-email-attempt";
+
+    private final JavaMailSender mailSender;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final String fromEmail;
+    private final int maxRetries;
+    private final Duration confirmTimeout;
+    private final Timer batchTimer;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter parked;
+
+    public EmailDispatcher(JavaMailSender mailSender,
+                           RabbitTemplate rabbitTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${spring.mail.username}") String fromEmail,
+                           @Value("${app.email.retry-delays:5s,1m,10m}") List<Duration> retryDelays,
+                           @Value("${app.email.confirm-timeout:10s}") Duration confirmTimeout) {
+        this.mailSender = mailSender;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.fromEmail = fromEmail;
+        this.maxRetries = retryDelays.size();
+        this.confirmTimeout = confirmTimeout;
+        this.batchTimer = Timer.builder("user.email.batch").description("Time to send one batch of emails")
+                .register(meterRegistry);
+        this.sent = Counter.builder("user.email.dispatched").tag("result", "sent").register(meterRegistry);
+        this.retried = Counter.builder("user.email.dispatched").tag("result", "retried").register(meterRegistry);
+        this.parked = Counter.builder("user.email.dispatched").tag("result", "failed").register(meterRegistry);
+    }
+
+    @RabbitListener(queues = AmqpConfig.EMAIL_QUEUE, containerFactory = "emailListenerContainerFactory")
+    public void dispatch(List<Message> messages) {
+        List<Message> pending = new ArrayList<>(messages.size());
+        List<SimpleMailMessage> mails = new ArrayList<>(messages.size());
+        List<Requeue> requeue = new ArrayList<>();
+        for (Message message : messages) {
+            try {
+                OutgoingEmailDto email = objectMapper.readValue(message.getBody(), OutgoingEmailDto.class);
+                SimpleMailMessage mail = new SimpleMailMessage();
+                mail.setFrom(fromEmail);
+                mail.setTo(email.to());
+                mail.setSubject(email.subject());
+                mail.setText(email.text());
+                pending.add(message);
+                mails.add(mail);
+            } catch (IOException e) {
+                log.error("Unreadable email message, parking it: {}", e.getMessage());
+                requeue.add(park(message));
+            }
+        }
+        if (!mails.isEmpty()) {
+            send(pending, mails, requeue);
+        }
+        publish(requeue);
+    }
+
+    private void send(List<Message> pending, List<SimpleMailMessage> mails, List<Requeue> requeue) {
+        try {
+            batchTimer.record(() -> mailSender.send(mails.toArray(SimpleMailMessage[]::new)));
+            sent.increment(mails.size());
+            log.info("Sent {} emails", mails.size());
+        } catch (MailSendException e) {
+            // the others in the batch went out
+            Map<Object, Exception> failed = e.getFailedMessages();
+            int failures = 0;
+            for (int i = 0; i < mails.size(); i++) {
+                Exception cause = failed.get(mails.get(i));
+                if (cause != null || failed.isEmpty()) {
+                    requeue.add(retry(pending.get(i), cause != null ? cause : e));
+                    failures++;
+                }
+            }
+            sent.increment(mails.size() - failures);
+        } catch (MailException e) {
+            // nothing was sent: cannot connect or authenticate
+            for (Message message : pending) {
+                requeue.add(retry(message, e));
+            }
+        }
+    }
+
+    private Requeue retry(Message message, Exception cause) {
+        Integer previous = message.getMessageProperties().getHeader(ATTEMPT_HEADER);
+        int attempt = previous != null ? previous + 1 : 1;
+        if (attempt > maxRetries) {
+            log.error("Giving up on email after {} attempts: {}", attempt, cause.getMessage());
+            return park(message);
+        }
+        message.getMessageProperties().setHeader(ATTEMPT_HEADER, attempt);
+        log.warn("Email failed, retry {} of {} scheduled: {}", attempt, maxRetries, cause.getMessage());
+        return new Requeue(AmqpConfig.emailRetryQueue(attempt), message);
+    }
+
+    private Requeue park(Message message) {
+        return new Requeue(AmqpConfig.EMAIL_FAILED_QUEUE, message);
+    }
+
+    /**
+     * Publishes the failed messages on one channel and waits for the broker to confirm them. Throws
+     * if it does not, which rejects the batch so it is delivered again.
+     */
+    private void publish(List<Requeue> requeue) {
+        if (requeue.isEmpty()) {
+            return;
+        }
+        rabbitTemplate.invoke(ops -> {
+            for (Requeue r : requeue) {
+                ops.send("", r.queue(), r.message());
+            }
+            ops.waitForConfirmsOrDie(confirmTimeout.toMillis());
+            return null;
+        });
+        for (Requeue r : requeue) {
+            (AmqpConfig.EMAIL_FAILED_QUEUE.equals(r.queue()) ? parked : retried).increment();
+        }
+    }
+
+    private record Requeue(String queue, Message message) {
+    }
+}
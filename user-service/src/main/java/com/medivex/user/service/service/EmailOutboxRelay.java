@@ -0,0 +1,183 @@
+package com.medivex.user.service.service;
+
+import com.medivex.user.service.config.AmqpConfig;
+import com.medivex.user.service.entity.EmailOutboxMessage;
+import com.medivex.user.service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves emails from the outbox onto {@link AmqpConfig#EMAIL_QUEUE}. Rows are claimed for a short
+ * lease in one transaction, published and confirmed by the broker with no locks held, and marked
+ * sent in a second transaction; a row is only marked once the broker has it. Failed batches stay
+ * in the outbox and are retried with exponential backoff up to {@code max-backoff}, and show up in
+ * the {@code email.outbox.failures}, {@code email.outbox.pending} and {@code email.outbox.lag}
+ * metrics. Delivery is at-least-once: a crash between confirm and marking sends the batch again.
+ */
+@Component
+@Slf4j
+public class EmailOutboxRelay {
+    
+    private final EmailOutboxRepository outboxRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration confirmTimeout;
+    private final Duration maxBackoff;
+    private final Duration retention;
+    private final Duration claimLease;
+    
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter published;
+    private final Counter failures;
+    private int consecutiveFailures;
+    private long pausedUntil;
+    
+    public EmailOutboxRelay(EmailOutboxRepository outboxRepository,
+                            RabbitTemplate rabbitTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.email.outbox.relay.enabled:true}") boolean enabled,
+                            @Value("${app.email.outbox.relay.batch-size:100}") int batchSize,
+                            @Value("${app.email.outbox.relay.confirm-timeout:10s}") Duration confirmTimeout,
+                            @Value("${app.email.outbox.relay.max-backoff:60s}") Duration maxBackoff,
+                            @Value("${app.email.outbox.retention:24h}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.confirmTimeout = confirmTimeout;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+        // long enough for a send plus a full confirm wait, so a live relay never loses its claim
+        this.claimLease = confirmTimeout.multipliedBy(3);
+        
+        this.published = Counter.builder("email.outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("email.outbox.failures").register(meterRegistry);
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("email.outbox.lag", lagMillis, a -> a.get() / 1000.0).baseUnit("seconds").register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.email.outbox.relay.interval-ms:1000}")
+    public void relay() {
+        if (!enabled || System.currentTimeMillis() < pausedUntil) {
+            return;
+        }
+        try {
+            int sent;
+            do {
+                sent = publishBatch();
+            } while (sent == batchSize);
+            consecutiveFailures = 0;
+        } catch (RuntimeException e) {
+            failures.increment();
+            consecutiveFailures++;
+            long backoff = backoffMillis(consecutiveFailures, maxBackoff);
+            pausedUntil = System.currentTimeMillis() + backoff;
+            log.error("Email outbox relay failed ({} in a row), retrying in {} ms: {}", consecutiveFailures, backoff, e.getMessage());
+        } finally {
+            refreshLag();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.email.outbox.cleanup-interval-ms:3600000}")
+    public void purgeSent() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        Integer removed = transactionTemplate.execute(status -> outboxRepository.deleteSentBefore(cutoff));
+        if (removed != null && removed > 0) {
+            log.info("Purged {} sent emails from the outbox", removed);
+        }
+    }
+    
+    private int publishBatch() {
+        List<EmailOutboxMessage> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = batch.stream().map(EmailOutboxMessage::getId).toList();
+        try {
+            rabbitTemplate.invoke(ops -> {
+                for (EmailOutboxMessage m : batch) {
+                    ops.send("", AmqpConfig.EMAIL_QUEUE, toMessage(m));
+                }
+                ops.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            });
+        } catch (RuntimeException e) {
+            release(ids);
+            throw e;
+        }
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.markSent(ids, LocalDateTime.now()));
+        published.increment(batch.size());
+        log.debug("Queued {} emails from the outbox", batch.size());
+        return batch.size();
+    }
+    
+    private List<EmailOutboxMessage> claim() {
+        List<EmailOutboxMessage> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxMessage> batch = outboxRepository.lockUnclaimed(now, PageRequest.of(0, batchSize));
+            if (!batch.isEmpty()) {
+                outboxRepository.claim(batch.stream().map(EmailOutboxMessage::getId).toList(), now.plus(claimLease));
+            }
+            return batch;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+    
+    private void release(List<Long> ids) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.release(ids));
+        } catch (RuntimeException e) {
+            // the lease runs out on its own
+            log.debug("Could not release email outbox claim: {}", e.getMessage());
+        }
+    }
+    
+    static long backoffMillis(int consecutiveFailures, Duration maxBackoff) {
+        return Math.min(maxBackoff.toMillis(), 500L << Math.min(consecutiveFailures, 16));
+    }
+    
+    private void refreshLag() {
+        try {
+            pending.set(outboxRepository.countBySentAtIsNull());
+            LocalDateTime oldest = outboxRepository.findOldestUnsentCreatedAt();
+            lagMillis.set(oldest == null ? 0 : Math.max(0, oldest.until(LocalDateTime.now(), ChronoUnit.MILLIS)));
+        } catch (RuntimeException e) {
+            log.debug("Could not refresh email outbox lag: {}", e.getMessage());
+        }
+    }
+    
+    private static Message toMessage(EmailOutboxMessage m) {
+        return MessageBuilder.withBody(m.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setMessageId("email-" + m.getId())
+                .build();
+    }
+}
@@ -1,10 +1,13 @@
 package com.medivex.user.service.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medivex.user.service.dto.OutgoingEmailDto;
+import com.medivex.user.service.entity.EmailOutboxMessage;
+import com.medivex.user.service.repository.EmailOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -12,60 +15,37 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
-    
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final EmailOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
     
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendUrl;
     
     public void sendEmailVerification(String toEmail, String token) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Verify your email - MedVix");
-            message.setText(buildEmailVerificationMessage(token));
-            
-            mailSender.send(message);
-            log.info("Email verification sent to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send email verification to {}: {}", toEmail, e.getMessage());
-            throw new RuntimeException("Failed to send email verification");
-        }
+        enqueue(new OutgoingEmailDto(toEmail, "Verify your email - MedVix", buildEmailVerificationMessage(token)));
     }
     
     public void sendPasswordResetEmail(String toEmail, String token) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Reset your password - MedVix");
-            message.setText(buildPasswordResetMessage(token));
-            
-            mailSender.send(message);
-            log.info("Password reset email sent to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send password reset email to {}: {}", toEmail, e.getMessage());
-            throw new RuntimeException("Failed to send password reset email");
-        }
+        enqueue(new OutgoingEmailDto(toEmail, "Reset your password - MedVix", buildPasswordResetMessage(token)));
     }
     
     public void sendWelcomeEmail(String toEmail, String firstName) {
+        enqueue(new OutgoingEmailDto(toEmail, "Welcome to MedVix!", buildWelcomeMessage(firstName)));
+    }
+    
+    /**
+     * Writes the email to the outbox in the caller's transaction, so it is sent if and only if the
+     * change that triggered it commits. {@link EmailOutboxRelay} hands it to {@link EmailDispatcher}.
+     */
+    private void enqueue(OutgoingEmailDto email) {
+        String payload;
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Welcome to MedVix!");
-            message.setText(buildWelcomeMessage(firstName));
-            
-            mailSender.send(message);
-            log.info("Welcome email sent to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send welcome email to {}: {}", toEmail, e.getMessage());
-            // Don't throw exception for welcome email as it's not critical
+            payload = objectMapper.writeValueAsString(email);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize email \"" + email.subject() + "\"", e);
         }
+        outboxRepository.save(EmailOutboxMessage.builder().payload(payload).build());
+        log.info("Queued email \"{}\" to: {}", email.subject(), email.to());
     }
     
     private String buildEmailVerificationMessage(String token) {
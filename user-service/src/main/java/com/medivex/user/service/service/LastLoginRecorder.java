@@ -0,0 +1,70 @@
+package com.medivex.user.service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for last login times, so a login does not wait on a database write. Logins are
+ * kept per user, the latest one winning, and written as one JDBC batch per flush. An entry is
+ * dropped only after its write succeeded, and only if no later login replaced it meanwhile; a
+ * failed flush is retried on the next one. The last flush runs on shutdown, after the web
+ * server has stopped taking requests.
+ */
+@Component
+@Slf4j
+public class LastLoginRecorder {
+
+    static final String UPDATE_SQL = "UPDATE users SET last_login = ?, failed_login_attempts = 0 WHERE username = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final Timer flushTimer;
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTimer = Timer.builder("user.last-login.flush").register(meterRegistry);
+        Gauge.builder("user.last-login.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public void record(String username, LocalDateTime loginAt) {
+        pending.merge(username, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, LocalDateTime>> batch = new ArrayList<>(pending.size());
+        List<Object[]> args = new ArrayList<>(pending.size());
+        pending.forEach((username, loginAt) -> {
+            batch.add(Map.entry(username, loginAt));
+            args.add(new Object[]{Timestamp.valueOf(loginAt), username});
+        });
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, args));
+        } catch (DataAccessException e) {
+            log.warn("Cannot write last login of {} users, will retry: {}", batch.size(), e.getMessage());
+            return;
+        }
+        for (Map.Entry<String, LocalDateTime> entry : batch) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        log.debug("Wrote last login of {} users", batch.size());
+    }
+}
@@ -3,9 +3,11 @@ package com.medivex.user.service.service;
 import com.medivex.user.service.dto.RoleDto;
 import com.medivex.user.service.entity.Permission;
 import com.medivex.user.service.entity.Role;
+import com.medivex.user.service.event.RoleChangedEvent;
 import com.medivex.user.service.repository.RoleRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,7 @@ public class RoleService {
     
     private final RoleRepository roleRepository;
     private final PermissionService permissionService;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Optional<Role> findById(Long id) {
         return roleRepository.findById(id);
@@ -115,6 +118,7 @@ public class RoleService {
         }
         
         Role savedRole = roleRepository.save(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(savedRole.getId()));
         log.info("Role updated successfully: {}", savedRole.getName());
         
         return convertToRoleDto(savedRole);
@@ -132,6 +136,7 @@ public class RoleService {
         
         role.setIsActive(false);
         roleRepository.save(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getId()));
         
         log.info("Role deleted successfully: {}", role.getName());
     }
@@ -145,6 +150,7 @@ public class RoleService {
         
         role.getPermissions().add(permission);
         roleRepository.save(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getId()));
         
         log.info("Permission {} assigned to role {}", permission.getName(), role.getName());
     }
@@ -158,6 +164,7 @@ public class RoleService {
         
         role.getPermissions().remove(permission);
         roleRepository.save(role);
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getId()));
         
         log.info("Permission {} removed from role {}", permission.getName(), role.getName());
     }
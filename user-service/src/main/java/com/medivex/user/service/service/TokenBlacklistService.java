@@ -1,60 +1,126 @@
 package com.medivex.user.service.service;
 
+import com.medivex.user.service.security.RevocationFilter;
+import com.medivex.user.service.security.VerifiedToken;
 import com.medivex.user.service.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Revoked tokens live in Redis under their id ({@link #REVOKED_PREFIX}) until they expire, so an
+ * entry is the same size however large the token. Revoking everything a user holds is a single
+ * cutoff ({@link #REVOKED_BEFORE_PREFIX}): tokens issued at or before it are rejected.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TokenBlacklistService {
-    
+
     private final RedisTemplate<String, String> redisTemplate;
     private final JwtUtil jwtUtil;
-    
-    private static final String BLACKLIST_PREFIX = "blacklist:";
-    
+    private final RevocationFilter revocationFilter;
+
+    public static final String REVOKED_PREFIX = "revoked:";
+    public static final String REVOKED_BEFORE_PREFIX = "revoked-before:";
+    // entries keyed by the whole token, written before tokens carried an id; still read until they expire
+    public static final String LEGACY_PREFIX = "blacklist:";
+
     public void blacklistToken(String token) {
         try {
-            if (jwtUtil.validateToken(token)) {
-                // Calculate remaining time until token expires
-                long expirationTime = jwtUtil.extractExpiration(token).getTime();
-                long currentTime = System.currentTimeMillis();
-                long ttl = (expirationTime - currentTime) / 1000; // Convert to seconds
-                
-                if (ttl > 0) {
-                    String key = BLACKLIST_PREFIX + token;
-                    redisTemplate.opsForValue().set(key, "blacklisted", ttl, TimeUnit.SECONDS);
-                    log.info("Token blacklisted successfully");
-                } else {
-                    log.warn("Token is already expired, no need to blacklist");
-                }
+            blacklistToken(jwtUtil.verify(token));
+        } catch (JwtException e) {
+            log.warn("Invalid token provided for blacklisting");
+        }
+    }
+
+    /**
+     * Blacklists a token the caller has already verified, until it expires.
+     */
+    public void blacklistToken(VerifiedToken token) {
+        try {
+            // Calculate remaining time until token expires
+            long expirationTime = token.expiresAt().getTime();
+            long currentTime = System.currentTimeMillis();
+            long ttl = (expirationTime - currentTime) / 1000; // Convert to seconds
+
+            if (ttl > 0) {
+                String id = token.revocationId();
+                redisTemplate.opsForValue().set(REVOKED_PREFIX + id, "1", ttl, TimeUnit.SECONDS);
+                revocationFilter.announce(id);
+                log.info("Token blacklisted successfully");
             } else {
-                log.warn("Invalid token provided for blacklisting");
+                log.warn("Token is already expired, no need to blacklist");
             }
         } catch (Exception e) {
             log.error("Failed to blacklist token: {}", e.getMessage());
         }
     }
-    
+
+    /**
+     * Revokes every token issued to the user up to now, access and refresh alike. The cutoff is
+     * kept for as long as the longest-lived token.
+     */
+    public void revokeAllBefore(String username, Instant cutoff) {
+        try {
+            long ttl = jwtUtil.getRefreshExpirationTime() / 1000;
+            redisTemplate.opsForValue().set(REVOKED_BEFORE_PREFIX + username,
+                    String.valueOf(cutoff.getEpochSecond()), ttl, TimeUnit.SECONDS);
+            revocationFilter.announce(RevocationFilter.userEntry(username));
+            log.info("Revoked all tokens of user {} issued before {}", username, cutoff);
+        } catch (Exception e) {
+            log.error("Failed to revoke tokens of user {}: {}", username, e.getMessage());
+        }
+    }
+
     public boolean isTokenBlacklisted(String token) {
         try {
-            String key = BLACKLIST_PREFIX + token;
-            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+            return isRevoked(jwtUtil.verify(token));
+        } catch (JwtException e) {
+            return false;
+        }
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        RevocationFilter.Lookup lookup = revocationFilter.lookup(token.revocationId(), token.username());
+        if (!lookup.any()) {
+            return false;
+        }
+        try {
+            if (lookup.token()) {
+                List<String> keys = new ArrayList<>(2);
+                keys.add(REVOKED_PREFIX + token.revocationId());
+                if (token.id() == null) {
+                    keys.add(LEGACY_PREFIX + token.value());
+                }
+                Long existing = redisTemplate.countExistingKeys(keys);
+                if (existing != null && existing > 0) {
+                    return true;
+                }
+            }
+            if (lookup.user() && token.issuedAt() != null) {
+                String cutoff = redisTemplate.opsForValue().get(REVOKED_BEFORE_PREFIX + token.username());
+                // iat has second precision, so a token issued in the cutoff's second is revoked too
+                return cutoff != null && token.issuedAt().toInstant().getEpochSecond() <= Long.parseLong(cutoff);
+            }
+            return false;
         } catch (Exception e) {
             log.error("Failed to check token blacklist: {}", e.getMessage());
             return false;
         }
     }
-    
+
     public void removeFromBlacklist(String token) {
         try {
-            String key = BLACKLIST_PREFIX + token;
-            redisTemplate.delete(key);
+            VerifiedToken verified = jwtUtil.verify(token);
+            redisTemplate.delete(List.of(REVOKED_PREFIX + verified.revocationId(), LEGACY_PREFIX + token));
             log.info("Token removed from blacklist");
         } catch (Exception e) {
             log.error("Failed to remove token from blacklist: {}", e.getMessage());
@@ -3,16 +3,21 @@ package com.medivex.user.service.service;
 import com.medivex.user.service.dto.*;
 import com.medivex.user.service.entity.Role;
 import com.medivex.user.service.entity.User;
+import com.medivex.user.service.event.UserSecurityChangedEvent;
 import com.medivex.user.service.repository.UserRepository;
+import com.medivex.user.service.security.LoginAttemptLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -25,17 +30,22 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RoleService roleService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final LoginAttemptLimiter loginAttemptLimiter;
     
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByUsernameOrEmail(username, username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        // failed attempts by email count against the same account as by username
+        loginAttemptLimiter.resolved(username, user.getUsername());
         
         return org.springframework.security.core.userdetails.User.builder()
                 .username(user.getUsername())
@@ -50,6 +60,22 @@ public class UserService implements UserDetailsService {
                 .build();
     }
     
+    /**
+     * Stores a re-hash of the password just verified at login, made with the configured cost.
+     * Authorities are unchanged, so cached UserDetails stay valid.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.findByUsername(userDetails.getUsername()).ifPresent(user -> {
+            user.setPassword(newPassword);
+            userRepository.save(user);
+            log.info("Upgraded password hash for user: {}", user.getUsername());
+        });
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newPassword)
+                .build();
+    }
+    
     public UserProfileDto registerUser(UserRegistrationDto registrationDto) {
         log.info("Registering new user: {}", registrationDto.getUsername());
         
@@ -147,33 +173,33 @@ public class UserService implements UserDetailsService {
         // Update password
         user.setPassword(passwordEncoder.encode(changePasswordDto.getNewPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         
         log.info("Password changed successfully for user: {}", user.getUsername());
     }
     
+    /**
+     * Records the login; the user row is updated in the next batch written by {@link LastLoginRecorder}.
+     */
     public void updateLastLogin(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-        
-        user.setLastLogin(LocalDateTime.now());
-        user.setFailedLoginAttempts(0); // Reset failed attempts on successful login
-        userRepository.save(user);
+        lastLoginRecorder.record(username, LocalDateTime.now());
     }
     
-    public void handleFailedLogin(String username) {
-        User user = userRepository.findByUsername(username)
+    /**
+     * Locks the account for 30 minutes once it has reached the failed login limit. Failures
+     * themselves are counted by the login limiter; only this transition is written. It commits on
+     * its own because the failed login that triggers it rolls back the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void lockAccount(String usernameOrEmail) {
+        User user = userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
                 .orElse(null);
         
-        if (user != null) {
-            user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-            
-            // Lock account after 5 failed attempts for 30 minutes
-            if (user.getFailedLoginAttempts() >= 5) {
-                user.setAccountLockedUntil(LocalDateTime.now().plusMinutes(30));
-                log.warn("Account locked for user: {} due to too many failed login attempts", username);
-            }
-            
+        if (user != null && user.isAccountNonLocked()) {
+            user.setAccountLockedUntil(LocalDateTime.now().plusMinutes(30));
             userRepository.save(user);
+            log.warn("Account locked for user: {} due to too many failed login attempts", user.getUsername());
+            eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         }
     }
     
@@ -228,6 +254,7 @@ public class UserService implements UserDetailsService {
         user.setPasswordResetToken(null);
         user.setPasswordResetExpires(null);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         
         log.info("Password reset successfully for user: {}", user.getUsername());
     }
@@ -282,6 +309,7 @@ public class UserService implements UserDetailsService {
         user.setAccountStatus(User.AccountStatus.INACTIVE);
         user.setDeletedAt(LocalDateTime.now());
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         
         log.info("User deactivated: {}", user.getUsername());
     }
@@ -293,6 +321,7 @@ public class UserService implements UserDetailsService {
         user.setAccountStatus(User.AccountStatus.ACTIVE);
         user.setDeletedAt(null);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         
         log.info("User activated: {}", user.getUsername());
     }
@@ -306,6 +335,7 @@ public class UserService implements UserDetailsService {
         
         user.getRoles().add(role);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         
         log.info("Role {} assigned to user {}", role.getName(), user.getUsername());
     }
@@ -319,6 +349,7 @@ public class UserService implements UserDetailsService {
         
         user.getRoles().remove(role);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(user.getUsername()));
         
         log.info("Role {} removed from user {}", role.getName(), user.getUsername());
     }
@@ -1,7 +1,12 @@
 package com.medivex.user.service.util;
 
+import com.medivex.user.service.entity.Permission;
+import com.medivex.user.service.entity.User;
+import com.medivex.user.service.security.SigningKeyStore;
+import com.medivex.user.service.security.VerifiedToken;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -9,26 +14,100 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 @Component
 @Slf4j
 public class JwtUtil {
     
-    @Value("${jwt.secret}")
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String PERMISSIONS_CLAIM = "perms";
+    public static final String PERMISSIONS_OMITTED_CLAIM = "perms_omitted";
+    
+    private static final List<String> CRUD_ACTIONS = List.of("CREATE", "READ", "UPDATE", "DELETE");
+    
+    private final SigningKeyStore signingKeys;
+    
+    // HS256 tokens issued before the switch to RS256 are accepted until the sunset below
+    @Value("${jwt.secret:}")
     private String secret;
     
+    // ISO-8601 instant; blank means HMAC-signed tokens are never accepted
+    @Value("${jwt.signing.hmac-accepted-until:}")
+    private String hmacAcceptedUntil;
+    
     @Value("${jwt.expiration}")
     private Long expiration;
     
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.claims.max-roles:16}")
+    private int maxRoles;
+    
+    @Value("${jwt.claims.max-permissions:64}")
+    private int maxPermissions;
+    
+    @Value("${jwt.max-token-bytes:4096}")
+    private int maxTokenBytes;
+    
+    private final SecureRandom random = new SecureRandom();
+    private SecretKey hmacKey;
+    private Instant hmacSunset;
+    private JwtParser parser;
+    
+    public JwtUtil(SigningKeyStore signingKeys) {
+        this.signingKeys = signingKeys;
+    }
+    
+    @PostConstruct
+    void init() {
+        hmacSunset = hmacAcceptedUntil.isBlank() ? null : Instant.parse(hmacAcceptedUntil.trim());
+        hmacKey = hmacSunset != null && !secret.isEmpty() ? Keys.hmacShaKeyFor(secret.getBytes()) : null;
+        if (hmacKey != null && Instant.now().isBefore(hmacSunset)) {
+            log.warn("Accepting HMAC-signed tokens until {}", hmacSunset);
+        }
+        parser = Jwts.parser().keyLocator(new LocatorAdapter<>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if (header.getAlgorithm().startsWith("HS")) {
+                    // checked per token so the sunset takes effect without a restart
+                    if (hmacKey == null || !Instant.now().isBefore(hmacSunset)) {
+                        throw new UnsupportedJwtException("HMAC-signed tokens are no longer accepted");
+                    }
+                    return hmacKey;
+                }
+                PublicKey key = header.getKeyId() != null ? signingKeys.publicKey(header.getKeyId()) : null;
+                if (key == null) {
+                    throw new UnsupportedJwtException("Unknown signing key " + header.getKeyId());
+                }
+                return key;
+            }
+        }).build();
+    }
+    
+    /**
+     * Checks the signature and expiry of a token and returns it with its claims. Callers that
+     * need several claims should verify once and read them from the result.
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public VerifiedToken verify(String token) {
+        return new VerifiedToken(token, parser.parseSignedClaims(token).getPayload());
     }
     
     public String extractUsername(String token) {
@@ -46,19 +125,77 @@ public class JwtUtil {
     
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return verify(token).claims();
         } catch (JwtException e) {
             log.error("JWT parsing error: {}", e.getMessage());
             throw new JwtException("Invalid JWT token");
         }
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Issues an access token that downstream services can authorize from without calling back:
+     * it carries the user id, the roles as {@code ROLE_} authorities and the active permissions
+     * in {@link #compactPermissions compact form}. Roles beyond the limit are dropped, which can
+     * only deny. When the permissions would exceed their limit or push the token past the size
+     * limit they are left out and {@code perms_omitted} is set, so a service that needs them
+     * knows to ask user-service instead of treating the list as complete.
+     */
+    public String generateToken(User user) {
+        List<String> roles = user.getRoles().stream()
+                .map(role -> "ROLE_" + role.getName())
+                .sorted()
+                .toList();
+        if (roles.size() > maxRoles) {
+            log.warn("User {} has {} roles; only the first {} are put in the token", user.getUsername(), roles.size(), maxRoles);
+            roles = roles.subList(0, maxRoles);
+        }
+        List<String> permissions = compactPermissions(user.getRoles().stream()
+                .flatMap(role -> role.getPermissions().stream())
+                .filter(permission -> !Boolean.FALSE.equals(permission.getIsActive()))
+                .toList());
+        
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLES_CLAIM, roles);
+        if (permissions.size() <= maxPermissions) {
+            claims.put(PERMISSIONS_CLAIM, permissions);
+            String token = createToken(claims, user.getUsername(), expiration);
+            if (token.length() <= maxTokenBytes) {
+                return token;
+            }
+            claims.remove(PERMISSIONS_CLAIM);
+        }
+        log.warn("Permissions of user {} do not fit in the token; issuing it without them", user.getUsername());
+        claims.put(PERMISSIONS_OMITTED_CLAIM, true);
+        return createToken(claims, user.getUsername(), expiration);
+    }
+    
+    /**
+     * Groups permissions by resource: the CRUD actions of a resource collapse into one entry
+     * such as {@code MEDICINE:CRUD} or {@code REPORT:R}, other actions keep their permission
+     * name, such as {@code REPORT_EXPORT}. The result is sorted so equal sets encode equally.
+     */
+    static List<String> compactPermissions(Collection<Permission> permissions) {
+        Map<String, TreeSet<Integer>> crud = new TreeMap<>();
+        TreeSet<String> other = new TreeSet<>();
+        for (Permission permission : permissions) {
+            String action = permission.getAction();
+            int index = CRUD_ACTIONS.indexOf(action);
+            // only names that expand back to themselves may be compacted
+            if (index >= 0 && permission.getName().equals(permission.getResource() + "_" + action)) {
+                crud.computeIfAbsent(permission.getResource(), k -> new TreeSet<>()).add(index);
+            } else {
+                other.add(permission.getName());
+            }
+        }
+        List<String> compact = new ArrayList<>(crud.size() + other.size());
+        crud.forEach((resource, actions) -> {
+            StringBuilder entry = new StringBuilder(resource).append(':');
+            actions.forEach(i -> entry.append(CRUD_ACTIONS.get(i).charAt(0)));
+            compact.add(entry.toString());
+        });
+        compact.addAll(other);
+        return compact;
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -77,6 +214,12 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername(), refreshExpiration);
     }
     
+    public String generateRefreshToken(String username) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("type", "refresh");
+        return createToken(claims, username, refreshExpiration);
+    }
+    
     public String generateRefreshToken(Authentication authentication) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("type", "refresh");
@@ -84,19 +227,28 @@ public class JwtUtil {
     }
     
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
+        SigningKeyStore.Key key = signingKeys.signingKey();
         return Jwts.builder()
+                .header().keyId(key.kid()).and()
+                .id(newTokenId())
                 .claims(claims)
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(key.privateKey(), Jwts.SIG.RS256)
                 .compact();
     }
     
+    // 128 random bits in 22 characters: unique per token and a fixed-size revocation key
+    private String newTokenId() {
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            return verify(token).username().equals(userDetails.getUsername());
         } catch (JwtException e) {
             log.error("JWT validation error: {}", e.getMessage());
             return false;
@@ -105,7 +257,9 @@ public class JwtUtil {
     
     public Boolean validateToken(String token) {
         try {
-            return !isTokenExpired(token);
+            // parsing rejects expired tokens
+            verify(token);
+            return true;
         } catch (JwtException e) {
             log.error("JWT validation error: {}", e.getMessage());
             return false;
@@ -114,8 +268,7 @@ public class JwtUtil {
     
     public Boolean isRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            return "refresh".equals(claims.get("type"));
+            return verify(token).isRefreshToken();
         } catch (JwtException e) {
             log.error("JWT parsing error: {}", e.getMessage());
             return false;
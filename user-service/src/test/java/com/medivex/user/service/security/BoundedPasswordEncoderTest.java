@@ -0,0 +1,51 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void hashesWithTheConfiguredCostAndFlagsWeakerHashesForUpgrade() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, 2, 4, Duration.ofSeconds(5), registry)) {
+            String hash = encoder.encode("secret");
+            assertTrue(hash.startsWith("$2a$05$"));
+            assertTrue(encoder.matches("secret", hash));
+            assertFalse(encoder.upgradeEncoding(hash));
+            assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+            assertEquals(1, registry.get("user.password.hash").tag("operation", "matches").timer().count());
+        }
+    }
+
+    @Test
+    void rejectsWorkBeyondTheQueue() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(14, 1, 1, Duration.ofSeconds(30), registry)) {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("first"));
+            awaitGauge(registry, "user.password.hash.active", 1);
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("second"));
+            awaitGauge(registry, "user.password.hash.queue", 1);
+
+            TooManyRequestsException rejected = assertThrows(TooManyRequestsException.class, () -> encoder.encode("third"));
+            assertTrue(rejected.getRetryAfter().toSeconds() >= 1);
+            assertEquals(1.0, registry.get("user.password.hash.rejected").counter().count());
+            assertNotNull(running.get());
+            assertNotNull(queued.get());
+        }
+    }
+
+    private static void awaitGauge(SimpleMeterRegistry registry, String name, double value) throws InterruptedException {
+        for (int i = 0; i < 500 && registry.get(name).gauge().value() != value; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(value, registry.get(name).gauge().value());
+    }
+}
@@ -0,0 +1,104 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoginAttemptLimiterTest {
+
+    private static final long WINDOW = Duration.ofMinutes(15).toMillis();
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redis = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong(100 * WINDOW);
+    private final LoginAttemptLimiter limiter = new LoginAttemptLimiter(redis, registry, Duration.ofMillis(WINDOW), 5, 50, 1000);
+
+    LoginAttemptLimiterTest() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.multiGet(anyCollection())).thenReturn(Arrays.asList(null, null));
+        limiter.setClock(now::get);
+    }
+
+    @Test
+    void fifthFailureLocksAndLaterAttemptsAreThrottledUntilTheyLeaveTheWindow() {
+        for (int i = 1; i < 5; i++) {
+            limiter.checkAllowed("Alice", "10.0.0.1");
+            assertFalse(limiter.recordFailure("Alice", "10.0.0.1"));
+        }
+        assertTrue(limiter.recordFailure("alice", "10.0.0.1"), "usernames are counted case-insensitively");
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkAllowed("alice", "10.0.0.2"));
+        limiter.checkAllowed("bob", "10.0.0.1");
+
+        // half way through the next bucket half of the previous one is still in the window
+        now.addAndGet(WINDOW + WINDOW / 2);
+        limiter.checkAllowed("alice", "10.0.0.1");
+        assertEquals(1.0, registry.get("user.login.throttled").tag("scope", "user").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushSharesIncrementsInOneBatchAndPicksUpOtherNodesCounts() {
+        limiter.recordFailure("alice", "10.0.0.1");
+        limiter.recordFailure("alice", "10.0.0.1");
+        // Redis replies per window: the new total, then the expire
+        when(redis.executePipelined(any(SessionCallback.class))).thenReturn(List.of(9L, true, 6L, true));
+
+        limiter.flush();
+        verify(redis, times(1)).executePipelined(any(SessionCallback.class));
+        // two failures here, at least six across the cluster
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkAllowed("alice", "10.0.0.2"));
+
+        limiter.flush();
+        verifyNoMoreInteractions(ignoreStubs(redis));
+    }
+
+    @Test
+    void anEmailCountsAgainstTheAccountItBelongsTo() {
+        limiter.resolved("Alice@Medvix.test", "alice");
+        for (int i = 1; i < 5; i++) {
+            assertFalse(limiter.recordFailure(i % 2 == 0 ? "alice" : "alice@medvix.test", "10.0.0.1"));
+        }
+        assertTrue(limiter.recordFailure("alice@medvix.test", "10.0.0.1"));
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkAllowed("alice", "10.0.0.2"));
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkAllowed("ALICE@medvix.test", "10.0.0.2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aPreviousBucketWrittenAtFlushGetsAnExpiry() {
+        RedisOperations<String, String> operations = mock(RedisOperations.class);
+        when(operations.opsForValue()).thenReturn(values);
+        // failures in two buckets with no flush in between
+        limiter.recordFailure("alice", null);
+        now.addAndGet(WINDOW);
+        limiter.recordFailure("alice", null);
+        when(redis.executePipelined(any(SessionCallback.class))).thenAnswer(inv -> {
+            inv.<SessionCallback<Object>>getArgument(0).execute(operations);
+            return List.of(1L, true, 1L, true);
+        });
+
+        limiter.flush();
+
+        String previous = LoginAttemptLimiter.KEY_PREFIX + "user:alice:100";
+        verify(values).increment(previous, 1L);
+        verify(operations).expire(previous, WINDOW, TimeUnit.MILLISECONDS);
+        verify(operations).expire(LoginAttemptLimiter.KEY_PREFIX + "user:alice:101", 2 * WINDOW, TimeUnit.MILLISECONDS);
+    }
+}
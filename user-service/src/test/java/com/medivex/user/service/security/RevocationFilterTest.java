@@ -0,0 +1,88 @@
+package com.medivex.user.service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RevocationFilterTest {
+
+    @Test
+    void filterHasNoFalseNegativesAndFewFalsePositives() {
+        TokenBloomFilter filter = new TokenBloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("revoked-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("revoked-" + (i % 10_000)));
+            if (filter.mightContain("valid-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lostAnnouncementTriggersARebuildFromTheRevocationKeys() {
+        RedisTemplate<String, String> redis = mock(RedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.get(RevocationFilter.SEQUENCE_KEY)).thenReturn("2");
+        when(redis.scan(any())).thenAnswer(invocation -> {
+            String pattern = invocation.<ScanOptions>getArgument(0).getPattern();
+            return cursor(switch (pattern) {
+                case "revoked:*" -> List.of("revoked:a", "revoked:b");
+                case "revoked-before:*" -> List.of("revoked-before:alice");
+                default -> List.of();
+            });
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RevocationFilter filter = new RevocationFilter(redis, registry, 1000, 0.001, Duration.ofHours(1));
+
+        assertTrue(filter.lookup("anything", "bob").any(), "lookups go to Redis until the first build");
+        filter.check();
+        assertTrue(filter.lookup("a", "bob").token());
+        assertFalse(filter.lookup("never-revoked", "bob").any());
+        assertTrue(filter.lookup("never-revoked", "alice").user());
+        assertEquals(1.0, registry.get("user.token.blacklist.lookups").tag("result", "filtered").counter().count());
+
+        // revocation 3 never arrives, 4 does
+        filter.onMessage(new DefaultMessage("token-blacklist".getBytes(), "4:d".getBytes(StandardCharsets.UTF_8)), null);
+        assertTrue(filter.lookup("d", "bob").token());
+        when(values.get(RevocationFilter.SEQUENCE_KEY)).thenReturn("4");
+        filter.check();
+        verify(redis, times(3)).scan(any());
+        filter.check();
+        verify(redis, times(6)).scan(any());
+
+        // in order from here on: no further rebuilds
+        filter.onMessage(new DefaultMessage("token-blacklist".getBytes(), "5:e".getBytes(StandardCharsets.UTF_8)), null);
+        when(values.get(RevocationFilter.SEQUENCE_KEY)).thenReturn("5");
+        filter.check();
+        filter.check();
+        verify(redis, times(6)).scan(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<String> cursor(List<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
+}
@@ -0,0 +1,104 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.entity.SigningKey;
+import com.medivex.user.service.repository.SigningKeyRepository;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SigningKeyStoreTest {
+
+    private static final String KEK = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final List<SigningKey> rows = new ArrayList<>();
+    private final SigningKeyCipher cipher = new SigningKeyCipher(KEK);
+    private final AtomicLong ids = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    private SigningKeyRepository repository() {
+        SigningKeyRepository repository = mock(SigningKeyRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            SigningKey row = invocation.getArgument(0);
+            if (row.getId() == null) {
+                row.setId(ids.incrementAndGet());
+                rows.add(row);
+            }
+            return row;
+        });
+        when(repository.findAllByOrderByActivatesAtDesc()).thenAnswer(invocation -> rows.stream()
+                .sorted(Comparator.comparing(SigningKey::getActivatesAt).reversed())
+                .toList());
+        doAnswer(invocation -> rows.removeIf(row -> ((Collection<Long>) invocation.getArgument(0)).contains(row.getId())))
+                .when(repository).deleteAllById(any());
+        return repository;
+    }
+
+    @Test
+    void newKeyIsPublishedBeforeItSignsAndTheOldOneIsRetiredAfterRetention() {
+        // rotate on every check, keep superseded keys for one minute
+        SigningKeyStore store = new SigningKeyStore(repository(), cipher, 2048, Duration.ZERO, Duration.ofMinutes(15), 60_000);
+        String first = store.signingKey().kid();
+        LocalDateTime now = LocalDateTime.now();
+        store.rotate(now);
+        assertEquals(2, store.publishedKeys().size());
+        assertEquals(first, store.signingKey().kid());
+        String second = store.publishedKeys().get(0).kid();
+        assertNotNull(store.publicKey(second));
+
+        // the second key has been active for two minutes: the first one can no longer verify anything
+        store.rotate(now.plusMinutes(17));
+        List<String> published = store.publishedKeys().stream().map(SigningKeyStore.Key::kid).toList();
+        assertEquals(2, published.size());
+        assertTrue(published.contains(second));
+        assertFalse(published.contains(first));
+    }
+
+    @Test
+    void privateKeysAreStoredEncryptedAndBoundToTheirKid() throws Exception {
+        SigningKeyStore store = new SigningKeyStore(repository(), cipher, 2048, Duration.ofDays(30), Duration.ofMinutes(15), 60_000);
+        SigningKeyStore.Key key = store.signingKey();
+
+        SigningKey row = rows.get(0);
+        assertTrue(row.getPrivateKey().startsWith(SigningKeyCipher.PREFIX));
+        assertFalse(row.getPrivateKey().contains(Base64.getEncoder().encodeToString(key.privateKey().getEncoded()).substring(0, 32)));
+        assertArrayEquals(key.privateKey().getEncoded(), cipher.decrypt(row.getKid(), row.getPrivateKey()));
+        assertThrows(IllegalStateException.class, () -> cipher.decrypt("another-kid", row.getPrivateKey()));
+        SigningKeyCipher otherKek = new SigningKeyCipher(Base64.getEncoder().encodeToString("x".repeat(32).getBytes()));
+        assertThrows(IllegalStateException.class, () -> otherKek.decrypt(row.getKid(), row.getPrivateKey()));
+    }
+
+    @Test
+    void plaintextKeysFromBeforeEncryptionAreEncryptedOnLoad() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair pair = generator.generateKeyPair();
+        SigningKeyRepository repository = repository();
+        repository.save(SigningKey.builder()
+                .kid("legacy")
+                .algorithm(SigningKeyStore.ALGORITHM)
+                .publicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()))
+                .privateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()))
+                .activatesAt(LocalDateTime.now().minusDays(1))
+                .build());
+
+        SigningKeyStore store = new SigningKeyStore(repository, cipher, 2048, Duration.ofDays(30), Duration.ofMinutes(15), 60_000);
+
+        assertEquals("legacy", store.signingKey().kid());
+        assertArrayEquals(pair.getPrivate().getEncoded(), store.signingKey().privateKey().getEncoded());
+        assertTrue(SigningKeyCipher.isEncrypted(rows.get(0).getPrivateKey()));
+        assertThrows(IllegalStateException.class, () -> new SigningKeyCipher(""));
+    }
+}
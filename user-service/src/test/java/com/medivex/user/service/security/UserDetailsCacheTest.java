@@ -0,0 +1,87 @@
+package com.medivex.user.service.security;
+
+import com.medivex.user.service.event.RoleChangedEvent;
+import com.medivex.user.service.event.UserSecurityChangedEvent;
+import com.medivex.user.service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserDetailsCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redis = mock(RedisTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final UserDetailsCache cache = new UserDetailsCache(userRepository, redis, registry, 100, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader = username -> {
+        loads.incrementAndGet();
+        return User.withUsername(username).password("{bcrypt}hash").roles("PHARMACIST").build();
+    };
+
+    @Test
+    void repeatedRequestsLoadOnceAndKeepNoPasswordHash() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("pharmacist", cache.get("pharmacist", loader).getUsername());
+        }
+
+        assertEquals(1, loads.get());
+        assertNull(cache.get("pharmacist", loader).getPassword());
+        assertEquals(3.0, registry.get("user.details.db.queries.avoided").counter().count());
+    }
+
+    @Test
+    void userAndRoleChangesEvictOnlyAffectedUsers() {
+        cache.get("pharmacist", loader);
+        cache.get("cashier", loader);
+        cache.get("admin", loader);
+        when(userRepository.findUsernamesByRoleId(7L)).thenReturn(List.of("cashier"));
+
+        cache.onUserSecurityChanged(new UserSecurityChangedEvent("pharmacist"));
+        cache.onRoleChanged(new RoleChangedEvent(7L));
+        cache.get("pharmacist", loader);
+        cache.get("cashier", loader);
+        cache.get("admin", loader);
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void evictionsReachTheCachesOfOtherNodes() {
+        UserDetailsCache otherNode = new UserDetailsCache(userRepository, redis, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        // Redis delivers every publication to all subscribed nodes
+        when(redis.convertAndSend(eq(UserDetailsCache.CHANNEL), anyString())).thenAnswer(inv -> {
+            DefaultMessage message = new DefaultMessage(UserDetailsCache.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    inv.<String>getArgument(1).getBytes(StandardCharsets.UTF_8));
+            cache.onMessage(message, null);
+            otherNode.onMessage(message, null);
+            return 2L;
+        });
+        for (String username : List.of("pharmacist", "cashier", "admin")) {
+            otherNode.get(username, loader);
+        }
+        when(userRepository.findUsernamesByRoleId(7L)).thenReturn(List.of("cashier", "admin"));
+
+        cache.onUserSecurityChanged(new UserSecurityChangedEvent("pharmacist"));
+        cache.onRoleChanged(new RoleChangedEvent(7L));
+        for (String username : List.of("pharmacist", "cashier", "admin")) {
+            otherNode.get(username, loader);
+        }
+
+        assertEquals(6, loads.get());
+    }
+}
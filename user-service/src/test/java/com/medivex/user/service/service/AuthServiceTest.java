@@ -0,0 +1,114 @@
+package com.medivex.user.service.service;
+
+import com.medivex.user.service.dto.LoginRequestDto;
+import com.medivex.user.service.entity.User;
+import com.medivex.user.service.event.UserSecurityChangedEvent;
+import com.medivex.user.service.exception.TooManyRequestsException;
+import com.medivex.user.service.repository.UserRepository;
+import com.medivex.user.service.security.LoginAttemptLimiter;
+import com.medivex.user.service.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuthServiceTest {
+
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final UserService userService = mock(UserService.class);
+    private final LoginAttemptLimiter limiter = mock(LoginAttemptLimiter.class);
+    private final AuthService authService = new AuthService(new ProviderManager(provider()), userService,
+            mock(JwtUtil.class), mock(TokenBlacklistService.class), limiter);
+
+    @Test
+    void aBusyPasswordEncoderIsReportedAsThrottledForUnknownUsers() {
+        when(userDetailsService.loadUserByUsername("ghost")).thenThrow(new UsernameNotFoundException("User not found: ghost"));
+        when(passwordEncoder.matches(any(), any())).thenThrow(busy());
+
+        assertThrows(TooManyRequestsException.class, () -> authService.login(request("ghost", "secret"), "10.0.0.1"));
+        verify(limiter, never()).recordFailure(anyString(), anyString());
+    }
+
+    @Test
+    void aThrottledUserLookupIsNotTurnedIntoALoginFailure() {
+        // the provider wraps anything the lookup throws other than UsernameNotFoundException
+        when(userDetailsService.loadUserByUsername("alice")).thenThrow(busy());
+
+        assertThrows(TooManyRequestsException.class, () -> authService.login(request("alice", "secret"), "10.0.0.1"));
+        verify(limiter, never()).recordFailure(anyString(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void theFailureThatReachesTheLimitLocksTheAccountInItsOwnTransaction() throws Exception {
+        RedisTemplate<String, String> redis = mock(RedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.multiGet(anyCollection())).thenReturn(Arrays.asList(null, null));
+        LoginAttemptLimiter realLimiter = new LoginAttemptLimiter(redis, new SimpleMeterRegistry(), Duration.ofMinutes(15), 3, 50, 1000);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+        User alice = User.builder().username("alice").email("alice@example.com").build();
+        when(userRepository.findByUsernameOrEmail("alice", "alice")).thenReturn(Optional.of(alice));
+        UserService realUserService = new UserService(userRepository, passwordEncoder, mock(RoleService.class),
+                mock(EmailService.class), events, mock(LastLoginRecorder.class), realLimiter);
+
+        AuthenticationManager rejecting = mock(AuthenticationManager.class);
+        when(rejecting.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+        AuthService service = new AuthService(rejecting, realUserService, mock(JwtUtil.class),
+                mock(TokenBlacklistService.class), realLimiter);
+
+        for (int i = 1; i < 3; i++) {
+            assertThrows(RuntimeException.class, () -> service.login(request("alice", "wrong"), "10.0.0.1"));
+        }
+        verify(userRepository, never()).save(any());
+
+        RuntimeException failed = assertThrows(RuntimeException.class, () -> service.login(request("alice", "wrong"), "10.0.0.1"));
+        assertEquals("Invalid username or password", failed.getMessage());
+        verify(userRepository).save(alice);
+        assertFalse(alice.isAccountNonLocked());
+        verify(events).publishEvent(any(UserSecurityChangedEvent.class));
+
+        // login throws, which rolls back its transaction; the lock must not be part of it
+        Transactional tx = UserService.class.getMethod("lockAccount", String.class).getAnnotation(Transactional.class);
+        assertEquals(Propagation.REQUIRES_NEW, tx.propagation());
+    }
+
+    @SuppressWarnings("deprecation")
+    private DaoAuthenticationProvider provider() {
+        // set up as in SecurityConfig
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setHideUserNotFoundExceptions(false);
+        return provider;
+    }
+
+    private static TooManyRequestsException busy() {
+        return new TooManyRequestsException("Too many sign-in requests, please retry shortly", Duration.ofSeconds(1));
+    }
+
+    private static LoginRequestDto request(String usernameOrEmail, String password) {
+        return LoginRequestDto.builder().usernameOrEmail(usernameOrEmail).password(password).build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.medivex.user.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medivex.user.service.config.AmqpConfig;
+import com.medivex.user.service.dto.OutgoingEmailDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailDispatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations channel = mock(RabbitOperations.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    EmailDispatcherTest() {
+        when(rabbitTemplate.invoke(any())).thenAnswer(inv ->
+                inv.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(channel));
+    }
+
+    @Test
+    void sendsABatchOverOneConnectionAndRetriesOnlyTheFailedEmail() throws Exception {
+        try (LocalSmtpServer smtp = new LocalSmtpServer(Set.of("nobody@medvix.test"))) {
+            EmailDispatcher dispatcher = dispatcher(smtp);
+
+            dispatcher.dispatch(List.of(
+                    message("alice@medvix.test", "Welcome to MedVix!"),
+                    message("nobody@medvix.test", "Verify your email - MedVix"),
+                    message("bob@medvix.test", "Reset your password - MedVix")));
+
+            assertEquals(2, smtp.messages.size());
+            assertEquals(1, smtp.connections.get());
+            verify(channel).send(eq(""), eq(AmqpConfig.emailRetryQueue(1)), argThat(m ->
+                    Integer.valueOf(1).equals(m.getMessageProperties().getHeader(EmailDispatcher.ATTEMPT_HEADER))));
+            verify(channel).waitForConfirmsOrDie(10_000);
+            verifyNoMoreInteractions(channel);
+            assertEquals(2.0, registry.get("user.email.dispatched").tag("result", "sent").counter().count());
+        }
+    }
+
+    @Test
+    void parksAnEmailThatFailedItsLastRetry() throws Exception {
+        try (LocalSmtpServer smtp = new LocalSmtpServer(Set.of("nobody@medvix.test"))) {
+            EmailDispatcher dispatcher = dispatcher(smtp);
+            Message lastTry = message("nobody@medvix.test", "Verify your email - MedVix");
+            lastTry.getMessageProperties().setHeader(EmailDispatcher.ATTEMPT_HEADER, 2);
+
+            dispatcher.dispatch(List.of(lastTry));
+
+            verify(channel).send("", AmqpConfig.EMAIL_FAILED_QUEUE, lastTry);
+            verify(channel).waitForConfirmsOrDie(10_000);
+            assertEquals(1.0, registry.get("user.email.dispatched").tag("result", "failed").counter().count());
+        }
+    }
+
+    @Test
+    void rejectsTheBatchWhenTheBrokerDoesNotConfirmTheRetry() throws Exception {
+        try (LocalSmtpServer smtp = new LocalSmtpServer(Set.of("nobody@medvix.test"))) {
+            EmailDispatcher dispatcher = dispatcher(smtp);
+            doThrow(new AmqpTimeoutException("no confirm")).when(channel).waitForConfirmsOrDie(anyLong());
+
+            // the listener container then redelivers the whole batch instead of acking it
+            assertThrows(AmqpTimeoutException.class, () ->
+                    dispatcher.dispatch(List.of(message("nobody@medvix.test", "Verify your email - MedVix"))));
+            assertEquals(0.0, registry.get("user.email.dispatched").tag("result", "retried").counter().count());
+        }
+    }
+
+    private EmailDispatcher dispatcher(LocalSmtpServer smtp) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        return new EmailDispatcher(mailSender, rabbitTemplate, objectMapper, registry, "noreply@medvix.test",
+                List.of(Duration.ofSeconds(5), Duration.ofMinutes(1)), Duration.ofSeconds(10));
+    }
+
+    private Message message(String to, String subject) throws Exception {
+        return MessageBuilder.withBody(objectMapper.writeValueAsBytes(new OutgoingEmailDto(to, subject, "Hello"))).build();
+    }
+}
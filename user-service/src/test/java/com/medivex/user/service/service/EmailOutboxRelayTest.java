@@ -0,0 +1,91 @@
+package com.medivex.user.service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medivex.user.service.config.AmqpConfig;
+import com.medivex.user.service.dto.OutgoingEmailDto;
+import com.medivex.user.service.entity.EmailOutboxMessage;
+import com.medivex.user.service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations channel = mock(RabbitOperations.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final EmailOutboxRelay relay = new EmailOutboxRelay(repository, rabbitTemplate,
+            mock(PlatformTransactionManager.class), registry, true, 10, Duration.ofSeconds(1), Duration.ofSeconds(60), Duration.ofHours(24));
+    private final List<EmailOutboxMessage> outbox = new ArrayList<>();
+
+    EmailOutboxRelayTest() {
+        when(repository.save(any())).thenAnswer(inv -> {
+            EmailOutboxMessage m = inv.getArgument(0);
+            m.setId((long) outbox.size() + 1);
+            outbox.add(m);
+            return m;
+        });
+        when(rabbitTemplate.invoke(any())).thenAnswer(inv ->
+                inv.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(channel));
+    }
+
+    @Test
+    void queuesOutboxEmailsOnceTheBrokerConfirmsThem() throws Exception {
+        EmailService emailService = new EmailService(repository, objectMapper);
+        emailService.sendPasswordResetEmail("alice@medvix.test", "token-1");
+        emailService.sendWelcomeEmail("bob@medvix.test", "Bob");
+        verifyNoInteractions(rabbitTemplate);
+        when(repository.lockUnclaimed(any(), any())).thenReturn(List.copyOf(outbox));
+
+        relay.relay();
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(channel, times(2)).send(eq(""), eq(AmqpConfig.EMAIL_QUEUE), sent.capture());
+        verify(channel).waitForConfirmsOrDie(1000);
+        Message first = sent.getAllValues().get(0);
+        assertEquals(MessageDeliveryMode.PERSISTENT, first.getMessageProperties().getDeliveryMode());
+        OutgoingEmailDto email = objectMapper.readValue(first.getBody(), OutgoingEmailDto.class);
+        assertEquals("alice@medvix.test", email.to());
+        assertTrue(email.text().contains("token-1"));
+        verify(repository).claim(eq(List.of(1L, 2L)), any());
+        verify(repository).markSent(eq(List.of(1L, 2L)), any());
+        assertEquals(2.0, registry.get("email.outbox.published").counter().count());
+    }
+
+    @Test
+    void keepsEmailsTheBrokerDidNotConfirmAndBacksOff() {
+        outbox.add(EmailOutboxMessage.builder().id(7L).payload("{}").build());
+        when(repository.lockUnclaimed(any(), any())).thenReturn(List.copyOf(outbox));
+        doThrow(new AmqpTimeoutException("no confirm")).when(channel).waitForConfirmsOrDie(anyLong());
+        when(repository.countBySentAtIsNull()).thenReturn(1L);
+
+        relay.relay();
+
+        verify(repository, never()).markSent(any(), any());
+        verify(repository).release(List.of(7L));
+        assertEquals(1.0, registry.get("email.outbox.failures").counter().count());
+        assertEquals(1.0, registry.get("email.outbox.pending").gauge().value());
+
+        // paused for the backoff, so the next tick does not touch the broker
+        relay.relay();
+        verify(rabbitTemplate, times(1)).invoke(any());
+        assertEquals(1000, EmailOutboxRelay.backoffMillis(1, Duration.ofSeconds(60)));
+        assertEquals(60_000, EmailOutboxRelay.backoffMillis(10, Duration.ofSeconds(60)));
+    }
+}
@@ -0,0 +1,48 @@
+package com.medivex.user.service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LastLoginRecorderTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LastLoginRecorder recorder = new LastLoginRecorder(jdbcTemplate, registry);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesLoginsPerUserAndKeepsThemUntilWritten() {
+        LocalDateTime first = LocalDateTime.of(2025, 3, 1, 8, 0);
+        recorder.record("alice", first);
+        recorder.record("alice", first.plusMinutes(5));
+        recorder.record("alice", first.plusMinutes(1));
+        recorder.record("bob", first);
+
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+        recorder.flush();
+        assertEquals(2.0, registry.get("user.last-login.pending").gauge().value());
+
+        reset(jdbcTemplate);
+        recorder.flush();
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(LastLoginRecorder.UPDATE_SQL), args.capture());
+        assertEquals(2, args.getValue().size());
+        assertTrue(args.getValue().stream().anyMatch(row ->
+                row[1].equals("alice") && row[0].equals(Timestamp.valueOf(first.plusMinutes(5)))));
+        assertEquals(0.0, registry.get("user.last-login.pending").gauge().value());
+
+        recorder.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+}
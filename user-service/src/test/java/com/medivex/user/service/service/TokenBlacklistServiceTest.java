@@ -0,0 +1,78 @@
+package com.medivex.user.service.service;
+
+import com.medivex.user.service.security.RevocationFilter;
+import com.medivex.user.service.security.VerifiedToken;
+import com.medivex.user.service.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenBlacklistServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redis = mock(RedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final RevocationFilter revocationFilter = mock(RevocationFilter.class);
+    private final TokenBlacklistService service = new TokenBlacklistService(redis, jwtUtil, revocationFilter);
+
+    TokenBlacklistServiceTest() {
+        when(redis.opsForValue()).thenReturn(values);
+        when(redis.countExistingKeys(anyCollection())).thenReturn(0L);
+    }
+
+    @Test
+    void revokedTokensAreStoredAndLookedUpByTheirId() {
+        VerifiedToken token = token("jti-1", Instant.now());
+        when(revocationFilter.lookup("jti-1", "alice")).thenReturn(new RevocationFilter.Lookup(true, false));
+
+        service.blacklistToken(token);
+        verify(values).set(eq("revoked:jti-1"), eq("1"), longThat(ttl -> ttl > 0), any());
+        verify(revocationFilter).announce("jti-1");
+
+        when(redis.countExistingKeys(List.of("revoked:jti-1"))).thenReturn(1L);
+        assertTrue(service.isRevoked(token));
+    }
+
+    @Test
+    void revokeAllRejectsTokensIssuedUpToTheCutoff() {
+        Instant cutoff = Instant.now();
+        when(jwtUtil.getRefreshExpirationTime()).thenReturn(86_400_000L);
+        service.revokeAllBefore("alice", cutoff);
+        verify(values).set(eq("revoked-before:alice"), eq(String.valueOf(cutoff.getEpochSecond())), eq(86_400L), any());
+        verify(revocationFilter).announce("user:alice");
+
+        when(values.get("revoked-before:alice")).thenReturn(String.valueOf(cutoff.getEpochSecond()));
+        when(revocationFilter.lookup(anyString(), eq("alice"))).thenReturn(new RevocationFilter.Lookup(false, true));
+        assertTrue(service.isRevoked(token("old", cutoff.minusSeconds(60))));
+        assertFalse(service.isRevoked(token("new", cutoff.plusSeconds(1))));
+
+        // a filter miss answers without Redis
+        when(revocationFilter.lookup(anyString(), eq("bob"))).thenReturn(new RevocationFilter.Lookup(false, false));
+        assertFalse(service.isRevoked(token("other", cutoff.minusSeconds(60), "bob")));
+        verify(values, times(2)).get(anyString());
+    }
+
+    private static VerifiedToken token(String id, Instant issuedAt) {
+        return token(id, issuedAt, "alice");
+    }
+
+    private static VerifiedToken token(String id, Instant issuedAt, String username) {
+        Claims claims = Jwts.claims().id(id).subject(username)
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(issuedAt.plusSeconds(3600)))
+                .build();
+        return new VerifiedToken("token-" + id, claims);
+    }
+}
@@ -0,0 +1,128 @@
+package com.medivex.user.service.util;
+
+import com.medivex.user.service.entity.Permission;
+import com.medivex.user.service.entity.Role;
+import com.medivex.user.service.entity.User;
+import com.medivex.user.service.security.SigningKeyStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs256-signing";
+
+    private final SigningKeyStore.Key key = generateKey();
+    private final SigningKeyStore signingKeys = mock(SigningKeyStore.class);
+    private final JwtUtil jwtUtil = new JwtUtil(signingKeys);
+
+    JwtUtilTest() {
+        when(signingKeys.signingKey()).thenReturn(key);
+        when(signingKeys.publicKey(key.kid())).thenReturn(key.publicKey());
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "hmacAcceptedUntil", Instant.now().plusSeconds(3600).toString());
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 120_000L);
+        ReflectionTestUtils.setField(jwtUtil, "maxRoles", 16);
+        ReflectionTestUtils.setField(jwtUtil, "maxPermissions", 64);
+        ReflectionTestUtils.setField(jwtUtil, "maxTokenBytes", 4096);
+        jwtUtil.init();
+    }
+
+    @Test
+    void accessTokenCarriesUserIdRolesAndCompactPermissions() {
+        Role pharmacist = role("PHARMACIST",
+                permission("MEDICINE", "READ"), permission("MEDICINE", "CREATE"),
+                permission("REPORT", "READ"), permission("REPORT", "EXPORT"));
+        Role admin = role("ADMIN", permission("MEDICINE", "UPDATE"), permission("MEDICINE", "DELETE"));
+        String token = jwtUtil.generateToken(user(pharmacist, admin));
+
+        Claims claims = parse(token);
+        assertEquals(42L, jwtUtil.verify(token).userId());
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_PHARMACIST"), claims.get(JwtUtil.ROLES_CLAIM));
+        assertEquals(List.of("MEDICINE:CRUD", "REPORT:R", "REPORT_EXPORT"), claims.get(JwtUtil.PERMISSIONS_CLAIM));
+        assertNull(claims.get(JwtUtil.PERMISSIONS_OMITTED_CLAIM));
+    }
+
+    @Test
+    void permissionsOverTheSizeLimitAreLeftOutAndFlagged() {
+        ReflectionTestUtils.setField(jwtUtil, "maxTokenBytes", 300);
+        Permission[] permissions = new Permission[40];
+        for (int i = 0; i < permissions.length; i++) {
+            permissions[i] = permission("RESOURCE" + i, "APPROVE");
+        }
+        String token = jwtUtil.generateToken(user(role("AUDITOR", permissions)));
+
+        Claims claims = parse(token);
+        assertNull(claims.get(JwtUtil.PERMISSIONS_CLAIM));
+        assertEquals(true, claims.get(JwtUtil.PERMISSIONS_OMITTED_CLAIM));
+        assertEquals(List.of("ROLE_AUDITOR"), claims.get(JwtUtil.ROLES_CLAIM));
+    }
+
+    @Test
+    void verifiesRsaTokensByKeyIdAndLegacyHmacTokensWhileAccepted() {
+        String token = jwtUtil.generateToken(user(role("PHARMACIST")));
+        assertEquals(key.kid(), Jwts.parser().verifyWith(key.publicKey()).build().parseSignedClaims(token).getHeader().getKeyId());
+        assertEquals("pharmacist", jwtUtil.verify(token).username());
+        assertEquals(22, jwtUtil.verify(token).revocationId().length());
+        assertNotEquals(jwtUtil.verify(token).id(), jwtUtil.verify(jwtUtil.generateToken(user(role("PHARMACIST")))).id());
+
+        String legacy = Jwts.builder().subject("pharmacist")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .compact();
+        assertEquals("pharmacist", jwtUtil.verify(legacy).username());
+        assertNull(jwtUtil.verify(legacy).id());
+        assertEquals(43, jwtUtil.verify(legacy).revocationId().length());
+        ReflectionTestUtils.setField(jwtUtil, "hmacAcceptedUntil", Instant.now().minusSeconds(1).toString());
+        jwtUtil.init();
+        assertThrows(JwtException.class, () -> jwtUtil.verify(legacy));
+        ReflectionTestUtils.setField(jwtUtil, "hmacAcceptedUntil", "");
+        jwtUtil.init();
+        assertThrows(JwtException.class, () -> jwtUtil.verify(legacy));
+    }
+
+    private Claims parse(String token) {
+        return jwtUtil.verify(token).claims();
+    }
+
+    private static SigningKeyStore.Key generateKey() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair pair = generator.generateKeyPair();
+            return new SigningKeyStore.Key(1L, "test-key", (RSAPublicKey) pair.getPublic(), pair.getPrivate(), LocalDateTime.now());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static User user(Role... roles) {
+        return User.builder().id(42L).username("pharmacist").roles(new HashSet<>(List.of(roles))).build();
+    }
+
+    private static Role role(String name, Permission... permissions) {
+        return Role.builder().name(name).permissions(new HashSet<>(Set.of(permissions))).build();
+    }
+
+    private static Permission permission(String resource, String action) {
+        return Permission.builder().name(resource + "_" + action).resource(resource).action(action).build();
+    }
+}